@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2026 Bernd Michaely (info@bernd-michaely.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.bernd_michaely.diascope.app.util.concurrent;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/// Benchmark for the submit throughput of ConciseTaskScheduler with a
+/// growing number of producer threads. The submitted tasks are drained every
+/// millisecond by a consumer discarding them, so that the benchmark measures
+/// the hand-off only. Run by:
+///
+/// ```
+/// ./gradlew :module-gui-fx:jmh
+/// ```
+///
+/// @author Bernd Michaely (info@bernd-michaely.de)
+///
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConciseTaskSchedulerBenchmark
+{
+	private static final int SCHEDULING_TIME = 1;
+	private static final Runnable TASK = () ->
+	{
+	};
+	private ConciseTaskScheduler taskScheduler;
+
+	@Setup(Level.Trial)
+	public void setUp()
+	{
+		taskScheduler = new ConciseTaskScheduler(SCHEDULING_TIME, tasks -> tasks.clear());
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown()
+	{
+		taskScheduler.close();
+	}
+
+	@Benchmark
+	@Threads(1)
+	public boolean submit01Producer()
+	{
+		return taskScheduler.submit(TASK);
+	}
+
+	@Benchmark
+	@Threads(2)
+	public boolean submit02Producers()
+	{
+		return taskScheduler.submit(TASK);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public boolean submit04Producers()
+	{
+		return taskScheduler.submit(TASK);
+	}
+
+	@Benchmark
+	@Threads(8)
+	public boolean submit08Producers()
+	{
+		return taskScheduler.submit(TASK);
+	}
+
+	@Benchmark
+	@Threads(16)
+	public boolean submit16Producers()
+	{
+		return taskScheduler.submit(TASK);
+	}
+}
@@ -19,6 +19,7 @@ package de.bernd_michaely.diascope.app;
 import de.bernd_michaely.common.semver.SemanticVersion;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalInt;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.SimpleBooleanProperty;
 import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
@@ -71,6 +72,22 @@ public class ApplicationConfiguration
 		}
 	}
 
+	/**
+	 * The number of images to prefetch ahead of and behind the selected image.
+	 *
+	 * @param ahead  the maximum number of images to prefetch in navigation
+	 *               direction
+	 * @param behind the maximum number of images to prefetch in the opposite
+	 *               direction
+	 */
+	public record Prefetch(int ahead, int behind)
+	{
+		public Prefetch(String ahead, @Nullable String behind)
+		{
+			this(Integer.parseInt(ahead), behind != null ? Integer.parseInt(behind) : 1);
+		}
+	}
+
 	public record State(
 		Optional<SemanticVersion> version,
 		LaunchType launchType,
@@ -78,8 +95,14 @@ public class ApplicationConfiguration
 		Optional<String> initialPath,
 		BooleanProperty developmentModeProperty,
 		boolean experimentalMode,
-		Optional<Geometry> geometry)
+		Optional<Geometry> geometry,
+		OptionalInt imageCacheSize,
+		Optional<Prefetch> prefetch,
+		boolean offHeapImages,
+		Optional<String> flightRecording)
 	{
+		private static final int TILE_CACHE_SHARE_DIVISOR = 4;
+
 		public boolean isStartedInDevelopmentMode()
 		{
 			return launchType() == LaunchType.DEVELOPMENT;
@@ -89,6 +112,37 @@ public class ApplicationConfiguration
 		{
 			return commandLineArguments().toArray(String[]::new);
 		}
+
+		/// Returns the memory budget for decoded images, that is the image cache
+		/// size given on the command line, or a quarter of the maximum heap size
+		/// by default. The budget is shared by the image cache and the tile cache.
+		///
+		/// @return the memory budget for decoded images in bytes
+		///
+		public long getImageMemoryBudget()
+		{
+			return imageCacheSize().isPresent() ?
+				((long) imageCacheSize().getAsInt()) << 20 : Runtime.getRuntime().maxMemory() / 4;
+		}
+
+		/// Returns the share of the image memory budget for the image cache.
+		///
+		/// @return the image cache capacity in bytes
+		///
+		public long getImageCacheCapacity()
+		{
+			return getImageMemoryBudget() - getTileCacheCapacity();
+		}
+
+		/// Returns the share of the image memory budget for the tiles of large
+		/// images.
+		///
+		/// @return the tile cache capacity in bytes
+		///
+		public long getTileCacheCapacity()
+		{
+			return getImageMemoryBudget() / TILE_CACHE_SHARE_DIVISOR;
+		}
 	}
 
 	private ApplicationConfiguration(State state)
@@ -112,7 +166,8 @@ public class ApplicationConfiguration
 
 	public static void initInstance(Optional<String> initialPath,
 		List<String> commandLineArguments, boolean developmentMode,
-		boolean experimentalMode, Optional<Geometry> geometry)
+		boolean experimentalMode, Optional<Geometry> geometry, OptionalInt imageCacheSize,
+		Optional<Prefetch> prefetch, boolean offHeapImages, Optional<String> flightRecording)
 	{
 		if (instance == null)
 		{
@@ -123,7 +178,11 @@ public class ApplicationConfiguration
 					initialPath,
 					new SimpleBooleanProperty(developmentMode),
 					experimentalMode,
-					geometry));
+					geometry,
+					imageCacheSize,
+					prefetch,
+					offHeapImages,
+					flightRecording));
 		}
 		else
 		{
@@ -147,7 +206,8 @@ public class ApplicationConfiguration
 					commandLineArguments != null ? commandLineArguments : List.of(),
 					Optional.empty(),
 					new SimpleBooleanProperty(),
-					false, Optional.empty()));
+					false, Optional.empty(), OptionalInt.empty(), Optional.empty(), false,
+					Optional.empty()));
 		}
 		else
 		{
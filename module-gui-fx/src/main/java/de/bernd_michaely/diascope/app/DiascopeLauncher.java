@@ -17,11 +17,13 @@
 package de.bernd_michaely.diascope.app;
 
 import de.bernd_michaely.diascope.app.application.DiascopeApplication;
+import de.bernd_michaely.diascope.app.util.jfr.FlightRecording;
 
 import static javafx.application.Application.launch;
 
 /**
- * Launcher for DiascopeApplication.
+ * Launcher for DiascopeApplication. If configured, the application runs
+ * within a JDK Flight Recorder recording.
  *
  * @author Bernd Michaely (info@bernd-michaely.de)
  */
@@ -30,6 +32,15 @@ public class DiascopeLauncher implements Runnable
 	@Override
 	public void run()
 	{
-		launch(DiascopeApplication.class, ApplicationConfiguration.getState().getCommandLineArgs());
+		final var state = ApplicationConfiguration.getState();
+		final var flightRecording = state.flightRecording().flatMap(FlightRecording::start);
+		try
+		{
+			launch(DiascopeApplication.class, state.getCommandLineArgs());
+		}
+		finally
+		{
+			flightRecording.ifPresent(FlightRecording::close);
+		}
 	}
 }
@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2026 Bernd Michaely (info@bernd-michaely.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.bernd_michaely.diascope.app.dialog;
+
+import de.bernd_michaely.diascope.app.image.OffHeapImage;
+import de.bernd_michaely.diascope.app.util.io.FileIngestion;
+import de.bernd_michaely.diascope.app.util.metrics.Histogram;
+import de.bernd_michaely.diascope.app.util.metrics.LoadMetrics;
+import de.bernd_michaely.diascope.app.util.metrics.LoadMetrics.Metric;
+import java.util.ArrayList;
+import java.util.List;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.beans.value.ObservableValue;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.VBox;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.stage.Window;
+import javafx.util.Duration;
+
+import static de.bernd_michaely.diascope.app.util.beans.ChangeListenerUtil.onChange;
+
+/// InfoPane to display the image loading pipeline metrics in development
+/// mode. The display is refreshed periodically while its window is showing.
+///
+/// @author Bernd Michaely (info@bernd-michaely.de)
+///
+class InfoPaneLoadMetrics implements InfoPane
+{
+	private static final Duration REFRESH_INTERVAL = Duration.seconds(1);
+	private static final String[] COLUMNS =
+	{
+		"Metric", "Count", "Mean", "50 %", "90 %", "99 %", "Max"
+	};
+	private static final double[] QUANTILES =
+	{
+		0.5, 0.9, 0.99
+	};
+
+	@Override
+	public String getTitle()
+	{
+		return "Load Metrics";
+	}
+
+	private static String format(Metric metric, double value)
+	{
+		return switch (metric.getUnit())
+		{
+			case NANOSECONDS -> "%.2f ms".formatted(value / 1e6);
+			case COUNT -> "%.1f".formatted(value);
+		};
+	}
+
+	@Override
+	public Region getDisplay()
+	{
+		final Font fontHeader = Font.font("", FontWeight.BOLD, DEFAULT_FONT_SIZE);
+		final GridPane gridPane = new GridPane(DEFAULT_FONT_SIZE, DEFAULT_FONT_SIZE / 3);
+		for (int c = 0; c < COLUMNS.length; c++)
+		{
+			final Label header = new Label(COLUMNS[c]);
+			header.setFont(fontHeader);
+			gridPane.add(header, c, 0);
+		}
+		final List<Runnable> updates = new ArrayList<>();
+		final Metric[] metrics = Metric.values();
+		for (int r = 0; r < metrics.length; r++)
+		{
+			final Metric metric = metrics[r];
+			gridPane.add(new Label(metric.getDescription()), 0, r + 1);
+			final Label[] labels = new Label[COLUMNS.length - 1];
+			for (int c = 0; c < labels.length; c++)
+			{
+				labels[c] = new Label();
+				labels[c].setMaxWidth(Double.MAX_VALUE);
+				labels[c].setAlignment(Pos.CENTER_RIGHT);
+				gridPane.add(labels[c], c + 1, r + 1);
+			}
+			updates.add(() ->
+			{
+				final Histogram.Snapshot snapshot = LoadMetrics.getHistogram(metric).getSnapshot();
+				labels[0].setText(Long.toString(snapshot.count()));
+				labels[1].setText(format(metric, snapshot.mean()));
+				for (int i = 0; i < QUANTILES.length; i++)
+				{
+					labels[i + 2].setText(format(metric, snapshot.quantile(QUANTILES[i])));
+				}
+				labels[labels.length - 1].setText(format(metric, snapshot.max()));
+			});
+		}
+		final Label headerCache = new Label("Image cache:");
+		headerCache.setFont(fontHeader);
+		final Label textCache = new Label();
+		updates.add(() -> textCache.setText("%d hits, %d misses, hit rate %.1f %%".formatted(
+			LoadMetrics.getCacheHits(), LoadMetrics.getCacheMisses(),
+			100 * LoadMetrics.getCacheHitRate())));
+		final Label headerIngestion = new Label("File ingestion:");
+		headerIngestion.setFont(fontHeader);
+		final Label textIngestion = new Label();
+		updates.add(() ->
+		{
+			final var statistics = FileIngestion.getStatistics();
+			textIngestion.setText("%d files, %.1f MB, %.1f MB/s".formatted(statistics.files(),
+				(double) statistics.bytes() / (1 << 20), statistics.bytesPerSecond() / (1 << 20)));
+		});
+		final Label headerOffHeap = new Label("Off heap images:");
+		headerOffHeap.setFont(fontHeader);
+		final Label textOffHeap = new Label();
+		updates.add(() -> textOffHeap.setText(Integer.toString(OffHeapImage.getCount())));
+		final Runnable update = () -> updates.forEach(Runnable::run);
+		final Button buttonReset = new Button("Reset");
+		buttonReset.setOnAction(_ ->
+		{
+			LoadMetrics.reset();
+			update.run();
+		});
+		final VBox vBox = new VBox(gridPane,
+			headerCache, textCache,
+			headerIngestion, textIngestion,
+			headerOffHeap, textOffHeap,
+			buttonReset);
+		vBox.setPadding(new Insets(DEFAULT_INSET_SIZE, DEFAULT_INSET_SIZE, 0, DEFAULT_INSET_SIZE));
+		vBox.setSpacing(DEFAULT_FONT_SIZE / 3);
+		VBox.setMargin(gridPane, new Insets(0, 0, DEFAULT_FONT_SIZE / 2, 0));
+		final Timeline timeline = new Timeline(new KeyFrame(REFRESH_INTERVAL, _ -> update.run()));
+		timeline.setCycleCount(Animation.INDEFINITE);
+		// the dialog is closed by hiding its window, the display is not removed:
+		final ObservableValue<Boolean> showing = vBox.sceneProperty()
+			.flatMap(Scene::windowProperty)
+			.flatMap(Window::showingProperty)
+			.orElse(false);
+		showing.addListener(onChange(isShowing ->
+		{
+			if (isShowing)
+			{
+				update.run();
+				timeline.play();
+			}
+			else
+			{
+				timeline.stop();
+			}
+		}));
+		update.run();
+		return vBox;
+	}
+}
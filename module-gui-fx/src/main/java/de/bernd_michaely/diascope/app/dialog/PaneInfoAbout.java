@@ -16,6 +16,7 @@
  */
 package de.bernd_michaely.diascope.app.dialog;
 
+import de.bernd_michaely.diascope.app.ApplicationConfiguration;
 import de.bernd_michaely.diascope.app.control.TextFactory;
 import javafx.geometry.Insets;
 import javafx.scene.Node;
@@ -49,6 +50,12 @@ public class PaneInfoAbout implements InfoPane
 		final TabPane tabPane = new TabPane(
 			//			new Tab(infoPaneAbout.getTitle(), infoPaneAbout.getDisplay()),
 			new Tab(infoPaneSystemInfo.getTitle(), infoPaneSystemInfo.getDisplay()));
+		if (ApplicationConfiguration.getState().developmentModeProperty().get())
+		{
+			final InfoPaneLoadMetrics infoPaneLoadMetrics = new InfoPaneLoadMetrics();
+			tabPane.getTabs().add(
+				new Tab(infoPaneLoadMetrics.getTitle(), infoPaneLoadMetrics.getDisplay()));
+		}
 		tabPane.setTabClosingPolicy(UNAVAILABLE);
 		this.pane = new BorderPane(tabPane);
 		final double sizeText = (DEFAULT_FONT_SIZE * 32 / 13);
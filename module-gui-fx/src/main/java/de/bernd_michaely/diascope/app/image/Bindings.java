@@ -16,10 +16,11 @@
  */
 package de.bernd_michaely.diascope.app.image;
 
+import java.util.function.DoubleUnaryOperator;
 import javafx.beans.binding.DoubleBinding;
 import javafx.beans.value.ObservableNumberValue;
-
-import static javafx.beans.binding.Bindings.createDoubleBinding;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 
 /// Factory class for custom bindings.
 ///
@@ -52,9 +53,7 @@ class Bindings
 	///
 	static DoubleBinding tan(ObservableNumberValue angle)
 	{
-		return createDoubleBinding(
-			() -> Math.tan(Math.toRadians(angle.doubleValue())),
-			angle);
+		return createDoubleBinding(a -> Math.tan(Math.toRadians(a)), angle);
 	}
 
 	/// Binding to calculate the arctangent.
@@ -64,9 +63,7 @@ class Bindings
 	///
 	static DoubleBinding arctan(ObservableNumberValue value)
 	{
-		return createDoubleBinding(
-			() -> Math.toDegrees(Math.atan(value.doubleValue())),
-			value);
+		return createDoubleBinding(v -> Math.toDegrees(Math.atan(v)), value);
 	}
 
 	/// Binding to normalize an angle.
@@ -76,8 +73,43 @@ class Bindings
 	///
 	static DoubleBinding normalizeAngle(ObservableNumberValue angle)
 	{
-		return createDoubleBinding(
-			() -> normalizeAngle(angle.doubleValue()),
-			angle);
+		return createDoubleBinding(Bindings::normalizeAngle, angle);
+	}
+
+	/// Creates a binding applying a function to a single dependency.
+	/// Contrary to `javafx.beans.binding.Bindings.createDoubleBinding`,
+	/// the value is not boxed on recomputation.
+	///
+	/// @param function the function to apply to the dependency value
+	/// @param value the dependency
+	/// @return the binding
+	///
+	private static DoubleBinding createDoubleBinding(
+		DoubleUnaryOperator function, ObservableNumberValue value)
+	{
+		return new DoubleBinding()
+		{
+			{
+				bind(value);
+			}
+
+			@Override
+			protected double computeValue()
+			{
+				return function.applyAsDouble(value.doubleValue());
+			}
+
+			@Override
+			public ObservableList<?> getDependencies()
+			{
+				return FXCollections.singletonObservableList(value);
+			}
+
+			@Override
+			public void dispose()
+			{
+				unbind(value);
+			}
+		};
 	}
 }
@@ -33,6 +33,10 @@ enum Border
 {
 	RIGHT, BOTTOM, LEFT, TOP;
 
+	/// Cached values, because `values()` returns a new array on each call.
+	///
+	private static final Border[] VALUES = values();
+
 	/// Get the next Border in ascending order of angles.
 	///
 	/// @return the next Border in ascending order of angles
@@ -40,8 +44,8 @@ enum Border
 	Border next()
 	{
 		final int o = ordinal();
-		final int n = values().length;
-		return values()[o == n - 1 ? 0 : o + 1];
+		final int n = VALUES.length;
+		return VALUES[o == n - 1 ? 0 : o + 1];
 	}
 
 	/// Returns the number of corner points between two given borders
@@ -62,7 +66,7 @@ enum Border
 		final double d = a2 - a1;
 		final int i1 = border1.ordinal();
 		final int i2 = border2.ordinal();
-		final int n = values().length;
+		final int n = VALUES.length;
 		final int num = i1 <= i2 ? i2 - i1 : n + i2 - i1;
 		return (num == 0 && d >= 180.0) ? n : num;
 	}
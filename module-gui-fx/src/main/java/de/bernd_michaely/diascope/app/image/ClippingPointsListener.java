@@ -16,105 +16,102 @@
  */
 package de.bernd_michaely.diascope.app.image;
 
-import java.util.AbstractCollection;
-import java.util.Iterator;
 import java.util.List;
-import java.util.NoSuchElementException;
 import java.util.function.Function;
+import javafx.beans.value.ObservableDoubleValue;
 
 import static de.bernd_michaely.diascope.app.image.Border.*;
 
 /// Class to calculate splitter shape clipping points.
 ///
+/// A change of the viewport size or the split center affects all layers,
+/// see [#run()], while a change of a divider angle affects the two layers
+/// adjacent to the divider only, see [#dividerChanged(Object)].
+/// The points are calculated into a primitive buffer, which is reused for
+/// all layers, so that no heap allocations occur
+/// (in particular during frequent mouse drag events).
+///
+/// @param <L> the type of the image layers
 /// @author Bernd Michaely (info@bernd-michaely.de)
 ///
-class ClippingPointsListener implements Runnable
+class ClippingPointsListener<L> implements Runnable
 {
-	private static final Double ZERO = 0.0;
-	private final Viewport viewport;
-	private final List<ImageLayer> unmodifiableLayers;
-	private final Function<ImageLayer, SplitDivider> dividerByImageLayer;
-	private final Function<ImageLayer, ImageLayerShapeSplit> shapeByImageLayer;
+	private final ObservableDoubleValue viewportWidth, viewportHeight;
+	private final ObservableDoubleValue splitCenterX, splitCenterY;
+	private final List<L> unmodifiableLayers;
+	private final Function<L, SplitDivider> dividerByImageLayer;
+	private final Function<L, ImageLayerShapeSplit> shapeByImageLayer;
 
 	/// Class to handle the coordinates of polygon points.
-	/// The implementation should try to avoid repeated heap allocations
-	/// (in particular during frequent mouse drag events).
+	/// The coordinates are kept in a primitive array of the maximum size.
 	///
-	static class Points extends AbstractCollection<Double>
+	static class Points
 	{
-		private static final int MAX_NUM_POINTS = 3 + Border.values().length;
-		private final Double[] coordinates = new Double[2 * MAX_NUM_POINTS];
-		private int currentSize;
+		static final int MAX_NUM_POINTS = 3 + Border.values().length;
+		private final double[] coordinates = new double[2 * MAX_NUM_POINTS];
+		private int numPoints;
 
-		/// Coordinates iterator implementation.
-		/// One single instance is resettable and can be reused.
+		/// Returns the number of points.
+		///
+		/// @return the number of points
 		///
-		private class PointsIterator implements Iterator<Double>
+		int getNumPoints()
 		{
-			private int counter;
-
-			@Override
-			public boolean hasNext()
-			{
-				return counter < currentSize;
-			}
-
-			@Override
-			public Double next()
-			{
-				if (hasNext())
-				{
-					return coordinates[counter++];
-				}
-				else
-				{
-					throw new NoSuchElementException();
-				}
-			}
-
-			private void reset()
-			{
-				counter = 0;
-			}
+			return numPoints;
 		}
-		private final PointsIterator iterator = new PointsIterator();
 
-		@Override
-		public Iterator<Double> iterator()
+		double getX(int index)
 		{
-			return iterator;
+			return coordinates[2 * index];
 		}
 
-		@Override
-		public int size()
+		double getY(int index)
 		{
-			return currentSize;
+			return coordinates[2 * index + 1];
 		}
 
 		private void reset()
 		{
-			currentSize = 0;
-			iterator.reset();
+			numPoints = 0;
 		}
 
-		private void setNext(Double x, Double y)
+		private void setNext(double x, double y)
 		{
-			coordinates[currentSize++] = x;
-			coordinates[currentSize++] = y;
+			final int i = 2 * numPoints++;
+			coordinates[i] = x;
+			coordinates[i + 1] = y;
 		}
 	}
 	private final Points points = new Points();
 
-	ClippingPointsListener(Viewport viewport, List<ImageLayer> unmodifiableLayers,
-		Function<ImageLayer, SplitDivider> dividerByImageLayer,
-		Function<ImageLayer, ImageLayerShapeSplit> shapeByImageLayer)
+	ClippingPointsListener(
+		ObservableDoubleValue viewportWidth, ObservableDoubleValue viewportHeight,
+		ObservableDoubleValue splitCenterX, ObservableDoubleValue splitCenterY,
+		List<L> unmodifiableLayers,
+		Function<L, SplitDivider> dividerByImageLayer,
+		Function<L, ImageLayerShapeSplit> shapeByImageLayer)
 	{
-		this.viewport = viewport;
+		this.viewportWidth = viewportWidth;
+		this.viewportHeight = viewportHeight;
+		this.splitCenterX = splitCenterX;
+		this.splitCenterY = splitCenterY;
 		this.unmodifiableLayers = unmodifiableLayers;
 		this.dividerByImageLayer = dividerByImageLayer;
 		this.shapeByImageLayer = shapeByImageLayer;
 	}
 
+	ClippingPointsListener(Viewport viewport, List<L> unmodifiableLayers,
+		Function<L, SplitDivider> dividerByImageLayer,
+		Function<L, ImageLayerShapeSplit> shapeByImageLayer)
+	{
+		final var splitCenter = viewport.getSplitCenter();
+		this(viewport.widthProperty(), viewport.heightProperty(),
+			splitCenter.xProperty(), splitCenter.yProperty(),
+			unmodifiableLayers, dividerByImageLayer, shapeByImageLayer);
+	}
+
+	/// Recalculates the points of all layers.
+	///
 	@Override
 	public void run()
 	{
@@ -123,52 +120,94 @@ class ClippingPointsListener implements Runnable
 		{
 			for (int i = 0; i < n; i++)
 			{
-				final var layer = unmodifiableLayers.get(i);
-				final var layerNext = unmodifiableLayers.get((i + 1) % n);
-				final var divider = dividerByImageLayer.apply(layer);
-				final var dividerNext = dividerByImageLayer.apply(layerNext);
-				var corner = divider.getBorder();
-				final var cornerNext = dividerNext.getBorder();
-				final int numIntermediateCorners = numberOfCornerPointsBetween(
-					corner, divider.getAngle(), cornerNext, dividerNext.getAngle());
-				points.reset();
-				final var splitCenter = viewport.getSplitCenter();
-				points.setNext(
-					splitCenter.xProperty().getValue(),
-					splitCenter.yProperty().getValue());
-				points.setNext(
-					divider.getBorderIntersectionX(),
-					divider.getBorderIntersectionY());
-				for (int k = 0; k < numIntermediateCorners; k++, corner = corner.next())
-				{
-					points.setNext(
-						switch (corner)
-						{
-							case TOP, RIGHT -> viewport.widthProperty().getValue();
-							case BOTTOM, LEFT -> ZERO;
-						},
-						switch (corner)
-						{
-							case RIGHT, BOTTOM -> viewport.heightProperty().getValue();
-							case LEFT, TOP -> ZERO;
-						});
-				}
-				points.setNext(
-					dividerNext.getBorderIntersectionX(),
-					dividerNext.getBorderIntersectionY());
-				shapeByImageLayer.apply(layer).setPolygonPoints(points);
+				updateLayer(i, n);
 			}
 		}
 		else if (n == 1)
 		{
-			final double width = viewport.widthProperty().get();
-			final double height = viewport.heightProperty().get();
+			final double width = viewportWidth.get();
+			final double height = viewportHeight.get();
 			points.reset();
-			points.setNext(ZERO, ZERO);
-			points.setNext(width, ZERO);
+			points.setNext(0.0, 0.0);
+			points.setNext(width, 0.0);
 			points.setNext(width, height);
-			points.setNext(ZERO, height);
+			points.setNext(0.0, height);
 			shapeByImageLayer.apply(unmodifiableLayers.getFirst()).setPolygonPoints(points);
 		}
 	}
+
+	/// Recalculates the points of the two layers adjacent to the divider of
+	/// the given layer, that is the given layer and its predecessor.
+	/// To be called on a change of the divider angle.
+	///
+	/// @param layer the given layer
+	///
+	void dividerChanged(L layer)
+	{
+		// validate the angle to be notified of subsequent invalidations:
+		dividerByImageLayer.apply(layer).getAngle();
+		final int n = unmodifiableLayers.size();
+		if (n > 1)
+		{
+			final int index = indexOf(layer);
+			if (index >= 0)
+			{
+				updateLayer(index == 0 ? n - 1 : index - 1, n);
+				updateLayer(index, n);
+			}
+		}
+	}
+
+	/// Returns the index of the given layer, compared by identity.
+	///
+	private int indexOf(L layer)
+	{
+		for (int i = 0; i < unmodifiableLayers.size(); i++)
+		{
+			if (unmodifiableLayers.get(i) == layer)
+			{
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/// Recalculates the points of the layer with the given index
+	/// bounded by its own divider and the divider of the next layer.
+	///
+	/// @param index the index of the layer
+	/// @param n the number of layers
+	///
+	private void updateLayer(int index, int n)
+	{
+		final var layer = unmodifiableLayers.get(index);
+		final var layerNext = unmodifiableLayers.get((index + 1) % n);
+		final var divider = dividerByImageLayer.apply(layer);
+		final var dividerNext = dividerByImageLayer.apply(layerNext);
+		var corner = divider.getBorder();
+		final var cornerNext = dividerNext.getBorder();
+		final int numIntermediateCorners = numberOfCornerPointsBetween(
+			corner, divider.getAngle(), cornerNext, dividerNext.getAngle());
+		final double width = viewportWidth.get();
+		final double height = viewportHeight.get();
+		points.reset();
+		points.setNext(splitCenterX.get(), splitCenterY.get());
+		points.setNext(divider.getBorderIntersectionX(), divider.getBorderIntersectionY());
+		for (int k = 0; k < numIntermediateCorners; k++, corner = corner.next())
+		{
+			points.setNext(
+				switch (corner)
+				{
+					case TOP, RIGHT -> width;
+					case BOTTOM, LEFT -> 0.0;
+				},
+				switch (corner)
+				{
+					case RIGHT, BOTTOM -> height;
+					case LEFT, TOP -> 0.0;
+				});
+		}
+		points.setNext(dividerNext.getBorderIntersectionX(), dividerNext.getBorderIntersectionY());
+		shapeByImageLayer.apply(layer).setPolygonPoints(points);
+	}
 }
@@ -0,0 +1,323 @@
+/*
+ * Copyright (C) 2026 Bernd Michaely (info@bernd-michaely.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.bernd_michaely.diascope.app.image;
+
+import de.bernd_michaely.diascope.app.util.metrics.LoadMetrics;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.function.IntPredicate;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import static de.bernd_michaely.diascope.app.util.metrics.LoadMetrics.Metric.FILE_IO;
+import static java.nio.file.StandardOpenOption.READ;
+
+/// Header only reader of the thumbnail embedded into the EXIF segment of JPEG
+/// files.
+///
+/// Only the head of the file is read, which contains the APP0 (JFIF) and APP1
+/// (EXIF) segments. The thumbnail is referenced by the JPEGInterchangeFormat
+/// tags of IFD1. Malformed or truncated headers are treated as files without
+/// an embedded thumbnail. A thumbnail is used only, if its aspect ratio
+/// matches the size of the main image in its start of frame segment, because
+/// thumbnails of a different aspect ratio are usually letterboxed.
+///
+/// @author Bernd Michaely (info@bernd-michaely.de)
+///
+public final class ExifThumbnailReader
+{
+	/// The number of bytes read from the head of a file. An APP1 segment holds
+	/// at most 64 KB and may be preceded by an APP0 segment.
+	static final int HEADER_READ_SIZE = 128 << 10;
+	private static final int MARKER_SOI = 0xD8;
+	private static final int MARKER_EOI = 0xD9;
+	private static final int MARKER_SOS = 0xDA;
+	private static final int MARKER_APP1 = 0xE1;
+	private static final int TAG_JPEG_INTERCHANGE_FORMAT = 0x0201;
+	private static final int TAG_JPEG_INTERCHANGE_FORMAT_LENGTH = 0x0202;
+	private static final int IFD_ENTRY_SIZE = 12;
+	private static final byte[] EXIF_ID = {'E', 'x', 'i', 'f', 0, 0};
+	private static final Set<String> JPEG_FILE_NAME_EXTENSIONS = Set.of("jpg", "jpeg");
+	private static final IntPredicate IS_APP1 = marker -> marker == MARKER_APP1;
+	/// Start of frame markers, excluding the DHT, JPG and DAC markers.
+	private static final IntPredicate IS_SOF = marker ->
+		marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC;
+
+	/// A thumbnail embedded into an image file.
+	///
+	/// @param data   the JPEG encoded thumbnail
+	/// @param width  the width of the thumbnail
+	/// @param height the height of the thumbnail
+	///
+	public record EmbeddedThumbnail(ByteBuffer data, int width, int height)
+	{
+		/// Returns the larger of width and height.
+		///
+		/// @return the larger of width and height
+		///
+		public int getSize()
+		{
+			return Math.max(width, height);
+		}
+	}
+
+	private ExifThumbnailReader()
+	{
+	}
+
+	/// Returns true, iff the given file has the file name extension of a JPEG
+	/// file, which may contain an embedded thumbnail.
+	///
+	/// @param path the given file
+	/// @return true, iff the file name extension is one of a JPEG file
+	///
+	public static boolean hasJpegFileNameExtension(Path path)
+	{
+		final Path fileName = path.getFileName();
+		if (fileName != null)
+		{
+			final String strFileName = fileName.toString().toLowerCase();
+			final int index = strFileName.lastIndexOf('.');
+			return index >= 0 && JPEG_FILE_NAME_EXTENSIONS.contains(strFileName.substring(index + 1));
+		}
+		return false;
+	}
+
+	/// Reads the thumbnail embedded into the given file, if any.
+	///
+	/// @param path the given file
+	/// @return the embedded thumbnail or null, if there is none
+	/// @throws IOException on read errors
+	///
+	public static @Nullable
+	EmbeddedThumbnail read(Path path) throws IOException
+	{
+		final long timeStart = System.nanoTime();
+		final ByteBuffer header;
+		try (final var fileChannel = FileChannel.open(path, READ))
+		{
+			header = ByteBuffer.allocate((int) Math.min(fileChannel.size(), HEADER_READ_SIZE));
+			while (header.hasRemaining() && fileChannel.read(header) >= 0)
+			{
+			}
+			header.flip();
+		}
+		LoadMetrics.recordSince(FILE_IO, timeStart);
+		return parse(header);
+	}
+
+	/// Parses the embedded thumbnail from the head of a JPEG file.
+	///
+	/// @param header the head of a JPEG file, the buffer position is not changed
+	/// @return the embedded thumbnail or null, if there is none or its aspect
+	///         ratio does not match the main image
+	///
+	static @Nullable
+	EmbeddedThumbnail parse(ByteBuffer header)
+	{
+		final ByteBuffer buffer = header.slice().order(ByteOrder.BIG_ENDIAN);
+		try
+		{
+			int pos = findSegment(buffer, IS_APP1, 0);
+			while (pos >= 0)
+			{
+				final int start = pos + 4;
+				final int end = pos + 2 + (buffer.getShort(pos + 2) & 0xffff);
+				if (end <= buffer.limit() && isExif(buffer, start))
+				{
+					final var thumbnail = parseExif(buffer, start + EXIF_ID.length, end);
+					if (thumbnail != null)
+					{
+						return hasMatchingAspectRatio(buffer, thumbnail) ? thumbnail : null;
+					}
+				}
+				pos = findSegment(buffer, IS_APP1, end);
+			}
+			return null;
+		}
+		catch (IndexOutOfBoundsException _)
+		{
+			return null;
+		}
+	}
+
+	/// Finds the next segment with the given marker before the image data.
+	///
+	/// @param buffer   the JPEG data
+	/// @param isMarker the predicate of the markers to search for
+	/// @param pos      the position to start from, or zero for the start of
+	///                 the data, which must be the SOI marker
+	/// @return the position of the segment or -1, if not found
+	///
+	private static int findSegment(ByteBuffer buffer, IntPredicate isMarker, int pos)
+	{
+		if (pos == 0)
+		{
+			if (buffer.limit() < 4 || (buffer.get(0) & 0xff) != 0xff ||
+				(buffer.get(1) & 0xff) != MARKER_SOI)
+			{
+				return -1;
+			}
+			pos = 2;
+		}
+		while (pos + 4 <= buffer.limit() && (buffer.get(pos) & 0xff) == 0xff)
+		{
+			final int m = buffer.get(pos + 1) & 0xff;
+			if (m == 0xff)
+			{
+				// fill byte:
+				pos++;
+			}
+			else if (isMarker.test(m))
+			{
+				return pos;
+			}
+			else if (m == MARKER_SOS || m == MARKER_EOI)
+			{
+				return -1;
+			}
+			else
+			{
+				final int length = buffer.getShort(pos + 2) & 0xffff;
+				if (length < 2)
+				{
+					return -1;
+				}
+				pos += 2 + length;
+			}
+		}
+		return -1;
+	}
+
+	private static boolean isExif(ByteBuffer buffer, int pos)
+	{
+		for (int i = 0; i < EXIF_ID.length; i++)
+		{
+			if (buffer.get(pos + i) != EXIF_ID[i])
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/// Parses the thumbnail referenced by IFD1 of the given TIFF structure.
+	///
+	/// @param buffer the JPEG data
+	/// @param tiff   the start of the TIFF header
+	/// @param end    the end of the APP1 segment
+	/// @return the embedded thumbnail or null, if there is none
+	///
+	private static @Nullable
+	EmbeddedThumbnail parseExif(ByteBuffer buffer, int tiff, int end)
+	{
+		final var b = buffer.duplicate();
+		final int byteOrder = b.getShort(tiff) & 0xffff;
+		if (byteOrder == 0x4949)
+		{
+			b.order(ByteOrder.LITTLE_ENDIAN);
+		}
+		else if (byteOrder != 0x4d4d)
+		{
+			return null;
+		}
+		if ((b.getShort(tiff + 2) & 0xffff) != 42)
+		{
+			return null;
+		}
+		final long offsetIfd0 = b.getInt(tiff + 4) & 0xffffffffL;
+		if (offsetIfd0 < 8 || tiff + offsetIfd0 + 2 > end)
+		{
+			return null;
+		}
+		final int ifd0 = tiff + (int) offsetIfd0;
+		final int numEntries0 = b.getShort(ifd0) & 0xffff;
+		final long offsetIfd1 = b.getInt(ifd0 + 2 + numEntries0 * IFD_ENTRY_SIZE) & 0xffffffffL;
+		if (offsetIfd1 < 8 || tiff + offsetIfd1 + 2 > end)
+		{
+			return null;
+		}
+		final int ifd1 = tiff + (int) offsetIfd1;
+		final int numEntries1 = b.getShort(ifd1) & 0xffff;
+		long offset = -1, length = -1;
+		for (int i = 0; i < numEntries1; i++)
+		{
+			final int entry = ifd1 + 2 + i * IFD_ENTRY_SIZE;
+			if (entry + IFD_ENTRY_SIZE > end)
+			{
+				return null;
+			}
+			final int tag = b.getShort(entry) & 0xffff;
+			if (tag == TAG_JPEG_INTERCHANGE_FORMAT)
+			{
+				offset = b.getInt(entry + 8) & 0xffffffffL;
+			}
+			else if (tag == TAG_JPEG_INTERCHANGE_FORMAT_LENGTH)
+			{
+				length = b.getInt(entry + 8) & 0xffffffffL;
+			}
+		}
+		if (offset <= 0 || length <= 0 || tiff + offset + length > end)
+		{
+			return null;
+		}
+		final ByteBuffer data = buffer.slice(tiff + (int) offset, (int) length);
+		return readSize(data);
+	}
+
+	/// Returns true, iff the aspect ratio of the given thumbnail matches the
+	/// size of the main image within one thumbnail pixel.
+	///
+	/// @param buffer    the JPEG data of the main image
+	/// @param thumbnail the embedded thumbnail
+	/// @return false, if the ratios differ or the main image size is unknown
+	///
+	private static boolean hasMatchingAspectRatio(ByteBuffer buffer, EmbeddedThumbnail thumbnail)
+	{
+		final int pos = findSegment(buffer, IS_SOF, 0);
+		if (pos < 0)
+		{
+			return false;
+		}
+		final long height = buffer.getShort(pos + 5) & 0xffff;
+		final long width = buffer.getShort(pos + 7) & 0xffff;
+		return width > 0 && height > 0 &&
+			Math.abs(thumbnail.width() * height - thumbnail.height() * width) <= Math.max(width, height);
+	}
+
+	/// Reads the dimensions of the given JPEG data from its start of frame
+	/// segment.
+	///
+	/// @param data the JPEG data
+	/// @return the thumbnail or null, if the dimensions are not available
+	///
+	private static @Nullable
+	EmbeddedThumbnail readSize(ByteBuffer data)
+	{
+		final int pos = findSegment(data, IS_SOF, 0);
+		if (pos < 0)
+		{
+			return null;
+		}
+		final int height = data.getShort(pos + 5) & 0xffff;
+		final int width = data.getShort(pos + 7) & 0xffff;
+		return width > 0 && height > 0 ? new EmbeddedThumbnail(data, width, height) : null;
+	}
+}
@@ -29,13 +29,43 @@ import org.checkerframework.checker.nullness.qual.Nullable;
  */
 public class ImageDescriptor
 {
+	/**
+	 * Images exceeding this size in any dimension are rendered in tiles. This
+	 * is within the texture size limit of most graphics adapters.
+	 */
+	public static final int TILING_MIN_SIZE = 8192;
+	/**
+	 * Tolerance of the scale required relative to the scale an image is
+	 * decoded in, before a higher resolution is required.
+	 */
+	public static final double RESOLUTION_TOLERANCE = 1.01;
 	private final Image image;
 	private final Path path;
+	private final double width, height;
 
 	public ImageDescriptor(Image image, Path path)
+	{
+		this(image, path, image.getWidth(), image.getHeight());
+	}
+
+	/**
+	 * Creates a new instance with a nominal image size which may differ from
+	 * the size of the given image, e.g. for a preview of reduced resolution. The
+	 * image will be displayed scaled to the nominal size.
+	 *
+	 * @param image  the given image
+	 * @param path   the image path
+	 * @param width  the nominal image width, if not positive, the width of the
+	 *               given image is used
+	 * @param height the nominal image height, if not positive, the height of
+	 *               the given image is used
+	 */
+	public ImageDescriptor(Image image, Path path, double width, double height)
 	{
 		this.image = image;
 		this.path = path;
+		this.width = width > 0 ? width : Math.max(image.getWidth(), 0.0);
+		this.height = height > 0 ? height : Math.max(image.getHeight(), 0.0);
 	}
 
 	/**
@@ -48,6 +78,62 @@ public class ImageDescriptor
 		return image;
 	}
 
+	/**
+	 * Returns the nominal image width.
+	 *
+	 * @return the nominal image width
+	 */
+	public double getWidth()
+	{
+		return width;
+	}
+
+	/**
+	 * Returns the nominal image height.
+	 *
+	 * @return the nominal image height
+	 */
+	public double getHeight()
+	{
+		return height;
+	}
+
+	/**
+	 * Returns true, iff the image has a lower resolution than the nominal size.
+	 *
+	 * @return true, iff the image has a lower resolution than the nominal size
+	 */
+	public boolean isReducedResolution()
+	{
+		return image.getWidth() < width || image.getHeight() < height;
+	}
+
+	/**
+	 * Returns true, iff an image of the given size is too large to be decoded
+	 * as a whole and is to be rendered in tiles when more than a reduced
+	 * resolution is required.
+	 *
+	 * @param width  the image width
+	 * @param height the image height
+	 * @return true, iff the image is to be rendered in tiles
+	 */
+	public static boolean isTilingRequired(double width, double height)
+	{
+		return width > TILING_MIN_SIZE || height > TILING_MIN_SIZE;
+	}
+
+	/**
+	 * Returns true, iff the image is an image of reduced resolution to be
+	 * complemented by tiles.
+	 *
+	 * @return true, iff the image is to be rendered in tiles
+	 * @see #isTilingRequired(double, double)
+	 */
+	public boolean isTiled()
+	{
+		return isReducedResolution() && isTilingRequired(width, height);
+	}
+
 	/**
 	 * Returns the image path.
 	 *
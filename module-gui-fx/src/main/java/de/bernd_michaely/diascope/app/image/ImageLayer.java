@@ -20,8 +20,10 @@ import de.bernd_michaely.diascope.app.image.MultiImageView.Mode;
 import de.bernd_michaely.diascope.app.util.beans.property.EnumProperties;
 import java.lang.System.Logger;
 import java.util.Optional;
+import javafx.beans.binding.NumberBinding;
 import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.ReadOnlyBooleanProperty;
 import javafx.beans.property.ReadOnlyBooleanWrapper;
 import javafx.beans.property.ReadOnlyDoubleProperty;
 import javafx.beans.property.ReadOnlyDoubleWrapper;
@@ -68,6 +70,7 @@ final class ImageLayer implements Transformable
 	private final DoubleProperty zoomFitWidth, zoomFitHeight, zoomFit;
 	private final DoubleProperty zoomFill;
 	private final ReadOnlyBooleanWrapper imageIsNull;
+	private final ReadOnlyBooleanWrapper fullResolutionRequired;
 	private final DoubleProperty focusPointX, focusPointY;
 	private final Scale scale;
 	private final Rotate rotate;
@@ -75,6 +78,7 @@ final class ImageLayer implements Transformable
 	private final ViewportBoundsLocal viewportBoundsLocal;
 	private final ViewportBounds viewportBounds;
 	private final ObjectProperty<Optional<ImageDescriptor>> imageDescriptor;
+	private @Nullable ImageLayerTiles imageLayerTiles;
 
 	ImageLayer(Viewport viewport)
 	{
@@ -118,6 +122,14 @@ final class ImageLayer implements Transformable
 		scale.yProperty().bind(zoomFactorProperty);
 		imageWidthTransformed.bind(imageWidthRotated.multiply(zoomFactorProperty));
 		imageHeightTransformed.bind(imageHeightRotated.multiply(zoomFactorProperty));
+		// an image of reduced resolution is decoded to fit the unrotated image into the viewport,
+		// the image loader decodes it again, if the viewport is enlarged:
+		final NumberBinding zoomReduced = min(
+			viewportBounds.widthProperty().divide(imageWidth),
+			viewportBounds.heightProperty().divide(imageHeight));
+		this.fullResolutionRequired = new ReadOnlyBooleanWrapper();
+		fullResolutionRequired.bind(
+			zoomFactorProperty.greaterThan(zoomReduced.multiply(ImageDescriptor.RESOLUTION_TOLERANCE)));
 		this.rotate = new Rotate();
 		rotate.angleProperty().bind(imageRotated.rotateProperty());
 		final var mirror = new Scale();
@@ -151,23 +163,39 @@ final class ImageLayer implements Transformable
 		imageView.getTransforms().addAll(
 			translateScroll, scale, translateBack, mirror, rotate, translateCenter);
 		this.imageDescriptor = new SimpleObjectProperty<>(Optional.empty());
-		imageDescriptor.addListener(onChange(optional ->
+		imageDescriptor.addListener(onChange((optionalOld, optional) ->
 		{
+			// keep an off heap image alive while it is displayed:
+			optional.ifPresent(descriptor -> OffHeapImage.retain(descriptor.getImage()));
+			optionalOld.ifPresent(descriptor -> OffHeapImage.releaseDeferred(descriptor.getImage()));
+			closeImageLayerTiles();
 			optional.ifPresentOrElse(descriptor ->
 			{
-				final var image = descriptor.getImage();
-				imageView.setImage(image);
-				final double width = Math.max(image.getWidth(), 0.0);
-				final double height = Math.max(image.getHeight(), 0.0);
+				// a reduced resolution image is scaled to the nominal size,
+				// so replacing it by the full resolution image keeps zoom and scroll state:
+				final double width = descriptor.getWidth();
+				final double height = descriptor.getHeight();
+				imageView.setImage(descriptor.getImage());
+				imageView.setFitWidth(width);
+				imageView.setFitHeight(height);
 				imageWidth.set(width);
 				imageHeight.set(height);
 				imageRotated.setWidth(width);
 				imageRotated.setHeight(height);
+				if (descriptor.isTiled())
+				{
+					final var tiles = new ImageLayerTiles(descriptor, imageView.getTransforms(),
+						zoomFactorProperty, viewportBounds);
+					paneLayer.getChildren().add(tiles.getNode());
+					imageLayerTiles = tiles;
+				}
 			}, () ->
 			{
 				@SuppressWarnings("argument")
 				final Runnable clearImage = () -> imageView.setImage(null);
 				clearImage.run();
+				imageView.setFitWidth(0d);
+				imageView.setFitHeight(0d);
 				imageWidth.set(0d);
 				imageHeight.set(0d);
 				imageRotated.setWidth(0d);
@@ -176,12 +204,34 @@ final class ImageLayer implements Transformable
 		}));
 	}
 
+	private void closeImageLayerTiles()
+	{
+		final var tiles = imageLayerTiles;
+		if (tiles != null)
+		{
+			imageLayerTiles = null;
+			paneLayer.getChildren().remove(tiles.getNode());
+			tiles.close();
+		}
+	}
+
 	@Override
 	public DefaultImageTransforms getImageTransforms()
 	{
 		return imageTransforms;
 	}
 
+	/// Returns a property indicating, whether the current zoom factor requires
+	/// more image pixels than an image of reduced resolution fitting into the
+	/// viewport provides. In `FIT` mode, this is the case for rotated images only.
+	///
+	/// @return a property indicating, whether full resolution is required
+	///
+	ReadOnlyBooleanProperty fullResolutionRequiredProperty()
+	{
+		return fullResolutionRequired.getReadOnlyProperty();
+	}
+
 	ReadOnlyDoubleProperty layerWidthProperty()
 	{
 		return imageWidthTransformed.getReadOnlyProperty();
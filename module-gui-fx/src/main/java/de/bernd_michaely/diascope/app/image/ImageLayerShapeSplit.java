@@ -20,11 +20,16 @@ import de.bernd_michaely.diascope.app.image.MultiImageView.Mode;
 import de.bernd_michaely.diascope.app.util.beans.property.EnumProperties;
 import javafx.beans.property.ReadOnlyObjectProperty;
 import javafx.beans.property.ReadOnlyObjectWrapper;
-import javafx.scene.shape.Polygon;
+import javafx.scene.shape.ClosePath;
+import javafx.scene.shape.LineTo;
+import javafx.scene.shape.MoveTo;
+import javafx.scene.shape.Path;
+import javafx.scene.shape.PathElement;
 import javafx.scene.shape.Rectangle;
 import javafx.scene.shape.Shape;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import static de.bernd_michaely.diascope.app.image.ClippingPointsListener.Points.MAX_NUM_POINTS;
 import static javafx.beans.binding.Bindings.when;
 
 /// Class to describe an ImageLayer selection shape for SPLIT mode.
@@ -35,16 +40,57 @@ final class ImageLayerShapeSplit extends AbstractImageLayerShapeStroke
 {
 	private final Rectangle rectangle = new Rectangle();
 	private final Rectangle rectangleClip = new Rectangle();
-	private final Polygon polygon = new Polygon();
-	private final Polygon polygonClip = new Polygon();
+	private final PolygonPath polygon = new PolygonPath();
+	private final PolygonPath polygonClip = new PolygonPath();
 	private final ReadOnlyObjectWrapper<@Nullable Shape> clip;
 
+	/// A closed path of the maximum number of polygon points.
+	/// The points are updated in place, so that no heap allocations occur
+	/// on updates (contrary to the boxed points of a `Polygon`).
+	/// Unused points coincide with the first point, so that they are not
+	/// changed, when a divider is moved.
+	///
+	private static final class PolygonPath
+	{
+		private final Path path;
+		private final MoveTo moveTo = new MoveTo();
+		private final LineTo[] lineTos = new LineTo[MAX_NUM_POINTS - 1];
+
+		private PolygonPath()
+		{
+			final var elements = new PathElement[MAX_NUM_POINTS + 1];
+			elements[0] = moveTo;
+			for (int i = 0; i < lineTos.length; i++)
+			{
+				elements[i + 1] = lineTos[i] = new LineTo();
+			}
+			elements[MAX_NUM_POINTS] = new ClosePath();
+			this.path = new Path(elements);
+		}
+
+		private void setPoints(ClippingPointsListener.Points points)
+		{
+			final int numPoints = points.getNumPoints();
+			if (numPoints > 0)
+			{
+				moveTo.setX(points.getX(0));
+				moveTo.setY(points.getY(0));
+				for (int i = 0; i < lineTos.length; i++)
+				{
+					final int k = i + 1 < numPoints ? i + 1 : 0;
+					lineTos[i].setX(points.getX(k));
+					lineTos[i].setY(points.getY(k));
+				}
+			}
+		}
+	}
+
 	ImageLayerShapeSplit(EnumProperties<Mode> modeProperties)
 	{
 		super(false, null, null);
 		this.clip = new ReadOnlyObjectWrapper<>();
 		clip.bind(when(modeProperties.isValueProperty(Mode.SPLIT))
-			.<@Nullable Shape>then(polygonClip).otherwise(
+			.<@Nullable Shape>then(polygonClip.path).otherwise(
 			when(modeProperties.isValueProperty(Mode.GRID))
 				.<@Nullable Shape>then(rectangleClip).otherwise((@Nullable Shape) null)));
 		rectangleClip.xProperty().bind(rectangle.xProperty());
@@ -54,7 +100,7 @@ final class ImageLayerShapeSplit extends AbstractImageLayerShapeStroke
 		rectangleClip.arcWidthProperty().bind(rectangle.arcWidthProperty());
 		rectangleClip.arcHeightProperty().bind(rectangle.arcHeightProperty());
 		initShape(rectangle);
-		initShape(polygon);
+		initShape(polygon.path);
 	}
 
 	ReadOnlyObjectProperty<@Nullable Shape> clipProperty()
@@ -72,12 +118,8 @@ final class ImageLayerShapeSplit extends AbstractImageLayerShapeStroke
 
 	void setPolygonPoints(ClippingPointsListener.Points points)
 	{
-		//polygon.getPoints().setAll(points);
-		//polygonClip.getPoints().setAll(points);
-		// … this doesn't seem to work (JavaFX 25.0.2) → workaround:
-		final var pointsArray = points.toArray(Double[]::new);
-		polygon.getPoints().setAll(pointsArray);
-		polygonClip.getPoints().setAll(pointsArray);
+		polygon.setPoints(points);
+		polygonClip.setPoints(points);
 	}
 
 	Rectangle getRectangle()
@@ -85,8 +127,8 @@ final class ImageLayerShapeSplit extends AbstractImageLayerShapeStroke
 		return rectangle;
 	}
 
-	Polygon getPolygon()
+	Path getPolygon()
 	{
-		return polygon;
+		return polygon.path;
 	}
 }
@@ -0,0 +1,308 @@
+/*
+ * Copyright (C) 2026 Bernd Michaely (info@bernd-michaely.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.bernd_michaely.diascope.app.image;
+
+import de.bernd_michaely.diascope.app.ApplicationConfiguration;
+import de.bernd_michaely.diascope.app.image.TilePyramid.Tile;
+import de.bernd_michaely.diascope.app.util.collections.LruCache;
+import de.bernd_michaely.diascope.app.util.concurrent.WorkerThreadFactory;
+import java.io.IOException;
+import java.lang.System.Logger;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
+import javafx.beans.Observable;
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.transform.NonInvertibleTransformException;
+import javafx.scene.transform.Transform;
+import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import static java.lang.System.Logger.Level.*;
+
+/// Renders the visible tiles of a large image on top of an image of reduced
+/// resolution.
+///
+/// The tiles are taken from a pyramid level matching the current zoom factor
+/// and are decoded on demand by a worker thread. Decoded tiles of all images
+/// and levels are kept in a common LRU tile cache, bounded by its share of the
+/// configured image memory budget. The tile group shares the transforms of the
+/// image view, so scrolling, zooming, rotating and mirroring apply to the
+/// tiles as well. All methods are to be called on the FX application thread.
+///
+/// @author Bernd Michaely (info@bernd-michaely.de)
+///
+final class ImageLayerTiles implements AutoCloseable
+{
+	private static final Logger logger = System.getLogger(ImageLayerTiles.class.getName());
+	private static final long MIN_TILE_CACHE_CAPACITY = 16L << 20;
+	private static @MonotonicNonNull LruCache<TileKey, Image> tileCache;
+	private final Group group = new Group();
+	private final Path path;
+	private final TilePyramid tilePyramid;
+	private final double baseScale;
+	private final ReadOnlyDoubleProperty zoomFactorProperty;
+	private final ViewportBounds viewportBounds;
+	private final List<Observable> observables;
+	private final InvalidationListener listener = _ -> scheduleUpdate();
+	private final ExecutorService executorService;
+	private final Set<Tile> pendingTiles = new HashSet<>();
+	private Map<Tile, ImageView> tileViews = new LinkedHashMap<>();
+	private volatile Set<Tile> visibleTiles = Set.of();
+	private volatile @Nullable TileDecoder tileDecoder;
+	private volatile boolean decodingFailed;
+	private volatile boolean closed;
+	private boolean updateScheduled;
+
+	private record TileKey(Path path, Tile tile)
+	{
+	}
+
+	/// Creates a new instance.
+	///
+	/// @param imageDescriptor    the image descriptor with an image of reduced
+	///                           resolution and the nominal size
+	/// @param transforms         the transforms of the image view
+	/// @param zoomFactorProperty the zoom factor
+	/// @param viewportBounds     the viewport bounds of the image layer
+	///
+	ImageLayerTiles(ImageDescriptor imageDescriptor, List<Transform> transforms,
+		ReadOnlyDoubleProperty zoomFactorProperty, ViewportBounds viewportBounds)
+	{
+		this.path = imageDescriptor.getPath();
+		final double width = imageDescriptor.getWidth();
+		this.tilePyramid = new TilePyramid((long) width, (long) imageDescriptor.getHeight(),
+			TilePyramid.DEFAULT_TILE_SIZE);
+		this.baseScale = imageDescriptor.getImage().getWidth() / width;
+		this.zoomFactorProperty = zoomFactorProperty;
+		this.viewportBounds = viewportBounds;
+		this.executorService = Executors.newSingleThreadExecutor(
+			WorkerThreadFactory.createInstance(getClass().getName()));
+		group.getTransforms().setAll(transforms);
+		group.setMouseTransparent(true);
+		this.observables = List.of(zoomFactorProperty, group.localToParentTransformProperty(),
+			viewportBounds.xProperty(), viewportBounds.yProperty(),
+			viewportBounds.widthProperty(), viewportBounds.heightProperty());
+		observables.forEach(observable -> observable.addListener(listener));
+		scheduleUpdate();
+	}
+
+	private static LruCache<TileKey, Image> getTileCache()
+	{
+		if (tileCache == null)
+		{
+			final long capacity = Math.max(
+				ApplicationConfiguration.getState().getTileCacheCapacity(), MIN_TILE_CACHE_CAPACITY);
+			tileCache = new LruCache<>(capacity,
+				image -> 4L * (long) image.getWidth() * (long) image.getHeight());
+		}
+		return tileCache;
+	}
+
+	Node getNode()
+	{
+		return group;
+	}
+
+	private void scheduleUpdate()
+	{
+		if (!updateScheduled && !closed)
+		{
+			updateScheduled = true;
+			Platform.runLater(this::update);
+		}
+	}
+
+	/// Returns the visible region of the image in full resolution pixel
+	/// coordinates.
+	private Rectangle2D getVisibleRegion() throws NonInvertibleTransformException
+	{
+		final var bounds = group.getLocalToParentTransform().inverseTransform(new BoundingBox(
+			viewportBounds.xProperty().get(), viewportBounds.yProperty().get(),
+			viewportBounds.widthProperty().get(), viewportBounds.heightProperty().get()));
+		return new Rectangle2D(bounds.getMinX(), bounds.getMinY(),
+			bounds.getWidth(), bounds.getHeight());
+	}
+
+	private void update()
+	{
+		updateScheduled = false;
+		if (closed)
+		{
+			return;
+		}
+		List<Tile> tiles = List.of();
+		final double zoomFactor = zoomFactorProperty.get();
+		if (zoomFactor > baseScale * ImageDescriptor.RESOLUTION_TOLERANCE)
+		{
+			try
+			{
+				tiles = tilePyramid.getTiles(tilePyramid.getLevel(zoomFactor), getVisibleRegion());
+			}
+			catch (NonInvertibleTransformException ex)
+			{
+				logger.log(TRACE, () -> "No visible region: " + ex);
+			}
+		}
+		visibleTiles = Set.copyOf(tiles);
+		final Map<Tile, ImageView> tileViewsNew = new LinkedHashMap<>();
+		final Map<Tile, Image> fallbackTiles = new HashMap<>();
+		for (var tile : tiles)
+		{
+			final var image = getTileCache().get(new TileKey(path, tile));
+			if (image != null)
+			{
+				tileViewsNew.put(tile, getTileView(tile, image));
+			}
+			else
+			{
+				if (!decodingFailed && pendingTiles.add(tile))
+				{
+					executorService.execute(() -> decode(tile));
+				}
+				// show the tile of the next lower resolution meanwhile, if available:
+				final var tileParent = new Tile(tile.level() + 1, tile.column() / 2, tile.row() / 2);
+				final var imageParent = tile.level() < tilePyramid.getMaxLevel() ?
+					getTileCache().get(new TileKey(path, tileParent)) : null;
+				if (imageParent != null)
+				{
+					fallbackTiles.put(tileParent, imageParent);
+				}
+			}
+		}
+		// lower resolution tiles are placed below:
+		final Map<Tile, ImageView> tileViewsAll = new LinkedHashMap<>();
+		fallbackTiles.forEach((tile, image) -> tileViewsAll.put(tile, getTileView(tile, image)));
+		tileViewsAll.putAll(tileViewsNew);
+		if (!tileViewsAll.keySet().equals(tileViews.keySet()))
+		{
+			tileViews = tileViewsAll;
+			group.getChildren().setAll(tileViews.values());
+		}
+	}
+
+	private ImageView getTileView(Tile tile, Image image)
+	{
+		final var tileView = tileViews.get(tile);
+		if (tileView != null && tileView.getImage() == image)
+		{
+			return tileView;
+		}
+		final var region = tilePyramid.getRegion(tile);
+		final var imageView = new ImageView(image);
+		imageView.setX(region.getMinX());
+		imageView.setY(region.getMinY());
+		imageView.setFitWidth(region.getWidth());
+		imageView.setFitHeight(region.getHeight());
+		imageView.setSmooth(true);
+		return imageView;
+	}
+
+	/// Decodes the given tile, called on the worker thread.
+	private void decode(Tile tile)
+	{
+		@Nullable Image image = null;
+		if (!closed && !decodingFailed && visibleTiles.contains(tile))
+		{
+			try
+			{
+				var decoder = tileDecoder;
+				if (decoder == null)
+				{
+					decoder = TileDecoder.open(path);
+					tileDecoder = decoder;
+				}
+				image = decoder.decode(tilePyramid.getRegion(tile),
+					TilePyramid.getSubsampling(tile.level()));
+			}
+			catch (IOException | RuntimeException ex)
+			{
+				if (!closed)
+				{
+					decodingFailed = true;
+					logger.log(WARNING, () -> "Can't decode tiles of »%s«: %s".formatted(path, ex));
+				}
+			}
+		}
+		final @Nullable Image imageDecoded = image;
+		Platform.runLater(() ->
+		{
+			pendingTiles.remove(tile);
+			if (!closed)
+			{
+				if (imageDecoded != null)
+				{
+					getTileCache().put(new TileKey(path, tile), imageDecoded);
+				}
+				if (visibleTiles.contains(tile))
+				{
+					scheduleUpdate();
+				}
+			}
+		});
+	}
+
+	private void closeDecoder()
+	{
+		final var decoder = tileDecoder;
+		if (decoder != null)
+		{
+			tileDecoder = null;
+			try
+			{
+				decoder.close();
+			}
+			catch (IOException ex)
+			{
+				logger.log(TRACE, ex);
+			}
+		}
+	}
+
+	@Override
+	public void close()
+	{
+		if (!closed)
+		{
+			closed = true;
+			observables.forEach(observable -> observable.removeListener(listener));
+			group.getChildren().clear();
+			tileViews.clear();
+			final var decoder = tileDecoder;
+			if (decoder != null)
+			{
+				decoder.abort();
+			}
+			executorService.execute(this::closeDecoder);
+			executorService.shutdown();
+		}
+	}
+}
@@ -23,6 +23,7 @@ import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import javafx.beans.InvalidationListener;
 import javafx.beans.value.ChangeListener;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
@@ -82,8 +83,11 @@ final class ImageLayersDefault extends ImageLayersBase
 		this.splitDividerRotationControl = new SplitDividerRotationControl(unmodifiableLayers, splitDividerByImageLayer);
 		this.gridDividerDragControl = new GridDividerDragControl(gridTree,
 			viewport.widthProperty(), viewport.heightProperty());
-		this.clippingPointsListener = onChange(new ClippingPointsListener(
-			this.viewport, unmodifiableLayers, splitDividerByImageLayer, shapeByImageLayer));
+		final var clippingPoints = new ClippingPointsListener<ImageLayer>(
+			this.viewport, unmodifiableLayers, splitDividerByImageLayer, shapeByImageLayer);
+		this.clippingPointsListener = onChange(clippingPoints);
+		// divider angles are observed for invalidation to avoid boxing of values:
+		final Map<ImageLayer, InvalidationListener> dividerListeners = new IdentityHashMap<>();
 		viewport.multiLayerModeProperty().addListener(onChange(enabled ->
 		{
 			if (enabled)
@@ -130,7 +134,10 @@ final class ImageLayersDefault extends ImageLayersBase
 						// create SplitDivider:
 						final var splitDivider = new SplitDivider(viewport);
 						splitDividers.put(imageLayer, splitDivider);
-						splitDivider.angleProperty().addListener(clippingPointsListener);
+						final InvalidationListener dividerListener =
+							_ -> clippingPoints.dividerChanged(imageLayer);
+						dividerListeners.put(imageLayer, dividerListener);
+						splitDivider.angleProperty().addListener(dividerListener);
 						splitDivider.getMouseDragState().setOnRotate(
 							() -> splitDividerRotationControl.accept(splitDivider));
 						// create ImageLayerShape:
@@ -151,6 +158,7 @@ final class ImageLayersDefault extends ImageLayersBase
 				}
 				gridDividerDragControl.initializeDividerPositions();
 				splitDividerRotationControl.initializeDividerAngles();
+				clippingPoints.run();
 			})
 			.onRemove(change ->
 			{
@@ -171,12 +179,13 @@ final class ImageLayersDefault extends ImageLayersBase
 							" : on remove layer : Invalid GridDivider");
 					}
 					final var splitDivider = splitDividers.remove(imageLayer);
+					final var dividerListener = dividerListeners.remove(imageLayer);
 					try (imageLayer; splitDivider)
 					{
 						viewport.removeLayer(imageLayer);
-						if (splitDivider != null)
+						if (splitDivider != null && dividerListener != null)
 						{
-							splitDivider.angleProperty().removeListener(clippingPointsListener);
+							splitDivider.angleProperty().removeListener(dividerListener);
 						}
 						else
 						{
@@ -187,6 +196,7 @@ final class ImageLayersDefault extends ImageLayersBase
 				}
 				gridDividerDragControl.initializeDividerPositions();
 				splitDividerRotationControl.initializeDividerAngles();
+				clippingPoints.run();
 			}).build());
 	}
 
@@ -50,6 +50,7 @@ public class MultiImageView implements AutoCloseable
 	private final BooleanProperty scrollBarsEnabled;
 	private final ReadOnlyIntegerWrapper maximumNumberOfLayers;
 	private final ReadOnlyBooleanWrapper spotModeDisabled;
+	private final ReadOnlyBooleanWrapper fullResolutionRequired;
 
 	/// Enum to describe the multi image mode.
 	///
@@ -99,6 +100,17 @@ public class MultiImageView implements AutoCloseable
 				.zoomModeOrDefaultProperty().isNotEqualTo(FIT)));
 		this.spotModeDisabled = new ReadOnlyBooleanWrapper();
 		spotModeDisabled.bind(not(layerSelectionModel.dualLayerSelected()));
+		this.fullResolutionRequired = new ReadOnlyBooleanWrapper();
+		final var singleSelectedLayerProperty = layerSelectionModel.singleSelectedLayerProperty();
+		final Runnable bindFullResolutionRequired = () ->
+		{
+			fullResolutionRequired.unbind();
+			singleSelectedLayerProperty.get().ifPresentOrElse(
+				imageLayer -> fullResolutionRequired.bind(imageLayer.fullResolutionRequiredProperty()),
+				() -> fullResolutionRequired.set(false));
+		};
+		singleSelectedLayerProperty.addListener(onChange(bindFullResolutionRequired));
+		bindFullResolutionRequired.run();
 	}
 
 	/// Returns the main component to be included in surrounding environment.
@@ -224,6 +236,17 @@ public class MultiImageView implements AutoCloseable
 		}
 	}
 
+	/// Returns a property indicating, whether the zoom factor of the single
+	/// selected layer requires the image in full resolution, rather than in a
+	/// reduced resolution fitting into the viewport.
+	///
+	/// @return a property indicating, whether full resolution is required
+	///
+	public ReadOnlyBooleanProperty fullResolutionRequiredProperty()
+	{
+		return fullResolutionRequired.getReadOnlyProperty();
+	}
+
 	public BooleanProperty scrollBarsEnabledProperty()
 	{
 		return scrollBarsEnabled;
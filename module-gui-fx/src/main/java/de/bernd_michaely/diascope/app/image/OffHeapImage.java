@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2026 Bernd Michaely (info@bernd-michaely.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.bernd_michaely.diascope.app.image;
+
+import java.lang.System.Logger;
+import java.lang.foreign.Arena;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import javafx.animation.AnimationTimer;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelBuffer;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import static java.lang.System.Logger.Level.*;
+
+/// An image with its pixels stored off heap in premultiplied BGRA format.
+///
+/// The pixels are held in native memory and are exposed as a `WritableImage`
+/// backed by a `PixelBuffer`, so rendering needs no further copy. The memory
+/// is reference counted: every holder of an image, e.g. the image cache or an
+/// image layer displaying it, retains a reference and releases it when done.
+/// The memory is freed when the last reference is released. For images not
+/// created by this class, the static methods `retain` and `release` are no-ops.
+///
+/// @author Bernd Michaely (info@bernd-michaely.de)
+///
+public final class OffHeapImage
+{
+	private static final Logger logger = System.getLogger(OffHeapImage.class.getName());
+	private static final Map<Image, OffHeapImage> registry = new IdentityHashMap<>();
+	private static @MonotonicNonNull ReleaseTimer releaseTimer;
+	private final Arena arena;
+	private final WritableImage image;
+	private int references = 1;
+
+	private OffHeapImage(Arena arena, WritableImage image)
+	{
+		this.arena = arena;
+		this.image = image;
+	}
+
+	/// Copies the pixels of the given image to native memory. The returned
+	/// image has one reference held by the caller.
+	///
+	/// @param image the given image
+	/// @return the off heap image, or the given image, if it has no pixels
+	///
+	public static Image copyOf(Image image)
+	{
+		final var pixelReader = image.getPixelReader();
+		final int width = (int) image.getWidth();
+		final int height = (int) image.getHeight();
+		if (pixelReader == null || width <= 0 || height <= 0)
+		{
+			return image;
+		}
+		final var arena = Arena.ofShared();
+		try
+		{
+			final ByteBuffer buffer = arena.allocate(4L * width * height).asByteBuffer();
+			final var pixelFormat = PixelFormat.getByteBgraPreInstance();
+			pixelReader.getPixels(0, 0, width, height, pixelFormat, buffer, 4 * width);
+			final var offHeapImage = new OffHeapImage(arena,
+				new WritableImage(new PixelBuffer<>(width, height, buffer, pixelFormat)));
+			synchronized (OffHeapImage.class)
+			{
+				registry.put(offHeapImage.image, offHeapImage);
+			}
+			return offHeapImage.image;
+		}
+		catch (RuntimeException | OutOfMemoryError ex)
+		{
+			arena.close();
+			logger.log(WARNING, () -> "Can't store image off heap: " + ex);
+			return image;
+		}
+	}
+
+	/// Retains a reference to the given image.
+	///
+	/// @param image the given image
+	///
+	public static synchronized void retain(@Nullable Image image)
+	{
+		final var offHeapImage = image != null ? registry.get(image) : null;
+		if (offHeapImage != null)
+		{
+			offHeapImage.references++;
+		}
+	}
+
+	/// Releases a reference to the given image and frees the memory of an off
+	/// heap image, if it was the last reference.
+	///
+	/// @param image the given image
+	///
+	public static synchronized void release(@Nullable Image image)
+	{
+		final var offHeapImage = image != null ? registry.get(image) : null;
+		if (offHeapImage != null && --offHeapImage.references <= 0)
+		{
+			registry.remove(offHeapImage.image);
+			offHeapImage.arena.close();
+			logger.log(TRACE, () -> "Freed off heap image of %.0f×%.0f pixels"
+				.formatted(offHeapImage.image.getWidth(), offHeapImage.image.getHeight()));
+		}
+	}
+
+	/// Releases a reference to the given image two pulses later, when the
+	/// render thread is done with it. To be called on the FX application thread
+	/// for an image just removed from the scene graph.
+	///
+	/// @param image the given image
+	///
+	public static void releaseDeferred(@Nullable Image image)
+	{
+		if (image != null)
+		{
+			if (releaseTimer == null)
+			{
+				releaseTimer = new ReleaseTimer();
+			}
+			releaseTimer.add(image);
+		}
+	}
+
+	/// Timer to release images after two pulses.
+	private static final class ReleaseTimer extends AnimationTimer
+	{
+		private List<Image> imagesPending = new ArrayList<>();
+		private List<Image> imagesDue = new ArrayList<>();
+		private boolean running;
+
+		private void add(Image image)
+		{
+			imagesPending.add(image);
+			if (!running)
+			{
+				running = true;
+				start();
+			}
+		}
+
+		@Override
+		public void handle(long now)
+		{
+			imagesDue.forEach(OffHeapImage::release);
+			imagesDue.clear();
+			final var images = imagesDue;
+			imagesDue = imagesPending;
+			imagesPending = images;
+			if (imagesDue.isEmpty())
+			{
+				running = false;
+				stop();
+			}
+		}
+	}
+
+	/// Returns the number of off heap images currently allocated.
+	///
+	/// @return the number of off heap images currently allocated
+	///
+	public static synchronized int getCount()
+	{
+		return registry.size();
+	}
+}
@@ -129,14 +129,14 @@ final class SplitDivider extends AbstractDivider implements AutoCloseable
 		return border.getReadOnlyProperty().get();
 	}
 
-	Double getBorderIntersectionX()
+	double getBorderIntersectionX()
 	{
-		return borderIntersectionX.getValue();
+		return borderIntersectionX.get();
 	}
 
-	Double getBorderIntersectionY()
+	double getBorderIntersectionY()
 	{
-		return borderIntersectionY.getValue();
+		return borderIntersectionY.get();
 	}
 
 	/// {@inheritDoc}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2026 Bernd Michaely (info@bernd-michaely.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.bernd_michaely.diascope.app.image;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/// Decoder of regions of an image file in reduced resolution, without decoding
+/// the whole image. This class is not thread safe.
+///
+/// @author Bernd Michaely (info@bernd-michaely.de)
+///
+final class TileDecoder implements AutoCloseable
+{
+	private final ImageInputStream imageInputStream;
+	private final ImageReader imageReader;
+
+	private TileDecoder(ImageInputStream imageInputStream, ImageReader imageReader)
+	{
+		this.imageInputStream = imageInputStream;
+		this.imageReader = imageReader;
+	}
+
+	/// Opens the given image file for decoding.
+	///
+	/// @param path the path of the image file
+	/// @return a new decoder
+	/// @throws IOException if the file can not be opened or the image format
+	///                     is not supported
+	///
+	static TileDecoder open(Path path) throws IOException
+	{
+		final var imageInputStream = ImageIO.createImageInputStream(path.toFile());
+		if (imageInputStream == null)
+		{
+			throw new IOException("Can't open image file »%s«".formatted(path));
+		}
+		final var imageReaders = ImageIO.getImageReaders(imageInputStream);
+		if (!imageReaders.hasNext())
+		{
+			imageInputStream.close();
+			throw new IOException("Unsupported image format »%s«".formatted(path));
+		}
+		final var imageReader = imageReaders.next();
+		imageReader.setInput(imageInputStream, true, true);
+		return new TileDecoder(imageInputStream, imageReader);
+	}
+
+	/// Decodes a region of the image.
+	///
+	/// @param region      the region in full resolution pixel coordinates
+	/// @param subsampling the subsampling factor, 1 for full resolution
+	/// @return the decoded region
+	/// @throws IOException on read errors
+	///
+	Image decode(Rectangle2D region, int subsampling) throws IOException
+	{
+		final var readParam = imageReader.getDefaultReadParam();
+		readParam.setSourceRegion(new java.awt.Rectangle(
+			(int) region.getMinX(), (int) region.getMinY(),
+			(int) region.getWidth(), (int) region.getHeight()));
+		readParam.setSourceSubsampling(subsampling, subsampling, 0, 0);
+		return toImage(imageReader.read(0, readParam));
+	}
+
+	private static Image toImage(BufferedImage bufferedImage)
+	{
+		final int width = bufferedImage.getWidth();
+		final int height = bufferedImage.getHeight();
+		final int[] pixels = bufferedImage.getRGB(0, 0, width, height, null, 0, width);
+		final var image = new WritableImage(width, height);
+		image.getPixelWriter().setPixels(0, 0, width, height,
+			PixelFormat.getIntArgbInstance(), pixels, 0, width);
+		return image;
+	}
+
+	/// Aborts a running decoding, if any. May be called from any thread.
+	///
+	void abort()
+	{
+		imageReader.abort();
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		try (imageInputStream)
+		{
+			imageReader.dispose();
+		}
+	}
+}
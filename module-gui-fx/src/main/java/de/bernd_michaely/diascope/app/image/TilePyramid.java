@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2026 Bernd Michaely (info@bernd-michaely.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.bernd_michaely.diascope.app.image;
+
+import java.util.ArrayList;
+import java.util.List;
+import javafx.geometry.Rectangle2D;
+
+/// Geometry of a tile pyramid of an image.
+///
+/// Level 0 is the full resolution, each further level halves the resolution.
+/// Tiles are square with a side length of `tileSize` pixels of their level,
+/// so a tile of level `n` covers `tileSize · 2ⁿ` pixels of the full resolution
+/// image. All regions are given in full resolution pixel coordinates.
+///
+/// @author Bernd Michaely (info@bernd-michaely.de)
+///
+final class TilePyramid
+{
+	/// The default tile size in pixels.
+	static final int DEFAULT_TILE_SIZE = 512;
+	private final long width, height;
+	private final int tileSize;
+	private final int maxLevel;
+
+	/// A tile of the pyramid.
+	///
+	/// @param level  the pyramid level
+	/// @param column the tile column
+	/// @param row    the tile row
+	///
+	record Tile(int level, int column, int row)
+	{
+	}
+
+	/// Creates a new instance.
+	///
+	/// @param width    the full resolution image width
+	/// @param height   the full resolution image height
+	/// @param tileSize the tile size in pixels
+	/// @throws IllegalArgumentException if any argument is not positive
+	///
+	TilePyramid(long width, long height, int tileSize)
+	{
+		if (width <= 0 || height <= 0 || tileSize <= 0)
+		{
+			throw new IllegalArgumentException(
+				"Invalid tile pyramid size: %d×%d / %d".formatted(width, height, tileSize));
+		}
+		this.width = width;
+		this.height = height;
+		this.tileSize = tileSize;
+		int level = 0;
+		// compare the rounded up size of the level to the tile size:
+		while (((width - 1) >> level) >= tileSize || ((height - 1) >> level) >= tileSize)
+		{
+			level++;
+		}
+		this.maxLevel = level;
+	}
+
+	/// Returns the highest level, which is the first level fitting into a
+	/// single tile.
+	///
+	/// @return the highest level
+	///
+	int getMaxLevel()
+	{
+		return maxLevel;
+	}
+
+	/// Returns the level of lowest resolution, which still provides at least
+	/// one pixel per screen pixel at the given zoom factor.
+	///
+	/// @param zoomFactor the zoom factor
+	/// @return the matching level
+	///
+	int getLevel(double zoomFactor)
+	{
+		if (!(zoomFactor > 0.0))
+		{
+			return maxLevel;
+		}
+		else if (zoomFactor >= 1.0)
+		{
+			return 0;
+		}
+		else
+		{
+			// floor(log₂(1 / zoomFactor)):
+			return Math.min(Math.getExponent(1.0 / zoomFactor), maxLevel);
+		}
+	}
+
+	/// Returns the subsampling factor of the given level.
+	///
+	/// @param level the given level
+	/// @return the subsampling factor
+	///
+	static int getSubsampling(int level)
+	{
+		return 1 << level;
+	}
+
+	private long getTileExtent(int level)
+	{
+		return ((long) tileSize) << level;
+	}
+
+	/// Returns the region of the full resolution image covered by the given
+	/// tile. Tiles at the right and bottom border may be smaller.
+	///
+	/// @param tile the given tile
+	/// @return the region covered by the tile
+	///
+	Rectangle2D getRegion(Tile tile)
+	{
+		final long extent = getTileExtent(tile.level());
+		final long x = tile.column() * extent;
+		final long y = tile.row() * extent;
+		return new Rectangle2D(x, y, Math.min(extent, width - x), Math.min(extent, height - y));
+	}
+
+	/// Returns the tiles of the given level intersecting the given region.
+	///
+	/// @param level  the given level
+	/// @param region the given region, e.g. the visible part of the image
+	/// @return the tiles ordered by rows
+	///
+	List<Tile> getTiles(int level, Rectangle2D region)
+	{
+		final double minX = Math.max(region.getMinX(), 0.0);
+		final double minY = Math.max(region.getMinY(), 0.0);
+		final double maxX = Math.min(region.getMaxX(), width);
+		final double maxY = Math.min(region.getMaxY(), height);
+		if (level < 0 || level > maxLevel || minX >= maxX || minY >= maxY)
+		{
+			return List.of();
+		}
+		final long extent = getTileExtent(level);
+		final int columnFirst = (int) (minX / extent);
+		final int columnLast = (int) Math.ceil(maxX / extent) - 1;
+		final int rowFirst = (int) (minY / extent);
+		final int rowLast = (int) Math.ceil(maxY / extent) - 1;
+		final List<Tile> tiles = new ArrayList<>(
+			(columnLast - columnFirst + 1) * (rowLast - rowFirst + 1));
+		for (int row = rowFirst; row <= rowLast; row++)
+		{
+			for (int column = columnFirst; column <= columnLast; column++)
+			{
+				tiles.add(new Tile(level, column, row));
+			}
+		}
+		return tiles;
+	}
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2026 Bernd Michaely (info@bernd-michaely.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.bernd_michaely.diascope.app.stage;
+
+import java.lang.System.Logger;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import static java.lang.System.Logger.Level.*;
+
+/// A cache of the models of recently visited directories, so that going
+/// back to a directory does not need to read it again.
+///
+/// The cache is bounded by the estimated memory used by the models, that is
+/// mainly by their encoded thumbnails, and evicts the least recently used
+/// model first. A model is taken out of the cache, when its directory is
+/// visited again, and put back, when it is left. This class is not thread
+/// safe.
+///
+/// @author Bernd Michaely (info@bernd-michaely.de)
+///
+final class DirectoryModelCache
+{
+	private static final Logger logger = System.getLogger(DirectoryModelCache.class.getName());
+	/// The estimated weight in bytes of an entry without its thumbnail.
+	static final long ENTRY_WEIGHT = 256;
+	/// The minimum default capacity in bytes.
+	static final long MIN_CAPACITY = 16L << 20;
+	private final Map<Key, DirectoryModel> models = new LinkedHashMap<>(16, 0.75f, true);
+	private final Map<Key, Long> weights = new HashMap<>();
+	private final long capacity;
+	private long weight;
+
+	/// The key of a directory model, that is the directory and the options
+	/// it has been scanned with.
+	///
+	/// @param directory       the directory
+	/// @param recursive       true, if subdirectories are included
+	/// @param includingHidden true, if hidden subdirectories are included
+	///
+	record Key(Path directory, boolean recursive, boolean includingHidden)
+	{
+	}
+
+	/// The model of a directory.
+	///
+	/// @param key               the key of the model
+	/// @param entries           the sorted entries with the thumbnails
+	///                          created so far
+	/// @param selectedIndex     the selected index or -1, if none
+	/// @param directoryModified the modification time of the directory, as
+	///                          read before its entries, or null, if unknown
+	/// @param complete          true, iff the directory has been scanned
+	///                          completely and all changes are applied
+	///
+	record DirectoryModel(Key key, List<ImageGroupDescriptor> entries, int selectedIndex,
+		@Nullable FileTime directoryModified, boolean complete)
+	{
+	}
+
+	/// Creates a new instance.
+	///
+	/// @param capacity the capacity in bytes
+	///
+	DirectoryModelCache(long capacity)
+	{
+		this.capacity = Math.max(capacity, 0);
+	}
+
+	/// Returns the default capacity, a sixteenth of the maximum heap size, but
+	/// at least [#MIN_CAPACITY].
+	///
+	/// @return the default capacity in bytes
+	///
+	static long getDefaultCapacity()
+	{
+		return Math.max(Runtime.getRuntime().maxMemory() / 16, MIN_CAPACITY);
+	}
+
+	/// Returns the estimated weight of the given model, that is the size of
+	/// the encoded thumbnails plus a fixed amount per entry.
+	///
+	/// @param model the given model
+	/// @return the weight in bytes
+	///
+	static long getWeight(DirectoryModel model)
+	{
+		long sum = 0;
+		for (var entry : model.entries())
+		{
+			final ByteBuffer data = entry.getThumbnailData();
+			sum += ENTRY_WEIGHT + (data != null ? data.capacity() : 0);
+		}
+		return sum;
+	}
+
+	/// Returns the capacity of this cache in bytes.
+	///
+	/// @return the capacity of this cache in bytes
+	///
+	long getCapacity()
+	{
+		return capacity;
+	}
+
+	/// Returns the summed up weight of all models in bytes.
+	///
+	/// @return the summed up weight of all models in bytes
+	///
+	long getWeight()
+	{
+		return weight;
+	}
+
+	/// Returns the number of cached models.
+	///
+	/// @return the number of cached models
+	///
+	int size()
+	{
+		return models.size();
+	}
+
+	/// Adds a model, replacing an earlier model with the same key, and evicts
+	/// the least recently used models, until the cache fits into its capacity.
+	/// A model exceeding the capacity on its own is not kept.
+	///
+	/// @param model the model to add
+	///
+	void put(DirectoryModel model)
+	{
+		final Key key = model.key();
+		remove(key);
+		final long weightModel = getWeight(model);
+		models.put(key, model);
+		weights.put(key, weightModel);
+		weight += weightModel;
+		final Iterator<Key> iterator = models.keySet().iterator();
+		while (weight > capacity && iterator.hasNext())
+		{
+			final Key keyEvicted = iterator.next();
+			iterator.remove();
+			final Long w = weights.remove(keyEvicted);
+			weight -= w != null ? w : 0L;
+			logger.log(TRACE, () -> "DirectoryModelCache: evicting »%s«".formatted(keyEvicted));
+		}
+	}
+
+	/// Removes and returns the model with the given key, if present.
+	///
+	/// @param key the given key
+	/// @return the removed model or null, if not present
+	///
+	@Nullable
+	DirectoryModel remove(Key key)
+	{
+		final var model = models.remove(key);
+		final Long w = weights.remove(key);
+		weight -= w != null ? w : 0L;
+		return model;
+	}
+
+	/// Removes all models.
+	void clear()
+	{
+		models.clear();
+		weights.clear();
+		weight = 0;
+	}
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2026 Bernd Michaely (info@bernd-michaely.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.bernd_michaely.diascope.app.stage;
+
+import java.io.IOException;
+import java.lang.System.Logger;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import static de.bernd_michaely.diascope.app.stage.ImageDirectoryReaderTask.*;
+import static java.lang.System.Logger.Level.*;
+import static java.nio.file.LinkOption.NOFOLLOW_LINKS;
+
+/// Scanner of a directory, optionally including its subdirectories, for image
+/// files.
+///
+/// Directories are read concurrently on virtual threads. The image files found
+/// are passed on in chunks through a queue, so that they can be consumed while
+/// the scan is still running. Symbolic links to directories are not followed,
+/// so that the scan terminates for cyclic links.
+///
+/// @author Bernd Michaely (info@bernd-michaely.de)
+///
+final class DirectoryTreeScanner implements AutoCloseable
+{
+	private static final Logger logger = System.getLogger(DirectoryTreeScanner.class.getName());
+	/// Maximum number of directories read concurrently.
+	static final int MAX_CONCURRENT_DIRECTORIES = 16;
+	/// Maximum number of image files passed on in a single chunk.
+	static final int CHUNK_SIZE = 256;
+	private static final List<ImageGroupDescriptor> END = List.of();
+	private final boolean recursive;
+	private final boolean includingHidden;
+	private final ExecutorService executorService;
+	private final Semaphore permits = new Semaphore(MAX_CONCURRENT_DIRECTORIES);
+	private final BlockingQueue<List<ImageGroupDescriptor>> queue = new LinkedBlockingQueue<>();
+	private final AtomicInteger numPending = new AtomicInteger();
+	private volatile boolean cancelled;
+	private boolean finished;
+
+	/// Starts scanning the given directory.
+	///
+	/// @param directory       the given directory
+	/// @param recursive       true to include subdirectories
+	/// @param includingHidden true to include hidden subdirectories
+	///
+	DirectoryTreeScanner(Path directory, boolean recursive, boolean includingHidden)
+	{
+		this.recursive = recursive;
+		this.includingHidden = includingHidden;
+		// virtual threads are not pooled, the concurrency is bounded by permits:
+		this.executorService = Executors.newVirtualThreadPerTaskExecutor();
+		submit(directory);
+	}
+
+	private void submit(Path directory)
+	{
+		numPending.incrementAndGet();
+		try
+		{
+			executorService.execute(() -> scan(directory));
+		}
+		catch (RejectedExecutionException ex)
+		{
+			onScanned();
+		}
+	}
+
+	private void onScanned()
+	{
+		if (numPending.decrementAndGet() == 0)
+		{
+			queue.add(END);
+		}
+	}
+
+	private void scan(Path directory)
+	{
+		try
+		{
+			permits.acquire();
+			try
+			{
+				scanDirectory(directory);
+			}
+			finally
+			{
+				permits.release();
+			}
+		}
+		catch (InterruptedException ex)
+		{
+			logger.log(TRACE, () -> "Scan of »%s« interrupted".formatted(directory));
+		}
+		finally
+		{
+			onScanned();
+		}
+	}
+
+	private void scanDirectory(Path directory)
+	{
+		List<ImageGroupDescriptor> chunk = new ArrayList<>();
+		try (final DirectoryStream<Path> paths = Files.newDirectoryStream(directory))
+		{
+			for (var iterator = paths.iterator(); !cancelled && iterator.hasNext();)
+			{
+				final Path path = iterator.next();
+				if (hasImageFileNameExtension(path))
+				{
+					final var attributes = readImageFileAttributes(path);
+					if (attributes != null)
+					{
+						chunk.add(new ImageGroupDescriptor(path, attributes));
+						if (chunk.size() >= CHUNK_SIZE)
+						{
+							queue.add(chunk);
+							chunk = new ArrayList<>();
+						}
+					}
+				}
+				else if (recursive && isSubdirectoryToScan(path))
+				{
+					submit(path);
+				}
+			}
+		}
+		catch (IOException | DirectoryIteratorException ex)
+		{
+			logger.log(WARNING, "Can't read directory »%s«: %s".formatted(directory, ex));
+		}
+		if (!chunk.isEmpty())
+		{
+			queue.add(chunk);
+		}
+	}
+
+	private boolean isSubdirectoryToScan(Path path)
+	{
+		try
+		{
+			return Files.isDirectory(path, NOFOLLOW_LINKS) && (includingHidden || !Files.isHidden(path));
+		}
+		catch (IOException ex)
+		{
+			return false;
+		}
+	}
+
+	/// Returns the next chunk of image files found, waiting for at most the
+	/// given time. An empty chunk is returned after the scan is finished.
+	///
+	/// @param timeout the maximum time to wait
+	/// @param unit    the time unit of the timeout
+	/// @return the next chunk, or null, if the timeout elapsed
+	/// @throws InterruptedException if interrupted while waiting
+	///
+	@Nullable
+	List<ImageGroupDescriptor> poll(long timeout, TimeUnit unit) throws InterruptedException
+	{
+		if (finished)
+		{
+			return END;
+		}
+		final var chunk = queue.poll(timeout, unit);
+		if (chunk == END)
+		{
+			finished = true;
+		}
+		return chunk;
+	}
+
+	/// Returns true, iff all image files found have been returned by
+	/// [#poll(long, TimeUnit)].
+	///
+	/// @return true, iff the scan is finished
+	///
+	boolean isFinished()
+	{
+		return finished;
+	}
+
+	/// Cancels the scan.
+	@Override
+	public void close()
+	{
+		cancelled = true;
+		executorService.shutdownNow();
+	}
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright (C) 2026 Bernd Michaely (info@bernd-michaely.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.bernd_michaely.diascope.app.stage;
+
+import de.bernd_michaely.diascope.app.util.concurrent.WorkerThreadFactory;
+import java.io.IOException;
+import java.lang.System.Logger;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import static java.lang.System.Logger.Level.*;
+import static java.nio.file.StandardWatchEventKinds.*;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/// Watcher of a single directory for created, deleted and modified entries.
+///
+/// Events are collected until no further event arrives for a quiet period,
+/// so that e.g. a file being copied results in a single notification. While
+/// events keep arriving, e.g. during the copy of a memory card, the events
+/// collected are passed on after a maximum latency at the latest. The
+/// changed paths are passed on without their event kinds, the receiver is
+/// expected to check the current state of the paths. Notifications are
+/// delivered on the watcher thread.
+///
+/// @author Bernd Michaely (info@bernd-michaely.de)
+///
+final class DirectoryWatcher implements AutoCloseable
+{
+	private static final Logger logger = System.getLogger(DirectoryWatcher.class.getName());
+	/// The time in milliseconds without events before changes are passed on.
+	static final long QUIET_PERIOD_MILLIS = 250;
+	/// The maximum time in milliseconds to collect events before changes are
+	/// passed on.
+	static final long MAX_LATENCY_MILLIS = 1000;
+	private final BiConsumer<Path, Set<Path>> onChange;
+	private final Consumer<Path> onOverflow;
+	private @Nullable WatchService watchService;
+	private volatile @Nullable Watched watched;
+	private volatile boolean closed;
+
+	private record Watched(WatchKey watchKey, Path directory)
+	{
+	}
+
+	/// Creates a new instance.
+	///
+	/// @param onChange   receives the watched directory and the paths of its
+	///                   changed entries
+	/// @param onOverflow receives the watched directory, if events have been
+	///                   lost, so that the directory must be read again
+	///
+	DirectoryWatcher(BiConsumer<Path, Set<Path>> onChange, Consumer<Path> onOverflow)
+	{
+		this.onChange = onChange;
+		this.onOverflow = onOverflow;
+	}
+
+	/// Starts watching the given directory instead of the directory watched
+	/// so far.
+	///
+	/// @param directory the directory to watch, or null to stop watching
+	///
+	synchronized void watch(@Nullable Path directory)
+	{
+		final var watchedOld = watched;
+		if (watchedOld != null)
+		{
+			watchedOld.watchKey().cancel();
+			watched = null;
+		}
+		if (closed || directory == null || directory.getFileSystem() != FileSystems.getDefault())
+		{
+			return;
+		}
+		try
+		{
+			if (watchService == null)
+			{
+				watchService = FileSystems.getDefault().newWatchService();
+				final var watchServiceStarted = watchService;
+				WorkerThreadFactory.createInstance(getClass().getName())
+					.newThread(() -> run(watchServiceStarted)).start();
+			}
+			watched = new Watched(
+				directory.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), directory);
+		}
+		catch (IOException | UnsupportedOperationException ex)
+		{
+			logger.log(WARNING, "Can't watch directory »%s«: %s".formatted(directory, ex));
+		}
+	}
+
+	private void run(WatchService service)
+	{
+		try
+		{
+			while (!closed)
+			{
+				final Set<Path> paths = new LinkedHashSet<>();
+				boolean overflow = false;
+				@Nullable Watched target = null;
+				@Nullable WatchKey watchKey = service.take();
+				final long deadline = System.nanoTime() + MILLISECONDS.toNanos(MAX_LATENCY_MILLIS);
+				while (watchKey != null)
+				{
+					final var current = watched;
+					// events of a directory not watched anymore are dropped:
+					final var events = watchKey.pollEvents();
+					if (current != null && current.watchKey() == watchKey)
+					{
+						if (target != current)
+						{
+							// the watched directory has changed, drop earlier events:
+							paths.clear();
+							overflow = false;
+							target = current;
+						}
+						for (var event : events)
+						{
+							if (event.kind() == OVERFLOW)
+							{
+								overflow = true;
+							}
+							else if (event.context() instanceof Path name)
+							{
+								paths.add(current.directory().resolve(name));
+							}
+						}
+					}
+					watchKey.reset();
+					final long remaining = deadline - System.nanoTime();
+					watchKey = remaining > 0 ? service.poll(
+						Math.min(MILLISECONDS.toNanos(QUIET_PERIOD_MILLIS), remaining), NANOSECONDS) : null;
+				}
+				if (target != null && target == watched)
+				{
+					// a failing receiver must not stop the watcher thread:
+					try
+					{
+						if (overflow)
+						{
+							onOverflow.accept(target.directory());
+						}
+						else if (!paths.isEmpty())
+						{
+							onChange.accept(target.directory(), paths);
+						}
+					}
+					catch (RuntimeException ex)
+					{
+						logger.log(WARNING, "Can't handle changes of directory »%s«".formatted(target.directory()), ex);
+					}
+				}
+			}
+		}
+		catch (InterruptedException | ClosedWatchServiceException ex)
+		{
+			logger.log(TRACE, () -> "DirectoryWatcher finished: " + ex);
+		}
+	}
+
+	@Override
+	public synchronized void close()
+	{
+		closed = true;
+		watched = null;
+		if (watchService != null)
+		{
+			try
+			{
+				watchService.close();
+			}
+			catch (IOException ex)
+			{
+				logger.log(WARNING, ex);
+			}
+		}
+	}
+}
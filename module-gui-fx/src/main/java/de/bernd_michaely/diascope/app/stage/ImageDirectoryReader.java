@@ -16,61 +16,117 @@
  */
 package de.bernd_michaely.diascope.app.stage;
 
+import de.bernd_michaely.diascope.app.stage.DirectoryModelCache.DirectoryModel;
+import de.bernd_michaely.diascope.app.stage.DirectoryModelCache.Key;
+import de.bernd_michaely.diascope.app.util.collections.SortedListMerger;
 import de.bernd_michaely.diascope.app.util.concurrent.ConciseTaskScheduler;
 import de.bernd_michaely.diascope.app.util.concurrent.WorkerThreadFactory;
 import java.lang.System.Logger;
 import java.nio.file.Path;
-import java.util.Deque;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.function.Consumer;
 import javafx.application.Platform;
 import javafx.collections.ObservableList;
+import javafx.scene.control.ListView;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import static de.bernd_michaely.diascope.app.stage.ImageDirectoryReaderTask.*;
 import static de.bernd_michaely.diascope.app.util.concurrent.WorkerThreadFactory.TIMEOUT_SECONDS;
+import static java.lang.System.Logger.Level.*;
 import static java.util.concurrent.TimeUnit.*;
 
 /**
- * Concurrency class for loading image directories.
+ * Concurrency class for loading image directories. After a directory has been
+ * read, it is watched for changes, which are applied to the list items
+ * incrementally: entries of new image files are inserted, entries of deleted
+ * files are removed and the thumbnails of new and modified files are created.
+ * Unchanged entries are not touched.
+ * <p>
+ * The model of a directory left is kept in a {@link DirectoryModelCache}
+ * together with the selected index, so that going back to the directory
+ * restores it instantly, see {@link ImageDirectoryReaderTask}.
+ * </p>
  *
  * @author Bernd Michaely (info@bernd-michaely.de)
  */
 class ImageDirectoryReader implements Consumer<Path>, AutoCloseable
 {
 	private static final Logger logger = System.getLogger(ImageDirectoryReader.class.getName());
+	private final ListView<ImageGroupDescriptor> listView;
 	private final ObservableList<ImageGroupDescriptor> listItems;
 	private final ProgressControl progressControl;
+	private final ThumbnailImages thumbnailImages;
 	private final ConciseTaskScheduler platformScheduler;
 	private final ExecutorService executorService;
 	private volatile @Nullable ImageDirectoryReaderTask taskCurrent;
 	private volatile boolean stateNext_Active;
 	private volatile @Nullable Path stateNext_Directory;
+	private List<ImageGroupDescriptor> thumbnailFocus = List.of();
+	private @Nullable ImageGroupDescriptor thumbnailFocusCenter;
+	private final DirectoryWatcher directoryWatcher;
+	private final ExecutorService changeExecutor;
+	private @Nullable Path directoryCurrent;
+	private final Set<Path> changesPending = new LinkedHashSet<>();
+	private boolean recursive, includingHidden;
+	private final DirectoryModelCache modelCache =
+		new DirectoryModelCache(DirectoryModelCache.getDefaultCapacity());
+	private @Nullable Key keyCurrent;
+	private @Nullable FileTime directoryModified;
+	private boolean complete;
 
-	ImageDirectoryReader(ObservableList<ImageGroupDescriptor> listItems,
-		ProgressControl progressControl)
+	ImageDirectoryReader(ListView<ImageGroupDescriptor> listView,
+		ProgressControl progressControl, ThumbnailImages thumbnailImages)
 	{
-		this.listItems = listItems;
+		this.listView = listView;
+		this.listItems = listView.getItems();
 		this.progressControl = progressControl;
-		final Consumer<Deque<Runnable>> consumer = tasks -> Platform.runLater(() ->
-		{
-			for (Runnable r = tasks.pollFirst(); r != null; r = tasks.pollFirst())
-			{
-				r.run();
-			}
-		});
-		this.platformScheduler = new ConciseTaskScheduler(consumer);
+		this.thumbnailImages = thumbnailImages;
+		// deliver aligned to the pulse, without stalling rendering on large batches:
+		this.platformScheduler = ConciseTaskScheduler.createPulseAligned(
+			ConciseTaskScheduler.DEFAULT_FRAME_BUDGET_NANOS);
 		this.executorService = Executors.newSingleThreadExecutor(
 			WorkerThreadFactory.createInstance(getClass().getName()));
+		this.changeExecutor = Executors.newSingleThreadExecutor(
+			WorkerThreadFactory.createInstance(getClass().getName() + "-changes"));
+		this.directoryWatcher = new DirectoryWatcher(
+			(directory, paths) -> onDirectoryChange(directory, paths),
+			directory -> onDirectoryOverflow(directory));
+	}
+
+	private @Nullable
+	Key createKey(@Nullable Path directory)
+	{
+		return directory != null ? new Key(directory, recursive, includingHidden) : null;
 	}
 
 	private void createNewTask(@Nullable Path directory)
 	{
 		synchronized (this)
 		{
-			taskCurrent = new ImageDirectoryReaderTask(listItems,
-				progressControl, platformScheduler, directory, this::onCurrentTaskFinish);
-			executorService.submit(taskCurrent);
+			final @Nullable Key key = createKey(directory);
+			// the model is taken out of the cache while it is in use:
+			final @Nullable DirectoryModel model = key != null ? modelCache.remove(key) : null;
+			final var task = new ImageDirectoryReaderTask(listItems, progressControl, thumbnailImages,
+				platformScheduler, directory, recursive, includingHidden, this::onCurrentTaskFinish,
+				this::onEntriesComplete, model, this::restoreSelection);
+			task.setThumbnailFocus(thumbnailFocus, thumbnailFocusCenter);
+			taskCurrent = task;
+			directoryCurrent = directory;
+			keyCurrent = key;
+			directoryModified = null;
+			complete = false;
+			changesPending.clear();
+			// watch before reading, so that no change is missed:
+			directoryWatcher.watch(directory);
+			executorService.submit(task);
 		}
 	}
 
@@ -79,6 +135,11 @@ class ImageDirectoryReader implements Consumer<Path>, AutoCloseable
 	{
 		synchronized (this)
 		{
+			final @Nullable Key key = createKey(directory);
+			if (keyCurrent != null && !keyCurrent.equals(key))
+			{
+				saveModel(keyCurrent);
+			}
 			if (taskCurrent == null)
 			{
 				createNewTask(directory);
@@ -98,10 +159,94 @@ class ImageDirectoryReader implements Consumer<Path>, AutoCloseable
 		}
 	}
 
+	/**
+	 * Puts the model of the directory left into the model cache. The model is
+	 * marked as incomplete, if the directory has not been read completely or
+	 * changes are pending. To be called on the JavaFX application thread only,
+	 * otherwise the model is not kept.
+	 */
+	private void saveModel(Key key)
+	{
+		if (Platform.isFxApplicationThread())
+		{
+			final var model = new DirectoryModel(key, List.copyOf(listItems),
+				listView.getSelectionModel().getSelectedIndex(), directoryModified,
+				complete && taskCurrent == null && changesPending.isEmpty());
+			modelCache.put(model);
+			logger.log(TRACE, () -> "Keeping model of »%s«, %d models, %d kB".formatted(
+				key.directory(), modelCache.size(), modelCache.getWeight() >> 10));
+		}
+	}
+
+	/**
+	 * Selects the given index of a restored model. To be called on the JavaFX
+	 * application thread.
+	 *
+	 * @param index the selected index of the model or -1, if none
+	 */
+	private void restoreSelection(int index)
+	{
+		if (index > 0 && index < listItems.size())
+		{
+			listView.getSelectionModel().clearAndSelect(index);
+			listView.scrollTo(index);
+		}
+		else
+		{
+			progressControl.runOnProgressZero();
+		}
+	}
+
+	/**
+	 * Sets the options of the directory scan. The current directory is read
+	 * again, if the options affect its result.
+	 *
+	 * @param recursive       true to include subdirectories
+	 * @param includingHidden true to include hidden subdirectories
+	 */
+	void setScanOptions(boolean recursive, boolean includingHidden)
+	{
+		synchronized (this)
+		{
+			final boolean changed = recursive != this.recursive ||
+				(recursive && includingHidden != this.includingHidden);
+			this.recursive = recursive;
+			this.includingHidden = includingHidden;
+			if (changed && directoryCurrent != null)
+			{
+				accept(directoryCurrent);
+			}
+		}
+	}
+
+	/**
+	 * Sets the list items in focus to prioritise their thumbnail creation.
+	 *
+	 * @param focus  the items in focus in descending priority
+	 * @param center the item to continue outwards from
+	 */
+	void setThumbnailFocus(List<ImageGroupDescriptor> focus, @Nullable ImageGroupDescriptor center)
+	{
+		synchronized (this)
+		{
+			thumbnailFocus = focus;
+			thumbnailFocusCenter = center;
+			if (taskCurrent != null)
+			{
+				taskCurrent.setThumbnailFocus(focus, center);
+			}
+		}
+	}
+
 	private void onCurrentTaskFinish()
 	{
 		synchronized (this)
 		{
+			if (taskCurrent != null)
+			{
+				directoryModified = taskCurrent.getDirectoryModified();
+				complete = taskCurrent.isComplete();
+			}
 			taskCurrent = null;
 			if (stateNext_Active)
 			{
@@ -114,6 +259,190 @@ class ImageDirectoryReader implements Consumer<Path>, AutoCloseable
 					stateNext_Active = false;
 				}
 			}
+			else if (directoryCurrent != null && !changesPending.isEmpty())
+			{
+				applyChanges(directoryCurrent, changesPending);
+				changesPending.clear();
+			}
+		}
+	}
+
+	/**
+	 * Applies the changes received while the directory has been read, as soon
+	 * as all entries are submitted to the list items.
+	 */
+	private void onEntriesComplete()
+	{
+		synchronized (this)
+		{
+			if (directoryCurrent != null && !changesPending.isEmpty() && isChangeApplicable())
+			{
+				applyChanges(directoryCurrent, changesPending);
+				changesPending.clear();
+			}
+		}
+	}
+
+	/**
+	 * Returns true, iff changes can be applied to the list items. While the
+	 * directory is being read, a changed entry might be published by the task
+	 * too. After all entries have been published, changes are applied while
+	 * the thumbnails are still being created.
+	 */
+	private synchronized boolean isChangeApplicable()
+	{
+		final var task = taskCurrent;
+		return task == null || task.isComplete();
+	}
+
+	/**
+	 * Receives changes of the current directory from the directory watcher.
+	 * Changes are deferred while the directory is being read.
+	 */
+	private void onDirectoryChange(Path directory, Set<Path> paths)
+	{
+		synchronized (this)
+		{
+			if (directory.equals(directoryCurrent))
+			{
+				if (isChangeApplicable())
+				{
+					applyChanges(directory, paths);
+				}
+				else
+				{
+					changesPending.addAll(paths);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads the current directory again, if change events have been lost.
+	 */
+	private void onDirectoryOverflow(Path directory)
+	{
+		synchronized (this)
+		{
+			if (directory.equals(directoryCurrent) && !stateNext_Active)
+			{
+				logger.log(DEBUG, () -> "Lost change events, reading »%s« again".formatted(directory));
+				accept(directory);
+			}
+		}
+	}
+
+	private void applyChanges(Path directory, Collection<Path> paths)
+	{
+		final List<Path> changed = List.copyOf(paths);
+		changeExecutor.submit(() -> updateEntries(directory, changed));
+	}
+
+	/**
+	 * Checks the current state of the changed paths and updates the list items
+	 * accordingly.
+	 */
+	private void updateEntries(Path directory, List<Path> paths)
+	{
+		// read before the entries, so that later modifications are detected:
+		final @Nullable FileTime directoryModifiedNew = readLastModifiedTime(directory);
+		final List<ImageGroupDescriptor> present = new ArrayList<>();
+		final List<Path> absent = new ArrayList<>();
+		for (Path path : paths)
+		{
+			final var attributes = hasImageFileNameExtension(path) ?
+				readImageFileAttributes(path) : null;
+			if (attributes != null)
+			{
+				present.add(new ImageGroupDescriptor(path, attributes));
+			}
+			else
+			{
+				absent.add(path);
+			}
+		}
+		present.sort(comparator);
+		platformScheduler.submit(() -> updateListItems(directory, directoryModifiedNew, present, absent));
+	}
+
+	/**
+	 * Applies the changes to the list items. To be called on the JavaFX
+	 * application thread.
+	 */
+	private void updateListItems(Path directory, @Nullable FileTime directoryModifiedNew,
+		List<ImageGroupDescriptor> present, List<Path> absent)
+	{
+		synchronized (this)
+		{
+			// a directory being read again includes the changes:
+			if (!directory.equals(directoryCurrent) || !isChangeApplicable())
+			{
+				return;
+			}
+			directoryModified = directoryModifiedNew;
+		}
+		for (Path path : absent)
+		{
+			final int index = indexOf(path);
+			if (index >= 0)
+			{
+				listItems.remove(index);
+			}
+		}
+		final List<ImageGroupDescriptor> inserted = new ArrayList<>();
+		final List<ImageGroupDescriptor> modified = new ArrayList<>();
+		for (var item : present)
+		{
+			final int index = indexOf(item.getPath());
+			if (index >= 0)
+			{
+				// skip events not changing the file content, e.g. of metadata:
+				final var itemExisting = listItems.get(index);
+				final var attributes = item.getFileAttributes();
+				if (attributes != null && itemExisting.isModified(attributes))
+				{
+					itemExisting.setFileAttributes(attributes);
+					modified.add(itemExisting);
+				}
+			}
+			else
+			{
+				inserted.add(item);
+			}
+		}
+		SortedListMerger.merge(listItems, inserted, comparator);
+		modified.addAll(inserted);
+		if (!modified.isEmpty())
+		{
+			logger.log(TRACE, () -> "Directory »%s«: %d inserted, %d modified, %d removed".formatted(
+				directory, inserted.size(), modified.size() - inserted.size(), absent.size()));
+			changeExecutor.submit(() -> createThumbnails(directory, modified));
+		}
+	}
+
+	private int indexOf(Path path)
+	{
+		return Collections.binarySearch(listItems, new ImageGroupDescriptor(path), comparator);
+	}
+
+	private void createThumbnails(Path directory, List<ImageGroupDescriptor> items)
+	{
+		final var thumbnailStore = openThumbnailStore(directory);
+		try (thumbnailStore)
+		{
+			for (var item : items)
+			{
+				try
+				{
+					final var result = new ImageGroupDataUpdater(
+						item, System.nanoTime(), thumbnailStore).call();
+					platformScheduler.submit(() -> applyThumbnail(listItems, thumbnailImages, result));
+				}
+				catch (Exception ex)
+				{
+					logger.log(WARNING, "Can't create thumbnail of »%s«: %s".formatted(item.getPath(), ex));
+				}
+			}
 		}
 	}
 
@@ -124,6 +453,12 @@ class ImageDirectoryReader implements Consumer<Path>, AutoCloseable
 		{
 			stateNext_Active = false;
 			stateNext_Directory = null;
+			directoryCurrent = null;
+			keyCurrent = null;
+			changesPending.clear();
+			modelCache.clear();
+			directoryWatcher.close();
+			changeExecutor.shutdownNow();
 			if (taskCurrent != null)
 			{
 				taskCurrent.cancel();
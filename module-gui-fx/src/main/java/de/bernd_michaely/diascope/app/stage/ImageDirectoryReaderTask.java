@@ -16,37 +16,79 @@
  */
 package de.bernd_michaely.diascope.app.stage;
 
-import de.bernd_michaely.diascope.app.ApplicationConfiguration;
+import de.bernd_michaely.diascope.app.stage.DirectoryModelCache.DirectoryModel;
 import de.bernd_michaely.diascope.app.util.concurrent.ConciseTaskScheduler;
+import de.bernd_michaely.diascope.app.util.collections.SortedListMerger;
 import de.bernd_michaely.diascope.app.util.concurrent.WorkerThreadFactory;
+import de.bernd_michaely.diascope.app.util.io.ThumbnailStore;
+import de.bernd_michaely.diascope.app.util.jfr.DirectoryScanEvent;
+import de.bernd_michaely.diascope.app.util.metrics.LoadMetrics;
 import java.io.IOException;
 import java.lang.System.Logger;
-import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Iterator;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
 import java.util.Set;
-import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeoutException;
+import java.util.function.IntConsumer;
 import javafx.collections.ObservableList;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 import static de.bernd_michaely.diascope.app.stage.ProgressControl.*;
 import static de.bernd_michaely.diascope.app.util.concurrent.WorkerThreadFactory.TIMEOUT_SECONDS;
+import static de.bernd_michaely.diascope.app.util.metrics.LoadMetrics.Metric.DIRECTORY_SCAN;
 import static java.lang.System.Logger.Level.*;
 import static java.util.Collections.unmodifiableList;
 import static java.util.concurrent.TimeUnit.*;
 
 /**
- * Task for ImageDirectoryReader.
+ * Task for ImageDirectoryReader. The directory entries are published to the
+ * list items in sorted batches while the directory is being scanned, so that
+ * the first images can be viewed before a large directory is read completely.
+ * Optionally, the subdirectories are included, see {@link DirectoryTreeScanner}.
+ * <p>
+ * Thumbnails are created by a pipeline of two stages: an I/O stage on virtual
+ * threads reads the image files, and a decode stage on one thread per core
+ * decodes them. The stages are joined by a bounded queue, so that slow reads
+ * do not block decode threads and vice versa.
+ * </p>
+ * <p>
+ * Created thumbnails and the progress are passed to the JavaFX application
+ * thread by keyed tasks, see {@link ConciseTaskScheduler#submit(Object, Runnable)}:
+ * all thumbnails created meanwhile are applied by a single task, and only the
+ * latest progress is shown.
+ * </p>
+ * <p>
+ * Given the model of an earlier visit of the directory, the task restores it
+ * without reading the directory, if the model is complete and the directory
+ * has not been modified since. Otherwise the directory is read, but the
+ * thumbnails of unmodified files are taken from the model. In both cases
+ * only the missing thumbnails are created, so that thumbnail creation
+ * interrupted by leaving the directory is resumed.
+ * </p>
  *
  * @author Bernd Michaely (info@bernd-michaely.de)
  */
@@ -55,56 +97,130 @@ class ImageDirectoryReaderTask implements Callable<@Nullable Object>
 	private static final Logger logger = System.getLogger(ImageDirectoryReaderTask.class.getName());
 	private final ObservableList<ImageGroupDescriptor> listItems;
 	private final ProgressControl progressControl;
+	private final ThumbnailImages thumbnailImages;
 	private final ConciseTaskScheduler platformScheduler;
 	private final @Nullable Path directory;
+	private final boolean recursive;
+	private final boolean includingHidden;
 	private final Runnable onCurrentTaskFinish;
+	private final Runnable onEntriesComplete;
+	private final @Nullable DirectoryModel model;
+	private final IntConsumer onRestoreSelection;
+	private final BlockingQueue<Future<ImageGroupDataUpdater.Result>> completionQueue;
 	private final CompletionService<ImageGroupDataUpdater.Result> completionService;
-	private final ExecutorService executorService;
+	private final ExecutorService ioExecutor;
+	private final ExecutorService decodeExecutor;
+	private final Semaphore ioPermits;
+	private final Semaphore decodePermits;
 	private volatile boolean cancelled;
 	private volatile @Nullable Thread thread;
+	private volatile @Nullable FileTime directoryModified;
+	private volatile boolean complete;
+	private int numPublished, numSubmitted, numCompleted;
+	/**
+	 * Number of directory entries to collect before publishing the first
+	 * batch. The batch size is doubled for each following batch.
+	 */
+	static final int BATCH_SIZE_MIN = 64;
+	/**
+	 * Maximum number of directory entries to collect before publishing them.
+	 */
+	static final int BATCH_SIZE_MAX = 4096;
+	/**
+	 * Maximum time in nanoseconds to collect directory entries before
+	 * publishing them.
+	 */
+	static final long BATCH_TIME_NANOS = 100_000_000L;
+	/**
+	 * Maximum number of image files read concurrently by the I/O stage.
+	 */
+	static final int IO_CONCURRENCY = 16;
+	/**
+	 * Capacity of the queue between the I/O stage and the decode stage per
+	 * decode thread. The I/O stage blocks while the queue is full, so that the
+	 * number of image files held in memory is bounded.
+	 */
+	static final int DECODE_QUEUE_CAPACITY_PER_THREAD = 2;
+	static final Comparator<ImageGroupDescriptor> comparator =
+		Comparator.comparing(ImageGroupDescriptor::getPath);
+	private final ThumbnailQueue thumbnailQueue = new ThumbnailQueue(comparator);
+	private final Queue<ImageGroupDataUpdater.Result> thumbnailsCreated =
+		new ConcurrentLinkedQueue<>();
+	private @Nullable ThumbnailStore thumbnailStore;
 
-	static final DirectoryStream.Filter<Path> imageFilter = new DirectoryStream.Filter<Path>()
+	private static final Set<String> imageFileNameExtensions =
+		Set.of("jpg", "jpeg", "png", "bmp", "gif");
+	/**
+	 * Checks directory entries by image file name extension. The file system
+	 * is not accessed, see {@link #readImageFileAttributes(Path)}.
+	 *
+	 * @param path the path of a directory entry
+	 * @return true, iff the path has an image file name extension
+	 */
+	static boolean hasImageFileNameExtension(@Nullable Path path)
 	{
-		private static final Set<String> imageFileNameExtensions =
-			Set.of("jpg", "jpeg", "png", "bmp", "gif");
+		final Path fileName = path != null ? path.getFileName() : null;
+		if (fileName != null)
+		{
+			final String strFileName = fileName.toString().toLowerCase();
+			final String ext = strFileName.substring(strFileName.lastIndexOf(".") + 1);
+			return imageFileNameExtensions.contains(ext);
+		}
+		return false;
+	}
 
-		@Override
-		public boolean accept(Path path) throws IOException
+	/**
+	 * Reads the attributes of an image file by a single file system access.
+	 * The attributes are kept by the ImageGroupDescriptor for later use.
+	 *
+	 * @param path the path of the image file
+	 * @return the file attributes or null, if the path does not denote a
+	 *         regular file
+	 */
+	static @Nullable
+	BasicFileAttributes readImageFileAttributes(Path path)
+	{
+		try
 		{
-			if (path != null)
-			{
-				if (Files.isRegularFile(path))
-				{
-					final Path fileName = path.getFileName();
-					if (fileName != null)
-					{
-						final String strFileName = fileName.toString().toLowerCase();
-						final String ext = strFileName.substring(strFileName.lastIndexOf(".") + 1);
-						return imageFileNameExtensions.contains(ext);
-					}
-				}
-			}
-			return false;
+			final var attributes = Files.readAttributes(path, BasicFileAttributes.class);
+			return attributes.isRegularFile() ? attributes : null;
 		}
-	};
+		catch (IOException ex)
+		{
+			return null;
+		}
+	}
 
 	ImageDirectoryReaderTask(ObservableList<ImageGroupDescriptor> listItems,
-		ProgressControl progressControl, ConciseTaskScheduler platformScheduler,
-		@Nullable Path directory, Runnable onCurrentTaskFinish)
+		ProgressControl progressControl, ThumbnailImages thumbnailImages,
+		ConciseTaskScheduler platformScheduler, @Nullable Path directory,
+		boolean recursive, boolean includingHidden, Runnable onCurrentTaskFinish,
+		Runnable onEntriesComplete, @Nullable DirectoryModel model, IntConsumer onRestoreSelection)
 	{
 		this.listItems = listItems;
 		this.progressControl = progressControl;
+		this.thumbnailImages = thumbnailImages;
 		this.platformScheduler = platformScheduler;
 		this.directory = directory;
+		this.recursive = recursive;
+		this.includingHidden = includingHidden;
 		this.onCurrentTaskFinish = onCurrentTaskFinish;
-		final boolean useMultipleCores = ApplicationConfiguration.getState().experimentalMode();
-		final int poolSizeMin = 1;
-		final int poolSize = useMultipleCores ? Math.max(poolSizeMin,
-			(int) (Runtime.getRuntime().availableProcessors() * 0.75)) : poolSizeMin;
-		logger.log(TRACE, "ThreadPool size: " + poolSize);
-		this.executorService = Executors.newFixedThreadPool(
-			poolSize, WorkerThreadFactory.createInstance(getClass().getName()));
-		this.completionService = new ExecutorCompletionService<>(this.executorService);
+		this.onEntriesComplete = onEntriesComplete;
+		this.model = model;
+		this.onRestoreSelection = onRestoreSelection;
+		// virtual threads are not pooled, the I/O concurrency is bounded by permits:
+		this.ioExecutor = Executors.newVirtualThreadPerTaskExecutor();
+		this.ioPermits = new Semaphore(IO_CONCURRENCY);
+		// leave one core to the JavaFX application thread:
+		final int decodeThreads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+		final int decodeQueueCapacity = DECODE_QUEUE_CAPACITY_PER_THREAD * decodeThreads;
+		logger.log(TRACE, "Decode threads: " + decodeThreads);
+		this.decodeExecutor = new ThreadPoolExecutor(decodeThreads, decodeThreads, 0L, MILLISECONDS,
+			new ArrayBlockingQueue<>(decodeQueueCapacity),
+			WorkerThreadFactory.createInstance(getClass().getName()));
+		this.decodePermits = new Semaphore(decodeThreads + decodeQueueCapacity);
+		this.completionQueue = new LinkedBlockingQueue<>();
+		this.completionService = new ExecutorCompletionService<>(this.decodeExecutor, completionQueue);
 	}
 
 	@Override
@@ -118,11 +234,19 @@ class ImageDirectoryReaderTask implements Callable<@Nullable Object>
 				progressControl.accept(PROGRESS_BEGIN);
 				listItems.clear();
 			});
-			readDirectory();
+			if (model != null && isRestorable(model))
+			{
+				restore(model);
+			}
+			else
+			{
+				readDirectory();
+			}
 		}
 		finally
 		{
-			executorService.shutdown();
+			ioExecutor.shutdown();
+			decodeExecutor.shutdown();
 			platformScheduler.submit(() -> progressControl.accept(PROGRESS_END));
 			if (onCurrentTaskFinish != null)
 			{
@@ -130,36 +254,152 @@ class ImageDirectoryReaderTask implements Callable<@Nullable Object>
 			}
 			try
 			{
-				executorService.awaitTermination(TIMEOUT_SECONDS, SECONDS);
+				ioExecutor.awaitTermination(TIMEOUT_SECONDS, SECONDS);
+				decodeExecutor.awaitTermination(TIMEOUT_SECONDS, SECONDS);
 			}
 			catch (InterruptedException ex)
 			{
 				throw new TimeoutException(ex.toString());
 			}
+			finally
+			{
+				if (thumbnailStore != null)
+				{
+					thumbnailStore.close();
+				}
+			}
 		}
 		return null;
 	}
 
+	/**
+	 * Checks, whether the given model can be restored without reading the
+	 * directory. Models including subdirectories are always read again, because
+	 * the modification time of the directory does not cover its subdirectories.
+	 */
+	private boolean isRestorable(DirectoryModel model)
+	{
+		return model.complete() && !model.key().recursive() &&
+			model.directoryModified() != null &&
+			Objects.equals(model.directoryModified(), readLastModifiedTime(model.key().directory()));
+	}
+
+	/**
+	 * Reads the modification time of the given directory.
+	 *
+	 * @param directory the given directory
+	 * @return the modification time or null, if not available
+	 */
+	static @Nullable
+	FileTime readLastModifiedTime(Path directory)
+	{
+		try
+		{
+			return Files.getLastModifiedTime(directory);
+		}
+		catch (IOException ex)
+		{
+			return null;
+		}
+	}
+
+	/**
+	 * Restores the given model and creates the missing thumbnails.
+	 */
+	private void restore(DirectoryModel model)
+	{
+		thread = Thread.currentThread();
+		directoryModified = model.directoryModified();
+		final List<ImageGroupDescriptor> entries = model.entries();
+		final int selectedIndex = model.selectedIndex();
+		platformScheduler.submit(() ->
+		{
+			listItems.setAll(entries);
+			onRestoreSelection.accept(selectedIndex);
+		});
+		setComplete();
+		numPublished = entries.size();
+		logger.log(TRACE, () -> "Restoring »%s« with %d entries".formatted(
+			model.key().directory(), entries.size()));
+		thumbnailStore = openThumbnailStore(model.key().directory());
+		for (var entry : entries)
+		{
+			if (entry.getThumbnailData() == null)
+			{
+				submitThumbnail(entry);
+			}
+		}
+		if (numSubmitted > 0)
+		{
+			takeThumbnails();
+		}
+	}
+
 	private void readDirectory()
 	{
 		if (directory != null)
 		{
-			try (final DirectoryStream<Path> paths = Files.newDirectoryStream(directory, imageFilter))
+			thread = Thread.currentThread();
+			// read before the entries, so that later modifications are detected:
+			directoryModified = readLastModifiedTime(directory);
+			thumbnailStore = openThumbnailStore(directory);
+			final long timeStart = System.nanoTime();
+			final var event = new DirectoryScanEvent();
+			event.begin();
+			final Map<Path, ImageGroupDescriptor> known = getKnownEntries(model);
+			try (final var scanner = new DirectoryTreeScanner(directory, recursive, includingHidden))
 			{
-				final SortedSet<Path> entries = new TreeSet<>();
-				final Iterator<Path> iterator = paths.iterator();
-				while (!cancelled && iterator.hasNext())
+				List<ImageGroupDescriptor> batch = new ArrayList<>();
+				int batchSize = BATCH_SIZE_MIN;
+				long timeBatch = System.nanoTime();
+				while (!cancelled && !scanner.isFinished())
+				{
+					final long timeout = batch.isEmpty() ? BATCH_TIME_NANOS :
+						Math.max(timeBatch + BATCH_TIME_NANOS - System.nanoTime(), 0);
+					final var chunk = scanner.poll(timeout, NANOSECONDS);
+					if (chunk != null)
+					{
+						batch.addAll(chunk);
+					}
+					if (!batch.isEmpty() &&
+						(batch.size() >= batchSize || System.nanoTime() - timeBatch >= BATCH_TIME_NANOS))
+					{
+						publish(batch, known);
+						batch = new ArrayList<>();
+						batchSize = Math.min(2 * batchSize, BATCH_SIZE_MAX);
+						timeBatch = System.nanoTime();
+						pollThumbnails();
+					}
+				}
+				if (!cancelled && !batch.isEmpty())
+				{
+					publish(batch, known);
+				}
+				event.end();
+				if (event.shouldCommit())
 				{
-					entries.add(iterator.next());
+					event.directory = directory.toString();
+					event.imageFiles = numPublished;
+					event.cancelled = cancelled;
+					event.commit();
 				}
 				if (!cancelled)
 				{
-					readMetadata(unmodifiableList(entries.stream().map(ImageGroupDescriptor::new).toList()));
+					setComplete();
+					LoadMetrics.recordSince(DIRECTORY_SCAN, timeStart);
+					if (numSubmitted > 0)
+					{
+						takeThumbnails();
+					}
+					else if (numPublished == 0)
+					{
+						platformScheduler.submit(progressControl::runOnProgressZero);
+					}
 				}
 			}
-			catch (IOException ex)
+			catch (InterruptedException ex)
 			{
-				logger.log(WARNING, ex);
+				logger.log(TRACE, () -> "Reading »%s« interrupted".formatted(directory));
 			}
 		}
 		else
@@ -168,52 +408,319 @@ class ImageDirectoryReaderTask implements Callable<@Nullable Object>
 		}
 	}
 
-	private void readMetadata(List<ImageGroupDescriptor> entries)
+	static @Nullable
+	ThumbnailStore openThumbnailStore(Path directory)
 	{
-		final int n = entries.size();
-		platformScheduler.submit(() ->
+		try
 		{
-			listItems.addAll(entries);
-			progressControl.runOnProgressZero();
-			progressControl.accept(0.0);
-		});
-		for (int i = 0; i < n; i++)
+			return ThumbnailStore.forDirectory(directory);
+		}
+		catch (IOException | RuntimeException ex)
 		{
-			completionService.submit(new ImageGroupDataUpdater(entries.get(i).getPath(), i));
+			logger.log(WARNING, "Can't open thumbnail store for »%s«: %s".formatted(directory, ex));
+			return null;
 		}
-		thread = Thread.currentThread();
-		final double size = n;
-		for (int i = 1; !cancelled && i <= n; i++)
+	}
+
+	/**
+	 * Returns the entries of the given model with a thumbnail by path, to take
+	 * over the thumbnails of unmodified files.
+	 */
+	private static Map<Path, ImageGroupDescriptor> getKnownEntries(@Nullable DirectoryModel model)
+	{
+		final Map<Path, ImageGroupDescriptor> known = new HashMap<>();
+		if (model != null)
+		{
+			for (var entry : model.entries())
+			{
+				if (entry.getThumbnailData() != null)
+				{
+					known.put(entry.getPath(), entry);
+				}
+			}
+		}
+		return known;
+	}
+
+	/**
+	 * Sorts the given batch of directory entries, merges it into the list items
+	 * and submits the thumbnail creation for its entries, unless the thumbnail
+	 * of an unmodified file is known. After publishing the first batch, its
+	 * first image is selected.
+	 */
+	private void publish(List<ImageGroupDescriptor> batch, Map<Path, ImageGroupDescriptor> known)
+	{
+		batch.sort(comparator);
+		final List<ImageGroupDescriptor> entries = unmodifiableList(batch);
+		final boolean first = numPublished == 0;
+		// take over the known thumbnails before the entries are shown:
+		final List<ImageGroupDescriptor> missing = new ArrayList<>();
+		for (var entry : entries)
+		{
+			final var entryKnown = known.get(entry.getPath());
+			final var attributes = entry.getFileAttributes();
+			if (entryKnown != null && attributes != null && !entryKnown.isModified(attributes))
+			{
+				entry.setThumbnailData(entryKnown.getThumbnailData());
+			}
+			else
+			{
+				missing.add(entry);
+			}
+		}
+		platformScheduler.submit(() ->
+		{
+			SortedListMerger.merge(listItems, entries, comparator);
+			if (first)
+			{
+				progressControl.runOnProgressZero();
+			}
+		});
+		missing.forEach(this::submitThumbnail);
+		numPublished += entries.size();
+	}
+
+	private void submitThumbnail(ImageGroupDescriptor entry)
+	{
+		thumbnailQueue.add(entry);
+		ioExecutor.submit(this::readThumbnail);
+		numSubmitted++;
+	}
+
+	/**
+	 * Runs the I/O stage for the pending entry of highest priority at the time
+	 * a permit is acquired and passes its decode stage on to the decode
+	 * executor, waiting while the decode queue is full. One task is submitted
+	 * per entry, so that all entries are processed eventually. Each task
+	 * completes its entry, if the decode stage is not reached, by a failure.
+	 */
+	private @Nullable
+	Void readThumbnail()
+	{
+		boolean submitted = false;
+		Throwable failure = new IllegalStateException("Thumbnail not created");
+		try
 		{
+			final var decodeStage = readThumbnailData();
+			decodePermits.acquire();
 			try
 			{
-				final ImageGroupDataUpdater.Result result = completionService.take().get();
-				final var image = result.imageMetadata().getThumbnail();
-				final int index = result.mainListIndex();
-				final double progress = i / size;
-				platformScheduler.submit(() ->
+				completionService.submit(() ->
 				{
-					final var imageGroupDescriptor = listItems.get(index);
-					imageGroupDescriptor.setThumbnail(image);
-					listItems.set(index, imageGroupDescriptor);
-					progressControl.accept(progress);
+					try
+					{
+						return decodeStage.call();
+					}
+					finally
+					{
+						decodePermits.release();
+					}
 				});
+				submitted = true;
+			}
+			finally
+			{
+				if (!submitted)
+				{
+					decodePermits.release();
+				}
+			}
+		}
+		catch (InterruptedException | IOException | RuntimeException | Error ex)
+		{
+			failure = ex;
+		}
+		finally
+		{
+			// the remaining thumbnails are waited for, until every entry is completed:
+			if (!submitted)
+			{
+				completionQueue.add(CompletableFuture.failedFuture(failure));
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Runs the I/O stage for the pending entry of highest priority.
+	 *
+	 * @return the decode stage
+	 * @throws InterruptedException if interrupted on cancellation
+	 * @throws IOException          on read errors
+	 */
+	private Callable<ImageGroupDataUpdater.Result> readThumbnailData()
+		throws InterruptedException, IOException
+	{
+		ioPermits.acquire();
+		try
+		{
+			final var entry = thumbnailQueue.poll();
+			if (entry == null)
+			{
+				throw new IllegalStateException("No pending thumbnail");
+			}
+			return new ImageGroupDataUpdater(
+				entry.imageGroupDescriptor(), entry.timeSubmitted(), thumbnailStore).read();
+		}
+		finally
+		{
+			ioPermits.release();
+		}
+	}
+
+	/**
+	 * Sets the list items in focus to prioritise their thumbnail creation.
+	 *
+	 * @param focus  the items in focus in descending priority
+	 * @param center the item to continue outwards from
+	 * @see ThumbnailQueue#setFocus(List, ImageGroupDescriptor)
+	 */
+	void setThumbnailFocus(List<ImageGroupDescriptor> focus, @Nullable ImageGroupDescriptor center)
+	{
+		thumbnailQueue.setFocus(focus, center);
+	}
+
+	/**
+	 * Passes the thumbnails already created to the list items without waiting,
+	 * while the directory is still being scanned.
+	 */
+	private void pollThumbnails()
+	{
+		for (var future = completionService.poll(); !cancelled && future != null;
+			future = completionService.poll())
+		{
+			updateThumbnail(future, false);
+		}
+	}
+
+	/**
+	 * Waits for the remaining thumbnails after the directory has been scanned
+	 * and passes them to the list items.
+	 */
+	private void takeThumbnails()
+	{
+		final double progress = (double) numCompleted / numSubmitted;
+		platformScheduler.submit(progressControl, () -> progressControl.accept(progress));
+		while (!cancelled && numCompleted < numSubmitted)
+		{
+			try
+			{
+				updateThumbnail(completionService.take(), true);
 			}
 			catch (InterruptedException ex)
 			{
+				logger.log(TRACE, () -> "Waiting for thumbnails of »%s« interrupted".formatted(directory));
+				break;
+			}
+		}
+	}
+
+	private void updateThumbnail(Future<ImageGroupDataUpdater.Result> future, boolean showProgress)
+	{
+		numCompleted++;
+		final double progress = (double) numCompleted / numSubmitted;
+		try
+		{
+			thumbnailsCreated.add(future.get());
+			platformScheduler.submit(thumbnailsCreated, this::applyThumbnails);
+			if (showProgress)
+			{
+				platformScheduler.submit(progressControl, () -> progressControl.accept(progress));
+			}
+		}
+		catch (InterruptedException ex)
+		{
+		}
+		catch (ExecutionException ex)
+		{
+			logger.log(WARNING, ex);
+		}
+	}
+
+	/**
+	 * Passes the thumbnails created meanwhile to the list items. To be called
+	 * on the JavaFX application thread.
+	 */
+	private void applyThumbnails()
+	{
+		for (var result = thumbnailsCreated.poll(); result != null; result = thumbnailsCreated.poll())
+		{
+			applyThumbnail(listItems, thumbnailImages, result);
+		}
+	}
+
+	/**
+	 * Passes a created thumbnail to its list item. The list cell showing the
+	 * item observes its thumbnail, so the list items are not changed. A
+	 * thumbnail decoded anyway is kept, if the item is still contained in the
+	 * list items. To be called on the JavaFX application thread.
+	 *
+	 * @param listItems       the sorted list items
+	 * @param thumbnailImages the decoded thumbnail images
+	 * @param result          the created thumbnail
+	 */
+	static void applyThumbnail(List<ImageGroupDescriptor> listItems,
+		ThumbnailImages thumbnailImages, ImageGroupDataUpdater.Result result)
+	{
+		final var imageMetadata = result.imageMetadata();
+		final var imageGroupDescriptor = result.imageGroupDescriptor();
+		// the list is sorted, so the entry is found by binary search:
+		final int index = Collections.binarySearch(listItems, imageGroupDescriptor, comparator);
+		if (index >= 0 && listItems.get(index) == imageGroupDescriptor)
+		{
+			// a thumbnail decoded anyway is likely to be shown soon:
+			final var image = imageMetadata.getThumbnail();
+			if (image != null && !image.isError())
+			{
+				thumbnailImages.put(imageGroupDescriptor, image);
 			}
-			catch (ExecutionException ex)
+			else
 			{
-//				cancelled = true;
-				logger.log(WARNING, ex);
+				thumbnailImages.remove(imageGroupDescriptor);
 			}
 		}
+		// notifies the list cell showing the item, after the decoded image is updated:
+		imageGroupDescriptor.setThumbnailData(imageMetadata.getThumbnailData());
+	}
+
+	/**
+	 * Returns the modification time of the directory, as read before its
+	 * entries.
+	 *
+	 * @return the modification time or null, if not available
+	 */
+	@Nullable
+	FileTime getDirectoryModified()
+	{
+		return directoryModified;
+	}
+
+	/**
+	 * Marks the entries as complete, after all of them have been submitted to
+	 * the list items, so that changes of the directory can be applied to the
+	 * list items while the thumbnails are still being created.
+	 */
+	private void setComplete()
+	{
+		complete = true;
+		onEntriesComplete.run();
+	}
+
+	/**
+	 * Returns true, iff the directory has been read completely or restored.
+	 *
+	 * @return true, iff the entries are complete
+	 */
+	boolean isComplete()
+	{
+		return complete;
 	}
 
 	void cancel()
 	{
 		cancelled = true;
-		executorService.shutdownNow();
+		ioExecutor.shutdownNow();
+		decodeExecutor.shutdownNow();
 		if (thread != null)
 		{
 			thread.interrupt();
@@ -16,40 +16,270 @@
  */
 package de.bernd_michaely.diascope.app.stage;
 
+import de.bernd_michaely.diascope.app.image.ExifThumbnailReader;
+import de.bernd_michaely.diascope.app.image.ExifThumbnailReader.EmbeddedThumbnail;
 import de.bernd_michaely.diascope.app.stage.ImageGroupDataUpdater.Result;
-import java.io.BufferedInputStream;
+import de.bernd_michaely.diascope.app.util.io.ByteBufferInputStream;
+import de.bernd_michaely.diascope.app.util.io.FileIngestion;
+import de.bernd_michaely.diascope.app.util.io.ThumbnailStore;
+import de.bernd_michaely.diascope.app.util.jfr.ThumbnailDecodeEvent;
+import de.bernd_michaely.diascope.app.util.metrics.LoadMetrics;
+import java.io.IOException;
+import java.lang.System.Logger;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.concurrent.Callable;
 import javafx.scene.image.Image;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import static de.bernd_michaely.diascope.app.util.metrics.LoadMetrics.Metric.*;
+import static java.lang.System.Logger.Level.*;
 
 /**
- * Object to retrieve image metadata in a worker thread.
+ * Object to retrieve image metadata in a worker thread. Thumbnails are taken
+ * from the persistent thumbnail store, if available and up to date, otherwise
+ * they are created from the image file and added to the store. To create a
+ * thumbnail, the preview embedded into the EXIF header is preferred over
+ * decoding the full image. Thumbnails are passed on in encoded form, stored
+ * thumbnails are not decoded at all.
+ * <p>
+ * The retrieval is split into an I/O stage, see {@link #read()}, and a CPU
+ * bound decode stage returned by the I/O stage, so that both stages can be
+ * run on separate executors. The stages must be run one after the other.
+ * </p>
  *
  * @author Bernd Michaely (info@bernd-michaely.de)
  */
 class ImageGroupDataUpdater implements Callable<Result>
 {
-	private final Path pathImageFile;
-	private final int mainListIndex;
+	private static final Logger logger = System.getLogger(ImageGroupDataUpdater.class.getName());
+	/**
+	 * The maximum width and height of thumbnails.
+	 */
+	static final int THUMBNAIL_SIZE = 200;
+	/**
+	 * The minimum width or height of embedded thumbnails to be used. Smaller
+	 * thumbnails would be blurred by scaling them to the thumbnail size.
+	 */
+	static final int MIN_EMBEDDED_SIZE = 160;
+	private final ImageGroupDescriptor imageGroupDescriptor;
+	private final long timeSubmitted;
+	private final @Nullable ThumbnailStore thumbnailStore;
+	private final ThumbnailDecodeEvent event = new ThumbnailDecodeEvent();
+	private long timeStart;
+	private String name = "";
+	private long size, lastModified;
 
-	record Result(ImageMetadata imageMetadata, int mainListIndex)
+	record Result(ImageMetadata imageMetadata, ImageGroupDescriptor imageGroupDescriptor)
 	{
 	}
 
-	ImageGroupDataUpdater(Path imageFile, int mainListIndex)
+	ImageGroupDataUpdater(ImageGroupDescriptor imageGroupDescriptor, long timeSubmitted,
+		@Nullable ThumbnailStore thumbnailStore)
 	{
-		this.pathImageFile = imageFile;
-		this.mainListIndex = mainListIndex;
+		this.imageGroupDescriptor = imageGroupDescriptor;
+		this.timeSubmitted = timeSubmitted;
+		this.thumbnailStore = thumbnailStore;
 	}
 
+	/**
+	 * Runs both stages in the current thread.
+	 *
+	 * @return the result
+	 * @throws Exception on I/O errors
+	 */
 	@Override
 	public Result call() throws Exception
 	{
-		try (final var inputStream = new BufferedInputStream(Files.newInputStream(pathImageFile)))
+		return read().call();
+	}
+
+	/**
+	 * Runs the I/O stage. The thumbnail is read from the thumbnail store, or
+	 * otherwise the embedded thumbnail or, if there is no usable one, the whole
+	 * image file is read into memory.
+	 *
+	 * @return the decode stage
+	 * @throws IOException on I/O errors
+	 */
+	Callable<Result> read() throws IOException
+	{
+		timeStart = System.nanoTime();
+		LoadMetrics.record(THUMBNAIL_QUEUE_WAIT, timeStart - timeSubmitted);
+		event.begin();
+		final Path pathImageFile = imageGroupDescriptor.getPath();
+		// reuse the attributes read while scanning the directory:
+		final var attributesKnown = imageGroupDescriptor.getFileAttributes();
+		final var attributes = attributesKnown != null ? attributesKnown :
+			Files.readAttributes(pathImageFile, BasicFileAttributes.class);
+		name = thumbnailStore != null ? thumbnailStore.getEntryName(pathImageFile) : "";
+		size = attributes.size();
+		lastModified = attributes.lastModifiedTime().toMillis();
+		final ByteBuffer dataStored = thumbnailStore != null ?
+			thumbnailStore.get(name, size, lastModified) : null;
+		if (dataStored != null)
+		{
+			// decoded on demand only:
+			final ByteBuffer data = copyToHeap(dataStored);
+			return () -> complete(data, null, true);
+		}
+		final EmbeddedThumbnail embedded = readEmbeddedThumbnail(pathImageFile);
+		final ByteBuffer content = embedded == null ? FileIngestion.read(pathImageFile) : null;
+		return () -> decode(embedded, content);
+	}
+
+	/**
+	 * Runs the decode stage of a thumbnail not found in the thumbnail store.
+	 *
+	 * @param embedded the embedded thumbnail, if usable
+	 * @param content  the content of the image file, if there is no usable
+	 *                 embedded thumbnail
+	 * @return the result
+	 * @throws IOException on I/O errors
+	 */
+	private Result decode(@Nullable EmbeddedThumbnail embedded, @Nullable ByteBuffer content)
+		throws IOException
+	{
+		final Path pathImageFile = imageGroupDescriptor.getPath();
+		Thumbnail created = embedded != null ? decodeEmbeddedThumbnail(embedded) : null;
+		if (created == null)
+		{
+			// fall back to the full image, if the embedded thumbnail is not decodable:
+			final ByteBuffer data = content != null ? content : FileIngestion.read(pathImageFile);
+			created = new Thumbnail(new Image(new ByteBufferInputStream(data),
+				THUMBNAIL_SIZE, THUMBNAIL_SIZE, true, true), null);
+		}
+		final ByteBuffer data = encode(created, pathImageFile);
+		if (data != null && thumbnailStore != null)
+		{
+			try
+			{
+				thumbnailStore.put(name, size, lastModified, data);
+			}
+			catch (IOException ex)
+			{
+				logger.log(WARNING, "Can't store thumbnail of »%s«: %s".formatted(pathImageFile, ex));
+			}
+		}
+		return complete(data, created.image(), false);
+	}
+
+	private Result complete(@Nullable ByteBuffer data, @Nullable Image thumbnail, boolean stored)
+	{
+		LoadMetrics.recordSince(THUMBNAIL, timeStart);
+		event.end();
+		if (event.shouldCommit())
+		{
+			event.path = imageGroupDescriptor.getPath().toString();
+			if (thumbnail != null)
+			{
+				event.width = (int) thumbnail.getWidth();
+				event.height = (int) thumbnail.getHeight();
+			}
+			event.stored = stored;
+			event.commit();
+		}
+		return new Result(new ImageMetadata(data, thumbnail), imageGroupDescriptor);
+	}
+
+	/**
+	 * Returns the encoded form of a newly created thumbnail.
+	 *
+	 * @param thumbnail     the created thumbnail
+	 * @param pathImageFile the image file, for logging only
+	 * @return the encoded thumbnail or null, if not available
+	 */
+	private static @Nullable
+	ByteBuffer encode(Thumbnail thumbnail, Path pathImageFile)
+	{
+		if (thumbnail.image().isError())
+		{
+			return null;
+		}
+		final ByteBuffer encoded = thumbnail.encoded();
+		if (encoded != null)
 		{
-			final Image thumbnail = new Image(inputStream, 200, 200, true, true);
-			return new Result(new ImageMetadata(thumbnail), mainListIndex);
+			return copyToHeap(encoded);
 		}
+		try
+		{
+			return ThumbnailCodec.encode(thumbnail.image());
+		}
+		catch (IOException ex)
+		{
+			logger.log(WARNING, "Can't encode thumbnail of »%s«: %s".formatted(pathImageFile, ex));
+			return null;
+		}
+	}
+
+	/**
+	 * Returns a heap copy of the given data, so that no larger buffer, e.g. a
+	 * file header or a direct buffer of a whole file, is retained by the copy.
+	 *
+	 * @param data the given data, the buffer position is not changed
+	 * @return a heap copy of the remaining data
+	 */
+	private static ByteBuffer copyToHeap(ByteBuffer data)
+	{
+		return ByteBuffer.allocate(data.remaining()).put(data.duplicate()).flip();
+	}
+
+	/**
+	 * A newly created thumbnail.
+	 *
+	 * @param image   the thumbnail image
+	 * @param encoded the encoded thumbnail, if available without encoding the
+	 *                image
+	 */
+	private record Thumbnail(Image image, @Nullable ByteBuffer encoded)
+	{
+	}
+
+	/**
+	 * Reads the thumbnail embedded into the EXIF header of the given file.
+	 * Files other than JPEG files are not read.
+	 *
+	 * @param pathImageFile the given file
+	 * @return the embedded thumbnail or null, if there is no usable one
+	 */
+	private static @Nullable
+	EmbeddedThumbnail readEmbeddedThumbnail(Path pathImageFile)
+	{
+		if (!ExifThumbnailReader.hasJpegFileNameExtension(pathImageFile))
+		{
+			return null;
+		}
+		try
+		{
+			final var embedded = ExifThumbnailReader.read(pathImageFile);
+			return embedded != null && embedded.getSize() >= MIN_EMBEDDED_SIZE ? embedded : null;
+		}
+		catch (IOException ex)
+		{
+			logger.log(TRACE, () -> "No embedded thumbnail in »%s«: %s".formatted(pathImageFile, ex));
+			return null;
+		}
+	}
+
+	/**
+	 * Decodes the given embedded thumbnail. An embedded thumbnail of the
+	 * thumbnail size is used as is, including its encoded form, otherwise it
+	 * is scaled to the thumbnail size, so that it matches the size of
+	 * thumbnails created from the full image.
+	 *
+	 * @param embedded the embedded thumbnail
+	 * @return the decoded thumbnail or null, if it is not decodable
+	 */
+	private static @Nullable
+	Thumbnail decodeEmbeddedThumbnail(EmbeddedThumbnail embedded)
+	{
+		final boolean scaled = embedded.getSize() != THUMBNAIL_SIZE;
+		final var inputStream = new ByteBufferInputStream(embedded.data());
+		final Image image = scaled ?
+			new Image(inputStream, THUMBNAIL_SIZE, THUMBNAIL_SIZE, true, true) :
+			new Image(inputStream);
+		return image.isError() ? null : new Thumbnail(image, scaled ? null : embedded.data());
 	}
 }
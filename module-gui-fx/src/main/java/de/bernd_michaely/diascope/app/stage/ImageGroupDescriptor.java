@@ -17,8 +17,12 @@
 package de.bernd_michaely.diascope.app.stage;
 
 import java.lang.System.Logger;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
-import javafx.scene.image.Image;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
@@ -26,6 +30,16 @@ import org.checkerframework.checker.nullness.qual.Nullable;
  * describe a single image. The term image refers to the content, that is
  * several image files may belong to the group, e.g. RAW + JPEG files of the
  * same image.
+ * <p>
+ * The thumbnail is kept in compact encoded form only, images are decoded on
+ * demand for the list cells shown, see {@link ThumbnailImages}. A list cell
+ * observes the thumbnail of its item, so that a new thumbnail is shown
+ * without changing the list, see {@link #thumbnailDataProperty()}.
+ * </p>
+ * <p>
+ * The file attributes read while scanning the directory are kept, so that
+ * later stages need not access the file system again.
+ * </p>
  *
  * @author Bernd Michaely (info@bernd-michaely.de)
  */
@@ -34,24 +48,64 @@ class ImageGroupDescriptor
 	private static final Logger logger = System.getLogger(ImageGroupDescriptor.class.getName());
 	private final Path path;
 	private String title = "";
-	private @Nullable Image thumbnail;
+	private @Nullable ByteBuffer thumbnailData;
+	private @Nullable ReadOnlyObjectWrapper<@Nullable ByteBuffer> thumbnailDataProperty;
+	private volatile @Nullable BasicFileAttributes fileAttributes;
 
 	ImageGroupDescriptor(Path path)
+	{
+		this(path, null);
+	}
+
+	ImageGroupDescriptor(Path path, @Nullable BasicFileAttributes fileAttributes)
 	{
 		this.path = path;
+		this.fileAttributes = fileAttributes;
 		final Path fileName = path.getFileName();
 		title = fileName != null ? fileName.toString() : "";
 	}
 
+	/**
+	 * Returns the encoded thumbnail.
+	 *
+	 * @return the encoded thumbnail, if available
+	 * @see ThumbnailCodec
+	 */
 	@Nullable
-	Image getThumbnail()
+	ByteBuffer getThumbnailData()
+	{
+		return this.thumbnailData;
+	}
+
+	/**
+	 * Sets the encoded thumbnail. Once the thumbnail is observed, to be called
+	 * on the JavaFX application thread only.
+	 *
+	 * @param thumbnailData the encoded thumbnail
+	 */
+	void setThumbnailData(@Nullable ByteBuffer thumbnailData)
 	{
-		return this.thumbnail;
+		this.thumbnailData = thumbnailData;
+		if (thumbnailDataProperty != null)
+		{
+			thumbnailDataProperty.set(thumbnailData);
+		}
 	}
 
-	void setThumbnail(@Nullable Image thumbnail)
+	/**
+	 * Returns a property of the encoded thumbnail to be observed on the JavaFX
+	 * application thread. The property is created on demand only, that is for
+	 * items shown.
+	 *
+	 * @return a property of the encoded thumbnail
+	 */
+	ReadOnlyObjectProperty<@Nullable ByteBuffer> thumbnailDataProperty()
 	{
-		this.thumbnail = thumbnail;
+		if (thumbnailDataProperty == null)
+		{
+			thumbnailDataProperty = new ReadOnlyObjectWrapper<>(this, "thumbnailData", thumbnailData);
+		}
+		return thumbnailDataProperty.getReadOnlyProperty();
 	}
 
 	Path getPath()
@@ -59,6 +113,40 @@ class ImageGroupDescriptor
 		return path;
 	}
 
+	/**
+	 * Returns the file attributes read while scanning the directory.
+	 *
+	 * @return the file attributes, if available
+	 */
+	@Nullable
+	BasicFileAttributes getFileAttributes()
+	{
+		return fileAttributes;
+	}
+
+	void setFileAttributes(@Nullable BasicFileAttributes fileAttributes)
+	{
+		this.fileAttributes = fileAttributes;
+	}
+
+	/**
+	 * Checks, whether the given attributes describe a modified file compared
+	 * to the attributes of this descriptor, that is a different size,
+	 * modification time or file key. Without attributes of this descriptor, the
+	 * file is considered to be modified.
+	 *
+	 * @param attributes the current attributes of the file
+	 * @return true, iff the file is considered to be modified
+	 */
+	boolean isModified(BasicFileAttributes attributes)
+	{
+		final var attributesKnown = fileAttributes;
+		return attributesKnown == null ||
+			attributesKnown.size() != attributes.size() ||
+			!attributesKnown.lastModifiedTime().equals(attributes.lastModifiedTime()) ||
+			!Objects.equals(attributesKnown.fileKey(), attributes.fileKey());
+	}
+
 	@Override
 	public String toString()
 	{
@@ -16,7 +16,9 @@
  */
 package de.bernd_michaely.diascope.app.stage;
 
+import java.nio.ByteBuffer;
 import javafx.beans.binding.DoubleBinding;
+import javafx.beans.value.ChangeListener;
 import javafx.scene.control.Label;
 import javafx.scene.control.ListCell;
 import javafx.scene.control.ListView;
@@ -27,21 +29,29 @@ import javafx.scene.layout.Border;
 import javafx.scene.layout.BorderPane;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import static de.bernd_michaely.diascope.app.util.beans.ChangeListenerUtil.onChange;
+
 /**
- * Class representing a list cell for an image group list.
+ * Class representing a list cell for an image group list. The cell observes
+ * the thumbnail of its item, so that a thumbnail created later is shown
+ * without a change of the list.
  *
  * @author Bernd Michaely (info@bernd-michaely.de)
  */
 class ImageListCell extends ListCell<ImageGroupDescriptor>
 {
 	private final ListView<ImageGroupDescriptor> listView;
+	private final ThumbnailImages thumbnailImages;
 	private final ImageView imageView;
 	private final Label labelName;
 	final BorderPane borderPane;
+	private final ChangeListener<@Nullable ByteBuffer> thumbnailListener;
+	private @Nullable ImageGroupDescriptor itemObserved;
 
-	ImageListCell(ListView<ImageGroupDescriptor> listView)
+	ImageListCell(ListView<ImageGroupDescriptor> listView, ThumbnailImages thumbnailImages)
 	{
 		this.listView = listView;
+		this.thumbnailImages = thumbnailImages;
 		labelName = new Label();
 		labelName.setBorder(Border.EMPTY);
 		imageView = new ImageView();
@@ -49,6 +59,27 @@ class ImageListCell extends ListCell<ImageGroupDescriptor>
 		borderPane = new BorderPane(imageView);
 		borderPane.setBorder(Border.EMPTY);
 		borderPane.setBottom(labelName);
+		thumbnailListener = onChange(() ->
+		{
+			final var item = getItem();
+			setThumbnail(item != null ? thumbnailImages.get(item) : null);
+		});
+	}
+
+	private void observe(@Nullable ImageGroupDescriptor item)
+	{
+		if (item != itemObserved)
+		{
+			if (itemObserved != null)
+			{
+				itemObserved.thumbnailDataProperty().removeListener(thumbnailListener);
+			}
+			if (item != null)
+			{
+				item.thumbnailDataProperty().addListener(thumbnailListener);
+			}
+			itemObserved = item;
+		}
 	}
 
 	@SuppressWarnings("argument")
@@ -86,6 +117,7 @@ class ImageListCell extends ListCell<ImageGroupDescriptor>
 		labelName.prefWidthProperty().bind(listCellSize);
 		labelName.maxWidthProperty().bind(listCellSize);
 		setGraphic(borderPane);
+		observe(empty ? null : item);
 		if (empty || item == null)
 		{
 			labelName.setText("");
@@ -93,7 +125,7 @@ class ImageListCell extends ListCell<ImageGroupDescriptor>
 		}
 		else
 		{
-			setThumbnail(item.getThumbnail());
+			setThumbnail(thumbnailImages.get(item));
 			final String itemName = item.toString();
 			labelName.setText(itemName);
 			labelName.setTooltip(new Tooltip(itemName));
@@ -16,27 +16,51 @@
  */
 package de.bernd_michaely.diascope.app.stage;
 
+import java.nio.ByteBuffer;
 import javafx.scene.image.Image;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
- * Class to hold image metadata including a thumbnail.
+ * Class to hold image metadata including a thumbnail. The thumbnail is held
+ * in encoded form, the decoded thumbnail is available only, if it has been
+ * decoded anyway while creating the metadata.
  *
  * @author Bernd Michaely (info@bernd-michaely.de)
  */
 class ImageMetadata
 {
-	private @Nullable Image thumbnail;
+	private final @Nullable ByteBuffer thumbnailData;
+	private final @Nullable Image thumbnail;
 
 	ImageMetadata()
 	{
+		this(null, null);
 	}
 
-	ImageMetadata(Image thumbnail)
+	ImageMetadata(@Nullable ByteBuffer thumbnailData, @Nullable Image thumbnail)
 	{
+		this.thumbnailData = thumbnailData;
 		this.thumbnail = thumbnail;
 	}
 
+	/**
+	 * Returns the encoded thumbnail.
+	 *
+	 * @return the encoded thumbnail, if available
+	 * @see ThumbnailCodec
+	 */
+	@Nullable
+	ByteBuffer getThumbnailData()
+	{
+		return thumbnailData;
+	}
+
+	/**
+	 * Returns the decoded thumbnail.
+	 *
+	 * @return the decoded thumbnail, if it has been decoded while creating the
+	 *         metadata
+	 */
 	@Nullable
 	Image getThumbnail()
 	{
@@ -17,14 +17,19 @@
 package de.bernd_michaely.diascope.app.stage;
 
 import de.bernd_michaely.diascope.app.ApplicationConfiguration;
+import de.bernd_michaely.diascope.app.ApplicationConfiguration.Prefetch;
 import de.bernd_michaely.diascope.app.image.ImageDescriptor;
 import de.bernd_michaely.diascope.app.image.MultiImageView;
+import de.bernd_michaely.diascope.app.image.OffHeapImage;
 import de.bernd_michaely.diascope.app.stage.concurrent.ImageLoader;
 import de.bernd_michaely.diascope.app.stage.concurrent.ImageLoader.TaskParameters;
 import de.bernd_michaely.diascope.app.util.action.CheckedAction;
+import de.bernd_michaely.diascope.app.util.metrics.LoadMetrics;
 import java.lang.System.Logger;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.Optional;
+import javafx.animation.PauseTransition;
 import javafx.application.Platform;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.ReadOnlyBooleanProperty;
@@ -34,7 +39,10 @@ import javafx.beans.property.ReadOnlyListWrapper;
 import javafx.beans.property.ReadOnlyObjectProperty;
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableBooleanValue;
+import javafx.beans.value.ObservableValue;
 import javafx.scene.Cursor;
+import javafx.scene.Scene;
 import javafx.scene.control.Label;
 import javafx.scene.control.ListView;
 import javafx.scene.control.ProgressBar;
@@ -46,11 +54,14 @@ import javafx.scene.layout.Region;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 import javafx.scene.paint.Paint;
+import javafx.stage.Window;
+import javafx.util.Duration;
 import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 import static de.bernd_michaely.diascope.app.stage.concurrent.ImageLoader.RequestType.*;
 import static de.bernd_michaely.diascope.app.util.beans.ChangeListenerUtil.*;
+import static de.bernd_michaely.diascope.app.util.metrics.LoadMetrics.Metric.REQUEST_TO_DISPLAY;
 import static java.lang.System.Logger.Level.*;
 import static javafx.geometry.Pos.*;
 
@@ -64,6 +75,11 @@ public class MainContent implements AutoCloseable
 	private static final int INDEX_NO_SELECTION = -1;
 	private static final String MSG_FMT_LOADING_IMG = "%s ← loading…";
 	private static final Color COLOR_LABEL_LOADING_IMG = Color.SKYBLUE;
+	/**
+	 * Delay after the last change of the viewport size, before the current
+	 * image is decoded again for the new size.
+	 */
+	private static final Duration RESIZE_SETTLE_DELAY = Duration.millis(300);
 	private final BorderPane outerPane;
 	private final MultiImageView multiImageView;
 	private final BorderPane statusLine;
@@ -78,7 +94,9 @@ public class MainContent implements AutoCloseable
 	private final ImageLoader imageLoader = new ImageLoader();
 	private final Cursor cursorDefault;
 	private @MonotonicNonNull Paint paintDefaultText;
-	private int indexSelectedPrevious = INDEX_NO_SELECTION;
+	private final PrefetchWindow prefetchWindow;
+	private @Nullable Path pathRequested;
+	private long timeRequested;
 	private final BooleanProperty showStatusLineProperty;
 	private final MainContentComponents components;
 
@@ -86,7 +104,8 @@ public class MainContent implements AutoCloseable
 	{
 		this.listView = new ListView<>();
 		this.listViewProperty = new ReadOnlyListWrapper<>(listView.getItems());
-		this.listView.setCellFactory(ImageListCell::new);
+		final var thumbnailImages = new ThumbnailImages(listView.getItems());
+		this.listView.setCellFactory(view -> new ImageListCell(view, thumbnailImages));
 		this.labelStatus = new Label();
 		this.statusLine = new BorderPane(labelStatus);
 		this.statusLine.setPrefHeight(new ProgressBar(0).getHeight());
@@ -143,7 +162,13 @@ public class MainContent implements AutoCloseable
 				statusLines.getChildren().remove(statusLineDevelopment);
 			}
 		}));
-		this.imageDirectoryReader = new ImageDirectoryReader(listView.getItems(), this.progressControl);
+		final var prefetch = state.prefetch();
+		this.prefetchWindow = new PrefetchWindow(
+			prefetch.map(Prefetch::ahead).orElse(PrefetchWindow.DEFAULT_AHEAD),
+			prefetch.map(Prefetch::behind).orElse(PrefetchWindow.DEFAULT_BEHIND));
+		this.imageDirectoryReader = new ImageDirectoryReader(
+			listView, this.progressControl, thumbnailImages);
+		new ThumbnailFocusTracker(listView, imageDirectoryReader::setThumbnailFocus);
 		this.pathChangeListener = onChange(imageDirectoryReader::accept);
 		this.showStatusLineProperty = new SimpleBooleanProperty();
 		this.showStatusLineProperty.addListener(onChange(newValue ->
@@ -165,6 +190,23 @@ public class MainContent implements AutoCloseable
 		this.showStatusLineProperty.bind(showStatusLinePersistedProperty);
 	}
 
+	/**
+	 * Sets the properties to control the directory scan. A change causes the
+	 * current directory to be read again.
+	 *
+	 * @param includingSubdirs true to include the images of subdirectories
+	 * @param includingHidden  true to include hidden subdirectories
+	 */
+	void setDirectoryScanProperties(ObservableBooleanValue includingSubdirs,
+		ObservableBooleanValue includingHidden)
+	{
+		final Runnable update = () -> imageDirectoryReader.setScanOptions(
+			includingSubdirs.get(), includingHidden.get());
+		update.run();
+		includingSubdirs.addListener(onChange(update));
+		includingHidden.addListener(onChange(update));
+	}
+
 	void setSelectedPathProperty(ReadOnlyObjectProperty<@Nullable Path> selectedPathProperty)
 	{
 		this.selectedPathProperty = selectedPathProperty;
@@ -194,33 +236,23 @@ public class MainContent implements AutoCloseable
 			getDefaultTextPaint();
 			labelStatus.setText(MSG_FMT_LOADING_IMG.formatted(pathSelected));
 			labelStatus.setTextFill(COLOR_LABEL_LOADING_IMG);
-			// read ahead:
-			final boolean backward = index < this.indexSelectedPrevious;
-			final boolean forward = index > this.indexSelectedPrevious;
-			ImageGroupDescriptor igdReadAhead = null;
-			final int maxIndex = n - 1;
-			if (index < maxIndex && (forward || backward && index == 0))
-			{
-				igdReadAhead = items.get(index + 1);
-			}
-			else if (index > 0 && (backward || forward && index == maxIndex))
-			{
-				igdReadAhead = items.get(index - 1);
-			}
-			this.indexSelectedPrevious = index;
+			pathRequested = pathSelected;
+			timeRequested = System.nanoTime();
 			imageLoader.accept(new TaskParameters(pathSelected, IMMEDIATE));
 			logger.log(TRACE, "Request immediate of »%s«".formatted(pathSelected));
-			final Path pathReadAhead = igdReadAhead != null ? igdReadAhead.getPath() : null;
-			if (pathReadAhead != null)
-			{
-				logger.log(TRACE, "Request read ahead of »%s«".formatted(pathReadAhead));
-				imageLoader.accept(new TaskParameters(pathReadAhead, READ_AHEAD));
-			}
+			// read ahead:
+			final List<Path> pathsReadAhead = prefetchWindow.update(index, n, System.nanoTime())
+				.stream().map(i -> items.get(i).getPath()).toList();
+			logger.log(TRACE, () -> "Request read ahead of %s".formatted(pathsReadAhead));
+			imageLoader.readAhead(pathsReadAhead);
 		}
 		else
 		{
 			labelStatusIndex.setText("[–/–]");
 			labelStatus.setText("");
+			prefetchWindow.reset();
+			pathRequested = null;
+			imageLoader.readAhead(List.of());
 			imageLoader.accept(new TaskParameters());
 		}
 	}
@@ -234,8 +266,17 @@ public class MainContent implements AutoCloseable
 	{
 		final var image = taskResult.image();
 		final var path = taskResult.path();
-		final var imageDescriptor = image != null && path != null ? new ImageDescriptor(image, path) : null;
-		multiImageView.setImageDescriptor(Optional.ofNullable(imageDescriptor));
+		final var imageDescriptor = image != null && path != null ?
+			new ImageDescriptor(image, path, taskResult.width(), taskResult.height()) : null;
+		try
+		{
+			multiImageView.setImageDescriptor(Optional.ofNullable(imageDescriptor));
+		}
+		finally
+		{
+			// a displaying image layer has retained the image on its own:
+			OffHeapImage.release(image);
+		}
 	}
 
 	private Paint getDefaultTextPaint()
@@ -289,6 +330,11 @@ public class MainContent implements AutoCloseable
 				labelStatus.setTextFill(getDefaultTextPaint());
 				labelStatus.setText(strPath);
 				getRegion().setCursor(cursorDefault);
+				if (path != null && path.equals(pathRequested))
+				{
+					LoadMetrics.recordSince(REQUEST_TO_DISPLAY, timeRequested);
+					pathRequested = null;
+				}
 			}
 			else
 			{
@@ -297,6 +343,30 @@ public class MainContent implements AutoCloseable
 			}
 			setImageDescriptor(taskResult);
 		}));
+		final var regionImageView = multiImageView.getRegion();
+		// the preview size is the viewport size in device pixels:
+		final var window = regionImageView.sceneProperty().flatMap(Scene::windowProperty);
+		final ObservableValue<Number> outputScaleX = window.flatMap(Window::outputScaleXProperty).orElse(1.0);
+		final ObservableValue<Number> outputScaleY = window.flatMap(Window::outputScaleYProperty).orElse(1.0);
+		// decode the current image again only after resizing has stopped:
+		final var resizeSettled = new PauseTransition(RESIZE_SETTLE_DELAY);
+		resizeSettled.setOnFinished(_ -> imageLoader.upgradeCurrentImage());
+		final Runnable updatePreviewSize = () ->
+		{
+			imageLoader.setPreviewSize(
+				regionImageView.getWidth() * outputScaleX.getValue().doubleValue(),
+				regionImageView.getHeight() * outputScaleY.getValue().doubleValue());
+			resizeSettled.playFromStart();
+		};
+		regionImageView.widthProperty().addListener(onChange(updatePreviewSize));
+		regionImageView.heightProperty().addListener(onChange(updatePreviewSize));
+		outputScaleX.addListener(onChange(updatePreviewSize));
+		outputScaleY.addListener(onChange(updatePreviewSize));
+		updatePreviewSize.run();
+		// decode in full resolution only, if the zoom factor requires it:
+		final var fullResolutionRequired = multiImageView.fullResolutionRequiredProperty();
+		fullResolutionRequired.addListener(onChange(imageLoader::setFullResolution));
+		imageLoader.setFullResolution(fullResolutionRequired.get());
 		this.listView.getSelectionModel().selectedIndexProperty()
 			.addListener(onChange(this::updateSelectedIndex));
 		this.progressControl.setOnProgressZero(() ->
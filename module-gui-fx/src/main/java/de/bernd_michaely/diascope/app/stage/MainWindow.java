@@ -191,6 +191,8 @@ public class MainWindow
 			final var fstv = paneFileSystem.getFileSystemTreeView();
 			actions.actionClose.setOnAction(e -> fstv.clearSelection());
 			actions.actionClose.disableProperty().bind(not(fstv.pathSelectedProperty()));
+			getMainContent().setDirectoryScanProperties(paneFileSystem.includingSubdirsProperty(),
+				paneFileSystem.showingHiddenDirsProperty());
 			getMainContent().setSelectedPathProperty(fstv.selectedPathProperty());
 			titleProperty.bind(StringBindingAppTitle.create(fstv.selectedPathProperty(),
 				ApplicationConfiguration.getState().developmentModeProperty()));
@@ -37,6 +37,7 @@ import javafx.scene.layout.VBox;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 import static de.bernd_michaely.diascope.app.stage.GlobalConstants.PATH_USER_HOME;
+import static de.bernd_michaely.diascope.app.stage.PreferencesKeys.PREF_KEY_INCLUDE_SUBDIRS;
 import static de.bernd_michaely.diascope.app.stage.PreferencesKeys.PREF_KEY_SELECTED_PATH;
 import static de.bernd_michaely.diascope.app.stage.PreferencesKeys.PREF_KEY_SHOW_HIDDEN_DIRS;
 import static de.bernd_michaely.diascope.app.util.beans.ChangeListenerUtil.onChange;
@@ -53,6 +54,7 @@ public class PaneFileSystem
 	private static final Logger logger = System.getLogger(PaneFileSystem.class.getName());
 	private final FileSystemTreeView fileSystemTreeView;
 	private final BooleanProperty showingHiddenDirsProperty;
+	private final BooleanProperty includingSubdirsProperty;
 	private final BorderPane paneFstv;
 	private final Tab tabFstv;
 	private final ObjectProperty<@Nullable Path> selectedPathPersistedProperty;
@@ -61,6 +63,8 @@ public class PaneFileSystem
 	{
 		this.showingHiddenDirsProperty = newPersistedBooleanProperty(
 			PREF_KEY_SHOW_HIDDEN_DIRS, getClass(), false);
+		this.includingSubdirsProperty = newPersistedBooleanProperty(
+			PREF_KEY_INCLUDE_SUBDIRS, getClass(), false);
 		this.fileSystemTreeView = FileSystemTreeView.createInstance(
 			Configuration.builder().setUserNodeConfiguration(new UserNodeConfiguration()
 			{
@@ -87,9 +91,11 @@ public class PaneFileSystem
 		final var menuItemUpdate = new MenuItem("Update");
 		final var menuItemShowHidden = new CheckMenuItem("Show hidden directories");
 		menuItemShowHidden.selectedProperty().bindBidirectional(showingHiddenDirsProperty);
+		final var menuItemIncludeSubdirs = new CheckMenuItem("Include subdirectories");
+		menuItemIncludeSubdirs.selectedProperty().bindBidirectional(includingSubdirsProperty);
 		menuItemUpdate.setOnAction(e -> fileSystemTreeView.updateTree());
 		final var menuFstv = new Menu("View");
-		menuFstv.getItems().addAll(menuItemUpdate, menuItemShowHidden);
+		menuFstv.getItems().addAll(menuItemUpdate, menuItemShowHidden, menuItemIncludeSubdirs);
 		this.paneFstv = new BorderPane(fileSystemTreeView.getComponent());
 		paneFstv.setTop(new VBox(new MenuBar(menuFstv)));
 		this.tabFstv = new Tab("Filesystem", paneFstv);
@@ -128,4 +134,19 @@ public class PaneFileSystem
 	{
 		return selectedPathPersistedProperty;
 	}
+
+	BooleanProperty showingHiddenDirsProperty()
+	{
+		return showingHiddenDirsProperty;
+	}
+
+	/// Property to include the images of all subdirectories of the selected
+	/// directory.
+	///
+	/// @return property to include the images of subdirectories
+	///
+	BooleanProperty includingSubdirsProperty()
+	{
+		return includingSubdirsProperty;
+	}
 }
@@ -32,6 +32,7 @@ public enum PreferencesKeys
 	PREF_KEY_FSTV_VISIBLE,
 	PREF_KEY_SELECTED_PATH,
 	PREF_KEY_SHOW_HIDDEN_DIRS,
+	PREF_KEY_INCLUDE_SUBDIRS,
 	PREF_KEY_SHOW_HEADERBAR,
 	PREF_KEY_SHOW_TOOLBAR,
 	PREF_KEY_SHOW_STATUS_LINE,
@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2026 Bernd Michaely (info@bernd-michaely.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.bernd_michaely.diascope.app.stage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/// Class to calculate the indices of list items to be prefetched around the
+/// selected index, depending on the navigation direction and speed.
+///
+/// Up to `maxAhead` items are prefetched in the current navigation direction
+/// and up to `maxBehind` items in the opposite direction. The depth ahead
+/// grows while the user navigates fast in the same direction and shrinks
+/// again when navigation slows down or changes direction.
+///
+/// @author Bernd Michaely (info@bernd-michaely.de)
+///
+final class PrefetchWindow
+{
+	/// Default maximum number of items to prefetch ahead.
+	static final int DEFAULT_AHEAD = 4;
+	/// Default maximum number of items to prefetch behind.
+	static final int DEFAULT_BEHIND = 1;
+	/// Navigation steps within this time are considered as fast navigation.
+	static final long FAST_NAVIGATION_NANOS = 800_000_000L;
+	private static final int INDEX_NONE = -1;
+	private final int maxAhead, maxBehind;
+	private int depthAhead = 1;
+	private int indexPrevious = INDEX_NONE;
+	private long timePrevious;
+	private boolean forward = true;
+
+	/// Creates a new instance.
+	///
+	/// @param maxAhead  maximum number of items to prefetch ahead
+	/// @param maxBehind maximum number of items to prefetch behind
+	///
+	PrefetchWindow(int maxAhead, int maxBehind)
+	{
+		this.maxAhead = Math.max(maxAhead, 0);
+		this.maxBehind = Math.max(maxBehind, 0);
+	}
+
+	/// Returns the current depth ahead.
+	///
+	/// @return the current depth ahead
+	///
+	int getDepthAhead()
+	{
+		return Math.min(depthAhead, maxAhead);
+	}
+
+	/// Returns true, iff the current navigation direction is forward.
+	///
+	/// @return true, iff the current navigation direction is forward
+	///
+	boolean isForward()
+	{
+		return forward;
+	}
+
+	/// Resets the navigation history.
+	///
+	void reset()
+	{
+		depthAhead = 1;
+		indexPrevious = INDEX_NONE;
+		forward = true;
+	}
+
+	/// Updates the window for a newly selected index.
+	///
+	/// @param index     the selected index
+	/// @param size      the size of the list
+	/// @param timeNanos the time of selection as given by `System.nanoTime()`
+	/// @return the indices to prefetch in descending priority
+	///
+	List<Integer> update(int index, int size, long timeNanos)
+	{
+		if (index < 0 || index >= size)
+		{
+			reset();
+			return List.of();
+		}
+		if (indexPrevious != INDEX_NONE && index != indexPrevious)
+		{
+			final boolean forwardNew = index > indexPrevious;
+			if (forwardNew != forward)
+			{
+				depthAhead = 1;
+			}
+			else if (timeNanos - timePrevious < FAST_NAVIGATION_NANOS)
+			{
+				depthAhead = Math.min(depthAhead + 1, Math.max(maxAhead, 1));
+			}
+			else
+			{
+				depthAhead = Math.max(depthAhead - 1, 1);
+			}
+			forward = forwardNew;
+		}
+		indexPrevious = index;
+		timePrevious = timeNanos;
+		final int step = forward ? 1 : -1;
+		final List<Integer> ahead = new ArrayList<>();
+		for (int k = 1; k <= getDepthAhead(); k++)
+		{
+			final int i = index + k * step;
+			if (i >= 0 && i < size)
+			{
+				ahead.add(i);
+			}
+		}
+		final List<Integer> behind = new ArrayList<>();
+		for (int k = 1; k <= maxBehind; k++)
+		{
+			final int i = index - k * step;
+			if (i >= 0 && i < size)
+			{
+				behind.add(i);
+			}
+		}
+		// nearest neighbours first, then the remaining items ahead:
+		final List<Integer> result = new ArrayList<>(ahead.size() + behind.size());
+		if (!ahead.isEmpty())
+		{
+			result.add(ahead.removeFirst());
+		}
+		if (!behind.isEmpty())
+		{
+			result.add(behind.removeFirst());
+		}
+		result.addAll(ahead);
+		result.addAll(behind);
+		return result;
+	}
+}
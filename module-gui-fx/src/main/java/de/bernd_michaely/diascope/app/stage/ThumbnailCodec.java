@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2026 Bernd Michaely (info@bernd-michaely.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.bernd_michaely.diascope.app.stage;
+
+import de.bernd_michaely.diascope.app.util.io.ByteBufferInputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+
+/// Encoding and decoding of thumbnails in a compact form. Opaque thumbnails
+/// are encoded as JPEG, thumbnails with transparency as PNG.
+///
+/// @author Bernd Michaely (info@bernd-michaely.de)
+///
+final class ThumbnailCodec
+{
+	/// The JPEG compression quality.
+	static final float JPEG_QUALITY = 0.85f;
+
+	private ThumbnailCodec()
+	{
+	}
+
+	/// Encodes the given thumbnail.
+	///
+	/// @param thumbnail the given thumbnail
+	/// @return a buffer with the encoded thumbnail
+	/// @throws IOException if the thumbnail can not be encoded
+	///
+	static ByteBuffer encode(Image thumbnail) throws IOException
+	{
+		final var pixelReader = thumbnail.getPixelReader();
+		final int width = (int) thumbnail.getWidth();
+		final int height = (int) thumbnail.getHeight();
+		if (pixelReader == null || width <= 0 || height <= 0)
+		{
+			throw new IOException("Thumbnail not readable");
+		}
+		final int[] pixels = new int[width * height];
+		pixelReader.getPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), pixels, 0, width);
+		boolean opaque = true;
+		for (int i = 0; opaque && i < pixels.length; i++)
+		{
+			opaque = (pixels[i] >>> 24) == 0xff;
+		}
+		final var bufferedImage = new BufferedImage(width, height,
+			opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+		bufferedImage.setRGB(0, 0, width, height, pixels, 0, width);
+		final var outputStream = new ByteArrayOutputStream();
+		if (opaque)
+		{
+			writeJpeg(bufferedImage, outputStream);
+		}
+		else if (!ImageIO.write(bufferedImage, "png", outputStream))
+		{
+			throw new IOException("No PNG image writer available");
+		}
+		return ByteBuffer.wrap(outputStream.toByteArray());
+	}
+
+	private static void writeJpeg(BufferedImage bufferedImage, ByteArrayOutputStream outputStream)
+		throws IOException
+	{
+		final var imageWriters = ImageIO.getImageWritersByFormatName("jpeg");
+		if (!imageWriters.hasNext())
+		{
+			throw new IOException("No JPEG image writer available");
+		}
+		final var imageWriter = imageWriters.next();
+		try (final var imageOutputStream = ImageIO.createImageOutputStream(outputStream))
+		{
+			final ImageWriteParam param = imageWriter.getDefaultWriteParam();
+			param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+			param.setCompressionQuality(JPEG_QUALITY);
+			imageWriter.setOutput(imageOutputStream);
+			imageWriter.write(null, new IIOImage(bufferedImage, null, null), param);
+		}
+		finally
+		{
+			imageWriter.dispose();
+		}
+	}
+
+	/// Decodes the given encoded thumbnail.
+	///
+	/// @param data the encoded thumbnail, the buffer position is not changed
+	/// @return the decoded thumbnail, which may be in error state
+	///
+	static Image decode(ByteBuffer data)
+	{
+		return new Image(new ByteBufferInputStream(data));
+	}
+}
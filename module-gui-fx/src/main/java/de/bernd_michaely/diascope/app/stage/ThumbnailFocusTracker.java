@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2026 Bernd Michaely (info@bernd-michaely.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.bernd_michaely.diascope.app.stage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
+import javafx.scene.control.ListView;
+import javafx.scene.control.skin.VirtualFlow;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/// Tracks the visible cell range and the selection of the image list view
+/// and passes the corresponding items to a consumer to prioritise their
+/// thumbnail creation. Updates are coalesced to one per pulse.
+///
+/// @author Bernd Michaely (info@bernd-michaely.de)
+///
+final class ThumbnailFocusTracker
+{
+	private final ListView<ImageGroupDescriptor> listView;
+	private final BiConsumer<List<ImageGroupDescriptor>, @Nullable ImageGroupDescriptor> consumer;
+	private final InvalidationListener listener = _ -> scheduleUpdate();
+	private @Nullable VirtualFlow<?> virtualFlow;
+	private boolean updateScheduled;
+
+	/// Creates a new instance.
+	///
+	/// @param listView the image list view
+	/// @param consumer consumer of the items in focus in descending priority
+	///                 and of the item to continue outwards from
+	///
+	@SuppressWarnings("method.invocation")
+	ThumbnailFocusTracker(ListView<ImageGroupDescriptor> listView,
+		BiConsumer<List<ImageGroupDescriptor>, @Nullable ImageGroupDescriptor> consumer)
+	{
+		this.listView = listView;
+		this.consumer = consumer;
+		listView.getItems().addListener(listener);
+		listView.heightProperty().addListener(listener);
+		listView.skinProperty().addListener(listener);
+		listView.getSelectionModel().selectedIndexProperty().addListener(listener);
+	}
+
+	private void scheduleUpdate()
+	{
+		if (!updateScheduled)
+		{
+			updateScheduled = true;
+			Platform.runLater(this::update);
+		}
+	}
+
+	/// Returns the virtual flow of the list view skin, which is created by
+	/// the skin and is available once the list view is shown.
+	private @Nullable
+	VirtualFlow<?> getVirtualFlow()
+	{
+		if (virtualFlow == null && listView.lookup(".virtual-flow") instanceof VirtualFlow<?> flow)
+		{
+			flow.positionProperty().addListener(listener);
+			virtualFlow = flow;
+		}
+		return virtualFlow;
+	}
+
+	private void update()
+	{
+		updateScheduled = false;
+		final var items = listView.getItems();
+		final int n = items.size();
+		final int indexSelected = listView.getSelectionModel().getSelectedIndex();
+		int indexFirst = -1, indexLast = -1;
+		final var flow = getVirtualFlow();
+		if (flow != null)
+		{
+			final var cellFirst = flow.getFirstVisibleCell();
+			final var cellLast = flow.getLastVisibleCell();
+			if (cellFirst != null && cellLast != null)
+			{
+				indexFirst = Math.max(cellFirst.getIndex(), 0);
+				indexLast = Math.min(cellLast.getIndex(), n - 1);
+			}
+		}
+		final List<ImageGroupDescriptor> focus = new ArrayList<>();
+		if (indexSelected >= 0 && indexSelected < n)
+		{
+			focus.add(items.get(indexSelected));
+		}
+		for (int i = indexFirst; i >= 0 && i <= indexLast; i++)
+		{
+			if (i != indexSelected)
+			{
+				focus.add(items.get(i));
+			}
+		}
+		final boolean selectedVisible = indexSelected >= indexFirst && indexSelected <= indexLast;
+		final int indexCenter = indexFirst >= 0 && !selectedVisible ?
+			(indexFirst + indexLast) / 2 : indexSelected;
+		consumer.accept(focus, indexCenter >= 0 && indexCenter < n ? items.get(indexCenter) : null);
+	}
+}
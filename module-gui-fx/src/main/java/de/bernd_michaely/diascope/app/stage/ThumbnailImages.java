@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2026 Bernd Michaely (info@bernd-michaely.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.bernd_michaely.diascope.app.stage;
+
+import de.bernd_michaely.diascope.app.util.collections.LruCache;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.scene.image.Image;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/// Decoded thumbnail images of the list items.
+///
+/// The list items hold their thumbnails in encoded form only. Images are
+/// decoded on demand for the list cells shown, and the most recently used
+/// images are kept in an LRU cache, so that the memory used grows with the
+/// number of cells shown rather than with the number of list items. Images of
+/// items removed from the list are dropped. This class is to be used on the
+/// JavaFX application thread only.
+///
+/// @author Bernd Michaely (info@bernd-michaely.de)
+///
+final class ThumbnailImages
+{
+	/// The maximum number of decoded images kept.
+	static final int CAPACITY = 256;
+	private final LruCache<ImageGroupDescriptor, Image> cache = new LruCache<>(CAPACITY);
+
+	ThumbnailImages(ObservableList<ImageGroupDescriptor> listItems)
+	{
+		listItems.addListener((ListChangeListener.Change<? extends ImageGroupDescriptor> change) ->
+		{
+			while (change.next())
+			{
+				if (change.wasRemoved())
+				{
+					final var added = change.getAddedSubList();
+					for (var item : change.getRemoved())
+					{
+						// an item replaced by itself keeps its image:
+						if (!added.contains(item))
+						{
+							cache.remove(item);
+						}
+					}
+				}
+			}
+		});
+	}
+
+	/// Returns the thumbnail image of the given list item, decoding it, if
+	/// necessary.
+	///
+	/// @param item the given list item
+	/// @return the thumbnail image or null, if not available
+	///
+	@Nullable
+	Image get(ImageGroupDescriptor item)
+	{
+		return cache.get(item, ThumbnailImages::decode);
+	}
+
+	/// Adds an image already decoded for the given list item.
+	///
+	/// @param item  the given list item
+	/// @param image the thumbnail image of the item
+	///
+	void put(ImageGroupDescriptor item, Image image)
+	{
+		cache.put(item, image);
+	}
+
+	/// Drops the decoded image of the given list item, e.g. because its
+	/// thumbnail has changed.
+	///
+	/// @param item the given list item
+	///
+	void remove(ImageGroupDescriptor item)
+	{
+		cache.remove(item);
+	}
+
+	private static @Nullable
+	Image decode(ImageGroupDescriptor item)
+	{
+		final var data = item.getThumbnailData();
+		if (data == null)
+		{
+			return null;
+		}
+		final Image image = ThumbnailCodec.decode(data);
+		return image.isError() ? null : image;
+	}
+}
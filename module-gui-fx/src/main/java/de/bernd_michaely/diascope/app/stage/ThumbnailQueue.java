@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2026 Bernd Michaely (info@bernd-michaely.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.bernd_michaely.diascope.app.stage;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/// Thread safe queue of list items waiting for their thumbnails to be
+/// created, ordered by priority instead of submission.
+///
+/// Items in focus, that is the selected and the visible items, are taken
+/// first in the given order. The remaining items are taken from the center of
+/// the focus outwards, alternating between both directions, so that items
+/// far off screen are taken last. The items are kept sorted in list order,
+/// which allows to find the neighbours of the center without list indices.
+///
+/// @author Bernd Michaely (info@bernd-michaely.de)
+///
+final class ThumbnailQueue
+{
+	private final Comparator<ImageGroupDescriptor> comparator;
+	private final NavigableMap<ImageGroupDescriptor, Long> pending;
+	private List<ImageGroupDescriptor> focus = List.of();
+	private @Nullable ImageGroupDescriptor center;
+	private boolean takeLower;
+
+	/// An item taken from the queue.
+	///
+	/// @param imageGroupDescriptor the list item
+	/// @param timeSubmitted        the time of submission as given by
+	///                             `System.nanoTime()`
+	///
+	record Entry(ImageGroupDescriptor imageGroupDescriptor, long timeSubmitted)
+	{
+	}
+
+	/// Creates a new instance.
+	///
+	/// @param comparator the comparator defining the list order
+	///
+	ThumbnailQueue(Comparator<ImageGroupDescriptor> comparator)
+	{
+		this.comparator = comparator;
+		this.pending = new TreeMap<>(comparator);
+	}
+
+	/// Adds an item to the queue.
+	///
+	/// @param imageGroupDescriptor the item to add
+	///
+	synchronized void add(ImageGroupDescriptor imageGroupDescriptor)
+	{
+		pending.put(imageGroupDescriptor, System.nanoTime());
+	}
+
+	/// Returns the number of pending items.
+	///
+	/// @return the number of pending items
+	///
+	synchronized int size()
+	{
+		return pending.size();
+	}
+
+	/// Sets the items in focus. Pending items are reprioritised accordingly.
+	///
+	/// @param focus  the items in focus in descending priority
+	/// @param center the item to continue outwards from, when all items in
+	///               focus have been taken, null to continue in list order
+	///
+	synchronized void setFocus(List<ImageGroupDescriptor> focus,
+		@Nullable ImageGroupDescriptor center)
+	{
+		this.focus = List.copyOf(focus);
+		this.center = center;
+	}
+
+	/// Takes the item of highest priority.
+	///
+	/// @return the item of highest priority, or null, if the queue is empty
+	///
+	synchronized @Nullable
+	Entry poll()
+	{
+		for (var item : focus)
+		{
+			final var entry = pending.ceilingEntry(item);
+			if (entry != null && comparator.compare(entry.getKey(), item) == 0)
+			{
+				return remove(entry);
+			}
+		}
+		final var c = center;
+		if (c == null)
+		{
+			final var entry = pending.firstEntry();
+			return entry != null ? remove(entry) : null;
+		}
+		final var higher = pending.ceilingEntry(c);
+		final var lower = pending.lowerEntry(c);
+		takeLower = !takeLower;
+		if (higher != null && (lower == null || !takeLower))
+		{
+			return remove(higher);
+		}
+		else
+		{
+			return lower != null ? remove(lower) : null;
+		}
+	}
+
+	private Entry remove(Map.Entry<ImageGroupDescriptor, Long> entry)
+	{
+		pending.remove(entry.getKey());
+		return new Entry(entry.getKey(), entry.getValue());
+	}
+}
@@ -16,65 +16,352 @@
  */
 package de.bernd_michaely.diascope.app.stage.concurrent;
 
+import de.bernd_michaely.diascope.app.ApplicationConfiguration;
+import de.bernd_michaely.diascope.app.image.OffHeapImage;
+import de.bernd_michaely.diascope.app.util.jfr.CacheEvictionEvent;
+import de.bernd_michaely.diascope.app.util.metrics.LoadMetrics;
+import java.lang.System.Logger;
 import java.nio.file.Path;
-import java.util.Deque;
-import java.util.LinkedList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
 import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import static java.lang.System.Logger.Level.*;
+
 /**
  * A cache to hold LoadedImage items identified by a Path. This cache is not
  * thread safe on its own.
+ * <p>
+ * The cache is bounded by the decoded size of the images in bytes rather than
+ * by the number of entries. Eviction follows a segmented LRU policy: new items
+ * enter a <em>probation</em> segment and are promoted to a <em>protected</em>
+ * segment on a repeated access, so that images visited back and forth survive
+ * a sequential scan through a directory. All operations are O(1).
+ * </p>
+ * <p>
+ * Items leaving the cache by eviction, removal or replacement are passed to a
+ * removal handler, e.g. to release off heap memory deterministically.
+ * </p>
  */
 class ImageCache
 {
+	private static final Logger logger = System.getLogger(ImageCache.class.getName());
 	private static @MonotonicNonNull ImageCache instance;
 	/**
-	 * The maximum capacity of the cache.
+	 * The weight assumed for items without a decoded image, e.g. items which
+	 * are still loading.
+	 */
+	static final long MIN_ITEM_WEIGHT = 1 << 16;
+	/**
+	 * The minimum capacity of the cache in bytes.
 	 */
-	private static final int CAPACITY = 5;
-	private final Deque<ImageContainer> queue = new LinkedList<>();
+	static final long MIN_CAPACITY = 64L << 20;
+	/**
+	 * The share of the capacity reserved for the protected segment.
+	 */
+	private static final double PROTECTED_RATIO = 0.8;
+	private final Map<Path, ImageContainer> probation = new LinkedHashMap<>();
+	private final Map<Path, ImageContainer> protectedSegment = new LinkedHashMap<>();
+	private final Map<Path, Long> weights = new HashMap<>();
+	private final ToLongFunction<ImageContainer> weigher;
+	private final Consumer<ImageContainer> onRemoval;
+	private final long capacity;
+	private final long capacityProtected;
+	private long weightProbation, weightProtected;
+
+	ImageCache(long capacity, ToLongFunction<ImageContainer> weigher)
+	{
+		this(capacity, weigher, _ ->
+		{
+		});
+	}
 
-	private ImageCache()
+	ImageCache(long capacity, ToLongFunction<ImageContainer> weigher,
+		Consumer<ImageContainer> onRemoval)
 	{
+		this.capacity = Math.max(capacity, 0);
+		this.capacityProtected = (long) (this.capacity * PROTECTED_RATIO);
+		this.weigher = weigher;
+		this.onRemoval = onRemoval;
 	}
 
 	static ImageCache getInstance()
 	{
 		if (instance == null)
 		{
-			instance = new ImageCache();
+			final long capacity = getConfiguredCapacity();
+			logger.log(TRACE, () -> "ImageCache capacity: %d MB".formatted(capacity >> 20));
+			instance = new ImageCache(capacity, ImageCache::getDecodedSize,
+				item -> OffHeapImage.release(item.image()));
 		}
 		return instance;
 	}
 
 	/**
-	 * Adds a new item to the head of the queue, replacing an earlier item with
-	 * the same path, if present, and limits the size of the cache to the maximum
-	 * capacity.
+	 * Returns the share of the configured image memory budget for the image
+	 * cache, but at least {@link #MIN_CAPACITY}.
+	 *
+	 * @return the cache capacity in bytes
+	 * @see ApplicationConfiguration.State#getImageMemoryBudget()
+	 */
+	private static long getConfiguredCapacity()
+	{
+		return Math.max(ApplicationConfiguration.getState().getImageCacheCapacity(), MIN_CAPACITY);
+	}
+
+	/**
+	 * Returns the size of the decoded image in bytes, assuming 4 bytes per
+	 * pixel.
+	 *
+	 * @param item the given item
+	 * @return the size of the decoded image in bytes
+	 */
+	static long getDecodedSize(ImageContainer item)
+	{
+		final var image = item.image();
+		final long size = image != null ?
+			4L * (long) image.getWidth() * (long) image.getHeight() : 0;
+		return Math.max(size, MIN_ITEM_WEIGHT);
+	}
+
+	/**
+	 * Returns the capacity of this cache in bytes.
 	 *
-	 * @param imageContainer the item to add
+	 * @return the capacity of this cache in bytes
+	 */
+	long getCapacity()
+	{
+		return capacity;
+	}
+
+	/**
+	 * Returns the summed up weight of all items in bytes.
+	 *
+	 * @return the summed up weight of all items in bytes
+	 */
+	long getWeight()
+	{
+		return weightProbation + weightProtected;
+	}
+
+	/**
+	 * Returns the weight of the item with the given path in bytes.
+	 *
+	 * @param path the given path
+	 * @return the weight of the item in bytes, or zero, if it is not cached
+	 */
+	long getWeight(Path path)
+	{
+		return weights.getOrDefault(path, 0L);
+	}
+
+	/**
+	 * Returns the number of cached items.
+	 *
+	 * @return the number of cached items
+	 */
+	int size()
+	{
+		return weights.size();
+	}
+
+	/**
+	 * Adds a new item, replacing an earlier item with the same path, if
+	 * present, and limits the size of the cache to its capacity. A replaced item
+	 * keeps its segment. The item just added is never evicted, even if it
+	 * exceeds the capacity on its own.
+	 *
+	 * @param item the item to add
 	 */
 	void put(ImageContainer item)
 	{
-		queue.removeLastOccurrence(item);
-		queue.addFirst(item);
-		while (queue.size() > CAPACITY)
+		final Path key = item.path();
+		final long weight = weigher.applyAsLong(item);
+		final Long weightOld = weights.put(key, weight);
+		final @Nullable ImageContainer itemOld;
+		if (weightOld != null && protectedSegment.containsKey(key))
+		{
+			itemOld = protectedSegment.put(key, item);
+			weightProtected += weight - weightOld;
+			limitProtectedSegment();
+		}
+		else
 		{
-			queue.removeLast();
+			if (weightOld != null)
+			{
+				itemOld = probation.remove(key);
+				weightProbation -= weightOld;
+			}
+			else
+			{
+				itemOld = null;
+			}
+			probation.put(key, item);
+			weightProbation += weight;
 		}
+		if (itemOld != null && itemOld.image() != item.image())
+		{
+			onRemoval.accept(itemOld);
+		}
+		evict(key);
 	}
 
 	/**
-	 * Finds an item by path.
+	 * Finds an item by path without recording an access.
 	 *
 	 * @param path the path to search for
 	 * @return an optional ImageContainer
 	 */
 	Optional<ImageContainer> find(@Nullable Path path)
 	{
-		return queue.stream().filter(item -> item.path().equals(path)).findFirst();
+		if (path == null)
+		{
+			return Optional.empty();
+		}
+		final var item = protectedSegment.get(path);
+		return Optional.ofNullable(item != null ? item : probation.get(path));
+	}
+
+	/**
+	 * Finds an item by path and records an access. A loaded item hit in the
+	 * probation segment is promoted to the protected segment. The lookup is
+	 * counted as a cache hit, iff a loaded item is found.
+	 *
+	 * @param path the path to search for
+	 * @return an optional ImageContainer
+	 */
+	Optional<ImageContainer> get(@Nullable Path path)
+	{
+		if (path == null)
+		{
+			return Optional.empty();
+		}
+		final var itemProtected = protectedSegment.remove(path);
+		if (itemProtected != null)
+		{
+			protectedSegment.put(path, itemProtected);
+			LoadMetrics.countCacheLookup(itemProtected.loaded());
+			return Optional.of(itemProtected);
+		}
+		final var itemProbation = probation.get(path);
+		final boolean hit = itemProbation != null && itemProbation.loaded();
+		LoadMetrics.countCacheLookup(hit);
+		if (hit)
+		{
+			final long weight = weights.getOrDefault(path, 0L);
+			probation.remove(path);
+			weightProbation -= weight;
+			protectedSegment.put(path, itemProbation);
+			weightProtected += weight;
+			limitProtectedSegment();
+		}
+		return Optional.ofNullable(itemProbation);
+	}
+
+	/**
+	 * Demotes the least recently used protected items to the probation segment
+	 * until the protected segment fits into its share of the capacity.
+	 */
+	private void limitProtectedSegment()
+	{
+		final Iterator<Map.Entry<Path, ImageContainer>> iterator =
+			protectedSegment.entrySet().iterator();
+		while (weightProtected > capacityProtected && protectedSegment.size() > 1)
+		{
+			final var entry = iterator.next();
+			iterator.remove();
+			final long weight = weights.getOrDefault(entry.getKey(), 0L);
+			weightProtected -= weight;
+			probation.put(entry.getKey(), entry.getValue());
+			weightProbation += weight;
+		}
+	}
+
+	/**
+	 * Evicts least recently used items, probation segment first, until the
+	 * cache fits into its capacity.
+	 *
+	 * @param keyRetained the key of an item which must not be evicted
+	 */
+	private void evict(Path keyRetained)
+	{
+		evict(probation, keyRetained, true);
+		evict(protectedSegment, keyRetained, false);
+	}
+
+	private void evict(Map<Path, ImageContainer> segment, Path keyRetained, boolean isProbation)
+	{
+		final Iterator<Map.Entry<Path, ImageContainer>> iterator = segment.entrySet().iterator();
+		while (getWeight() > capacity && iterator.hasNext())
+		{
+			final var entry = iterator.next();
+			final Path key = entry.getKey();
+			if (!key.equals(keyRetained))
+			{
+				iterator.remove();
+				onRemoval.accept(entry.getValue());
+				final Long weight = weights.remove(key);
+				final long w = weight != null ? weight : 0L;
+				if (isProbation)
+				{
+					weightProbation -= w;
+				}
+				else
+				{
+					weightProtected -= w;
+				}
+				logger.log(TRACE, () -> "ImageCache: evicting »%s«".formatted(key));
+				final var event = new CacheEvictionEvent();
+				if (event.shouldCommit())
+				{
+					event.path = key.toString();
+					event.weight = w;
+					event.protectedSegment = !isProbation;
+					event.cacheWeight = getWeight();
+					event.commit();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes the item with the given path, if present.
+	 *
+	 * @param path the given path
+	 * @return true, iff an item has been removed
+	 */
+	boolean remove(Path path)
+	{
+		final Long weight = weights.remove(path);
+		if (weight != null)
+		{
+			final var itemProtected = protectedSegment.remove(path);
+			if (itemProtected != null)
+			{
+				weightProtected -= weight;
+				onRemoval.accept(itemProtected);
+			}
+			else
+			{
+				final var itemProbation = probation.remove(path);
+				if (itemProbation != null)
+				{
+					weightProbation -= weight;
+					onRemoval.accept(itemProbation);
+				}
+			}
+			return true;
+		}
+		else
+		{
+			return false;
+		}
 	}
 
 	/**
@@ -82,6 +369,12 @@ class ImageCache
 	 */
 	void clear()
 	{
-		queue.clear();
+		protectedSegment.values().forEach(onRemoval);
+		probation.values().forEach(onRemoval);
+		probation.clear();
+		protectedSegment.clear();
+		weights.clear();
+		weightProbation = 0;
+		weightProtected = 0;
 	}
 }
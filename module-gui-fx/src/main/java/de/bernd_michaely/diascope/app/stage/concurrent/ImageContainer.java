@@ -9,15 +9,38 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 /**
  * Container for concurrent loading of images.
  *
+ * @param path        the image path
+ * @param requestType the request type
+ * @param image       the image, null, if not loaded
+ * @param loaded      true, iff loading is finished
+ * @param width       the nominal image width, zero for the width of the image
+ * @param height      the nominal image height, zero for the height of the image
  * @author Bernd Michaely (info@bernd-michaely.de)
  */
-record ImageContainer(Path path, RequestType requestType, @Nullable Image image, boolean loaded)
+record ImageContainer(Path path, RequestType requestType, @Nullable Image image, boolean loaded,
+	double width, double height)
 {
 	ImageContainer(Path path, RequestType requestType)
 	{
 		this(path, requestType, null, false);
 	}
 
+	ImageContainer(Path path, RequestType requestType, @Nullable Image image, boolean loaded)
+	{
+		this(path, requestType, image, loaded, 0, 0);
+	}
+
+	/**
+	 * Returns true, iff the image has been decoded in a resolution lower than
+	 * its nominal size.
+	 *
+	 * @return true, iff the image has a reduced resolution
+	 */
+	boolean isReducedResolution()
+	{
+		return image != null && (image.getWidth() < width || image.getHeight() < height);
+	}
+
 	public Path key()
 	{
 		return path();
@@ -16,18 +16,25 @@
  */
 package de.bernd_michaely.diascope.app.stage.concurrent;
 
+import de.bernd_michaely.diascope.app.ApplicationConfiguration;
+import de.bernd_michaely.diascope.app.image.ImageDescriptor;
+import de.bernd_michaely.diascope.app.image.OffHeapImage;
 import de.bernd_michaely.diascope.app.stage.concurrent.ImageLoader.TaskParameters;
 import de.bernd_michaely.diascope.app.util.concurrent.WorkerThreadFactory;
 import java.lang.System.Logger;
 import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.EnumMap;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.PriorityQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.function.Consumer;
+import javafx.geometry.Dimension2D;
 import javafx.scene.image.Image;
 import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
@@ -52,13 +59,31 @@ public class ImageLoader implements Consumer<TaskParameters>, AutoCloseable
 	private final EnumMap<RequestType, ExecutorService> mapExecutorServices;
 	private final EnumMap<RequestType, @Nullable ImageLoaderTask> mapTasks;
 	private final ImageCache imageCache;
+	private final PriorityQueue<TaskParameters> readAheadQueue;
+	private List<Path> readAheadWindow = List.of();
+	private @Nullable Dimension2D previewSize;
+	private boolean fullResolution;
+	private final boolean offHeap;
 
-	public record TaskParameters(@Nullable Path path, RequestType requestType)
+	/**
+	 * Parameters of a load request.
+	 *
+	 * @param path        the path of the image to load
+	 * @param requestType the request type
+	 * @param priority    the priority of READ_AHEAD requests, lower values are
+	 *                    served first
+	 */
+	public record TaskParameters(@Nullable Path path, RequestType requestType, int priority)
 	{
 		public TaskParameters()
 		{
 			this(null, IMMEDIATE);
 		}
+
+		public TaskParameters(@Nullable Path path, RequestType requestType)
+		{
+			this(path, requestType, 0);
+		}
 	}
 
 	public enum RequestType
@@ -71,16 +96,35 @@ public class ImageLoader implements Consumer<TaskParameters>, AutoCloseable
 		}
 	}
 
-	public record TaskResult(@Nullable Path path, @Nullable Image image, boolean state)
+	/**
+	 * Result of a load request.
+	 *
+	 * @param path   the image path
+	 * @param image  the image
+	 * @param state  true, iff the request is finished, false for intermediate
+	 *               results, e.g. a preview
+	 * @param width  the nominal image width, which is greater than the width of
+	 *               the image for a preview
+	 * @param height the nominal image height, which is greater than the height
+	 *               of the image for a preview
+	 */
+	public record TaskResult(@Nullable Path path, @Nullable Image image, boolean state,
+		double width, double height)
 	{
 		TaskResult()
 		{
-			this(null, null, true);
+			this(null, null, true, 0, 0);
 		}
 
 		TaskResult(ImageContainer imageContainer, boolean state)
 		{
-			this(imageContainer.path(), imageContainer.image(), state);
+			this(imageContainer.path(), imageContainer.image(), state,
+				imageContainer.width(), imageContainer.height());
+		}
+
+		TaskResult(ImageLoaderTask.Preview preview)
+		{
+			this(preview.path(), preview.image(), false, preview.width(), preview.height());
 		}
 	}
 
@@ -93,13 +137,117 @@ public class ImageLoader implements Consumer<TaskParameters>, AutoCloseable
 			requestType, Executors.newSingleThreadExecutor(threadFactory)));
 		this.mapTasks = new EnumMap<>(RequestType.class);
 		this.imageCache = ImageCache.getInstance();
+		this.offHeap = ApplicationConfiguration.getState().offHeapImages();
+		this.readAheadQueue = new PriorityQueue<>(Comparator.comparingInt(TaskParameters::priority));
 	}
 
+	/**
+	 * Sets the result handler. An off heap image of a result is retained for
+	 * the handler, which has to release it by
+	 * {@link OffHeapImage#release(Image)} when done with it.
+	 *
+	 * @param onResult the result handler
+	 */
 	public void setOnResult(Consumer<TaskResult> onResult)
 	{
 		this.onResult = onResult;
 	}
 
+	/**
+	 * Sets the size of previews, usually the viewport size in device pixels.
+	 * Images considerably larger than this size are first delivered as a
+	 * preview of reduced resolution by an intermediate result. The current
+	 * image is not decoded again for a larger size, see
+	 * {@link #upgradeCurrentImage()}.
+	 *
+	 * @param width  the preview width, a value less or equal to zero disables
+	 *               previews
+	 * @param height the preview height, a value less or equal to zero disables
+	 *               previews
+	 */
+	public synchronized void setPreviewSize(double width, double height)
+	{
+		this.previewSize = width > 0 && height > 0 ? new Dimension2D(width, height) : null;
+	}
+
+	/**
+	 * Sets the resolution of images to decode. Without full resolution, images
+	 * considerably larger than the preview size are decoded in a reduced
+	 * resolution fitting into the preview size only, which is sufficient to fit
+	 * the image into the viewport. Switching to full resolution upgrades the
+	 * current image, if it has been decoded in reduced resolution.
+	 *
+	 * @param fullResolution true to decode images in full resolution
+	 */
+	public synchronized void setFullResolution(boolean fullResolution)
+	{
+		if (this.fullResolution != fullResolution)
+		{
+			this.fullResolution = fullResolution;
+			logger.log(TRACE, () -> "Full resolution: " + fullResolution);
+			if (fullResolution)
+			{
+				upgradeCurrentImage();
+			}
+		}
+	}
+
+	/**
+	 * Decodes the current image again, if it is loaded in a resolution
+	 * insufficient for the current settings, e.g. after the preview size has
+	 * been enlarged. To be called once the preview size has settled, because
+	 * decoding again is expensive.
+	 */
+	public synchronized void upgradeCurrentImage()
+	{
+		if (!closed && !mapTasks.containsKey(IMMEDIATE))
+		{
+			final var crInfo = getCacheRequestInfo(IMMEDIATE);
+			if (crInfo.upgradeRequired())
+			{
+				// the final result of the upgrade has to be delivered:
+				pathCurrent = null;
+				submitTask(crInfo.pathRequested().get(), IMMEDIATE);
+			}
+		}
+	}
+
+	/**
+	 * Returns true, iff the given loaded item is sufficient for the current
+	 * resolution setting. An image of reduced resolution is sufficient, if it
+	 * covers the image fitted into the current preview size. An image rendered
+	 * in tiles is always sufficient, the tiles provide the full resolution on
+	 * demand.
+	 */
+	private synchronized boolean isResolutionSufficient(ImageContainer imageContainer)
+	{
+		final var image = imageContainer.image();
+		final var size = previewSize;
+		if (image == null || !imageContainer.isReducedResolution() ||
+			ImageDescriptor.isTilingRequired(imageContainer.width(), imageContainer.height()))
+		{
+			return true;
+		}
+		else if (fullResolution)
+		{
+			return false;
+		}
+		else if (size == null)
+		{
+			return true;
+		}
+		else
+		{
+			final double scaleRequired = Math.min(1.0, Math.min(
+				size.getWidth() / imageContainer.width(),
+				size.getHeight() / imageContainer.height()));
+			final double scaleDecoded = Math.max(
+				image.getWidth() / imageContainer.width(),
+				image.getHeight() / imageContainer.height());
+			return scaleDecoded * ImageDescriptor.RESOLUTION_TOLERANCE >= scaleRequired;
+		}
+	}
+
 	@Override
 	public void accept(TaskParameters taskParameters)
 	{
@@ -110,20 +258,31 @@ public class ImageLoader implements Consumer<TaskParameters>, AutoCloseable
 				final var pathRequested = taskParameters.path();
 				final var requestType = taskParameters.requestType();
 				mapPaths.put(requestType, pathRequested);
-				final var imageContainerCached = imageCache.find(pathRequested).orElse(null);
+				final var imageContainerCached = imageCache.get(pathRequested).orElse(null);
 				switch (requestType)
 				{
 					case IMMEDIATE ->
 					{
 						if (!Objects.equals(pathCurrent, pathRequested))
 						{
+							// abort a superseded request:
+							final var taskImmediate = mapTasks.get(IMMEDIATE);
+							if (taskImmediate != null && !taskImmediate.getPath().equals(pathRequested))
+							{
+								taskImmediate.cancel();
+							}
 							if (pathRequested != null)
 							{
 								if (imageContainerCached != null)
 								{
 									if (imageContainerCached.loaded())
 									{
-										deliverTaskResult(new TaskResult(imageContainerCached, true));
+										final boolean sufficient = isResolutionSufficient(imageContainerCached);
+										deliverTaskResult(new TaskResult(imageContainerCached, sufficient));
+										if (!sufficient && !mapTasks.containsKey(requestType))
+										{
+											submitTask(pathRequested, requestType);
+										}
 									}
 								}
 								else if (!mapTasks.containsKey(requestType))
@@ -139,9 +298,10 @@ public class ImageLoader implements Consumer<TaskParameters>, AutoCloseable
 					}
 					case READ_AHEAD ->
 					{
-						if (!mapTasks.containsKey(requestType) && pathRequested != null && imageContainerCached == null)
+						if (pathRequested != null && imageContainerCached == null)
 						{
-							submitTask(pathRequested, requestType);
+							readAheadQueue.add(taskParameters);
+							submitNextReadAhead();
 						}
 					}
 					default -> throw new AssertionError(getClass().getName() +
@@ -151,6 +311,72 @@ public class ImageLoader implements Consumer<TaskParameters>, AutoCloseable
 		}
 	}
 
+	/**
+	 * Replaces all pending read ahead requests by requests for the given paths.
+	 * Pending requests outside of the new window are dropped. The paths are read
+	 * ahead one after another, as long as the images of the window already
+	 * cached do not occupy more than half of the cache capacity.
+	 *
+	 * @param paths the paths to read ahead in descending priority
+	 */
+	public void readAhead(List<Path> paths)
+	{
+		synchronized (this)
+		{
+			if (!closed)
+			{
+				readAheadQueue.clear();
+				readAheadWindow = List.copyOf(paths);
+				for (int i = 0; i < readAheadWindow.size(); i++)
+				{
+					readAheadQueue.add(new TaskParameters(readAheadWindow.get(i), READ_AHEAD, i));
+				}
+				// abort a read ahead request outside of the new window:
+				final var taskReadAhead = mapTasks.get(READ_AHEAD);
+				if (taskReadAhead != null)
+				{
+					final Path pathReadAhead = taskReadAhead.getPath();
+					if (!readAheadWindow.contains(pathReadAhead) &&
+						!pathReadAhead.equals(mapPaths.get(IMMEDIATE)))
+					{
+						taskReadAhead.cancel();
+					}
+				}
+				submitNextReadAhead();
+			}
+		}
+	}
+
+	private synchronized boolean isReadAheadBudgetExhausted()
+	{
+		final long weight = readAheadWindow.stream().mapToLong(imageCache::getWeight).sum();
+		return weight >= imageCache.getCapacity() / 2;
+	}
+
+	private synchronized void submitNextReadAhead()
+	{
+		if (!mapTasks.containsKey(READ_AHEAD))
+		{
+			for (var request = readAheadQueue.poll(); request != null; request = readAheadQueue.poll())
+			{
+				final Path path = request.path();
+				if (path != null && imageCache.find(path).isEmpty())
+				{
+					if (isReadAheadBudgetExhausted())
+					{
+						logger.log(TRACE, () -> "Read ahead budget exhausted");
+						readAheadQueue.clear();
+					}
+					else
+					{
+						submitTask(path, READ_AHEAD);
+					}
+					break;
+				}
+			}
+		}
+	}
+
 	private synchronized boolean submitTask(Path path, RequestType requestType)
 	{
 		try
@@ -158,10 +384,17 @@ public class ImageLoader implements Consumer<TaskParameters>, AutoCloseable
 			final var executorService = mapExecutorServices.get(requestType);
 			if (executorService != null)
 			{
-				final var task = new ImageLoaderTask(path, requestType, this::handleResult);
+				// an image cached in reduced resolution is kept until it is upgraded:
+				final boolean upgrade = imageCache.find(path).filter(ImageContainer::loaded).isPresent();
+				final var task = new ImageLoaderTask(path, requestType,
+					upgrade && fullResolution ? null : previewSize, !fullResolution, offHeap,
+					this::handlePreview, this::handleResult);
 				executorService.submit(task);
 				mapTasks.put(requestType, task);
-				imageCache.put(new ImageContainer(path, requestType));
+				if (!upgrade)
+				{
+					imageCache.put(new ImageContainer(path, requestType));
+				}
 				return true;
 			}
 			else
@@ -180,6 +413,14 @@ public class ImageLoader implements Consumer<TaskParameters>, AutoCloseable
 		Optional<ImageContainer> imageContainerCached,
 		boolean requestInCache, boolean requestFulfilled)
 	{
+		/**
+		 * Returns true, iff the requested image is loaded, but in an
+		 * insufficient resolution.
+		 */
+		boolean upgradeRequired()
+		{
+			return !requestFulfilled && imageContainerCached.filter(ImageContainer::loaded).isPresent();
+		}
 	}
 
 	private synchronized CacheRequestInfo getCacheRequestInfo(RequestType requestType)
@@ -187,17 +428,43 @@ public class ImageLoader implements Consumer<TaskParameters>, AutoCloseable
 		final var pathRequested = mapPaths.get(requestType);
 		final Optional<ImageContainer> imageContainerCached = imageCache.find(pathRequested);
 		final boolean requestInCache = imageContainerCached.isPresent();
-		final boolean requestFulfilled = requestInCache && imageContainerCached.get().loaded();
+		final boolean requestFulfilled = requestInCache && imageContainerCached.get().loaded() &&
+			isResolutionSufficient(imageContainerCached.get());
 		return new CacheRequestInfo(Optional.ofNullable(pathRequested),
 			imageContainerCached, requestInCache, requestFulfilled);
 	}
 
-	private synchronized void handleResult(ImageContainer imageContainer)
+	private synchronized void handlePreview(ImageLoaderTask.Preview preview)
 	{
-		if (!closed)
+		if (!closed && preview.path().equals(mapPaths.get(IMMEDIATE)) &&
+			!getCacheRequestInfo(IMMEDIATE).requestFulfilled())
+		{
+			deliverTaskResult(new TaskResult(preview));
+		}
+	}
+
+	private synchronized void handleResult(ImageLoaderTask.Result result)
+	{
+		if (closed)
+		{
+			OffHeapImage.release(result.imageContainer().image());
+		}
+		else
 		{
 			// handle result
-			imageCache.put(imageContainer);
+			final var imageContainer = result.imageContainer();
+			final boolean cancelled = result.cancelled();
+			if (cancelled)
+			{
+				// remove the placeholder to allow for a new request:
+				imageCache.find(imageContainer.path())
+					.filter(item -> !item.loaded())
+					.ifPresent(item -> imageCache.remove(item.path()));
+			}
+			else
+			{
+				imageCache.put(imageContainer);
+			}
 			mapTasks.remove(imageContainer.requestType());
 			// check IMMEDIATE request
 			if (!Objects.equals(pathCurrent, mapPaths.get(IMMEDIATE)))
@@ -211,13 +478,14 @@ public class ImageLoader implements Consumer<TaskParameters>, AutoCloseable
 					}
 					else
 					{
-						if (imageContainer.requestType() == IMMEDIATE)
+						if (imageContainer.requestType() == IMMEDIATE && !cancelled)
 						{
 							deliverTaskResult(new TaskResult(imageContainer, false));
-							if (!mapTasks.containsKey(IMMEDIATE) && !crInfo.requestInCache())
-							{
-								submitTask(crInfo.pathRequested().get(), IMMEDIATE);
-							}
+						}
+						if (!mapTasks.containsKey(IMMEDIATE) &&
+							(!crInfo.requestInCache() || crInfo.upgradeRequired()))
+						{
+							submitTask(crInfo.pathRequested().get(), IMMEDIATE);
 						}
 					}
 				}
@@ -226,24 +494,23 @@ public class ImageLoader implements Consumer<TaskParameters>, AutoCloseable
 					deliverTaskResult(new TaskResult());
 				}
 			}
-			// check READ_AHEAD request
-			if (!mapTasks.containsKey(READ_AHEAD))
-			{
-				final var crInfo = getCacheRequestInfo(READ_AHEAD);
-				if (crInfo.pathRequested().isPresent() && !crInfo.requestInCache())
-				{
-					submitTask(crInfo.pathRequested().get(), READ_AHEAD);
-				}
-			}
+			// continue with pending READ_AHEAD requests
+			submitNextReadAhead();
 		}
 	}
 
+	/**
+	 * Delivers a result to the result handler. An off heap image is retained
+	 * for the result, the result handler is responsible to release it, when it
+	 * is done with it.
+	 */
 	private synchronized void deliverTaskResult(TaskResult taskResult)
 	{
 		try
 		{
 			if (onResult != null)
 			{
+				OffHeapImage.retain(taskResult.image());
 				onResult.accept(taskResult);
 			}
 			else
@@ -254,7 +521,8 @@ public class ImageLoader implements Consumer<TaskParameters>, AutoCloseable
 		}
 		finally
 		{
-			pathCurrent = taskResult.path();
+			// only a finished result is considered as current:
+			pathCurrent = taskResult.state() ? taskResult.path() : null;
 		}
 	}
 
@@ -266,6 +534,14 @@ public class ImageLoader implements Consumer<TaskParameters>, AutoCloseable
 			if (!closed)
 			{
 				closed = true;
+				readAheadQueue.clear();
+				mapTasks.values().forEach(task ->
+				{
+					if (task != null)
+					{
+						task.cancel();
+					}
+				});
 				mapExecutorServices.values().forEach(ExecutorService::shutdown);
 				mapExecutorServices.values().forEach(executorService ->
 				{
@@ -16,19 +16,46 @@
  */
 package de.bernd_michaely.diascope.app.stage.concurrent;
 
+import de.bernd_michaely.diascope.app.image.ImageDescriptor;
+import de.bernd_michaely.diascope.app.image.OffHeapImage;
 import de.bernd_michaely.diascope.app.stage.concurrent.ImageLoader.RequestType;
-import java.io.BufferedInputStream;
+import de.bernd_michaely.diascope.app.util.io.ByteBufferInputStream;
+import de.bernd_michaely.diascope.app.util.io.FileIngestion;
+import de.bernd_michaely.diascope.app.util.jfr.ImageLoadEvent;
+import de.bernd_michaely.diascope.app.util.metrics.LoadMetrics;
+import java.io.FilterInputStream;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
 import java.util.function.Consumer;
+import javafx.geometry.Dimension2D;
 import javafx.scene.image.Image;
+import javax.imageio.ImageIO;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import static de.bernd_michaely.diascope.app.stage.concurrent.ImageLoader.RequestType.IMMEDIATE;
+import static de.bernd_michaely.diascope.app.util.metrics.LoadMetrics.Metric.*;
 import static java.lang.System.Logger.Level.*;
 
 /**
- * Task for ImageLoader.
+ * Task for ImageLoader. The task may be cancelled cooperatively while it is
+ * running: reading the image file is aborted and the partially decoded image
+ * is discarded.
+ * <p>
+ * If a preview size is given and the image is considerably larger, a preview
+ * of reduced resolution is decoded and passed to the preview consumer first,
+ * before the image is decoded in full resolution. In reduced resolution mode,
+ * the preview is the final result and the full resolution is never decoded.
+ * </p>
+ * <p>
+ * Images too large to be decoded as a whole are never decoded in full
+ * resolution, regardless of the resolution mode and the preview size. A base
+ * image fitting into the preview size, or into a default size without a
+ * preview size, is the final result, and the image is rendered in tiles on
+ * demand.
+ * </p>
  *
  * @author Bernd Michaely (info@bernd-michaely.de)
  */
@@ -37,33 +64,365 @@ class ImageLoaderTask implements Runnable
 	private static final System.Logger logger = System.getLogger(ImageLoaderTask.class.getName());
 	private final Path path;
 	private final RequestType requestType;
-	private final Consumer<ImageContainer> resultConsumer;
+	private final @Nullable Dimension2D previewSize;
+	private final boolean reducedResolution;
+	private final boolean offHeap;
+	private final Consumer<Preview> previewConsumer;
+	private final Consumer<Result> resultConsumer;
+	private final long timeCreated = System.nanoTime();
+	private volatile boolean cancelled;
+	private @Nullable ByteBuffer content;
+	private boolean delivered;
+	/**
+	 * Minimum linear scale factor of image size to preview size to create a
+	 * preview.
+	 */
+	static final double PREVIEW_MIN_SCALE = 2.0;
+	/**
+	 * Maximum width and height of the base image of an image rendered in
+	 * tiles, if no preview size is given.
+	 */
+	static final double TILED_BASE_SIZE = 2048.0;
 
-	ImageLoaderTask(Path path, RequestType requestType, Consumer<ImageContainer> resultConsumer)
+	/**
+	 * A preview of reduced resolution.
+	 *
+	 * @param path   the image path
+	 * @param image  the preview image
+	 * @param width  the width of the full resolution image
+	 * @param height the height of the full resolution image
+	 */
+	record Preview(Path path, Image image, double width, double height)
+	{
+	}
+
+	/**
+	 * The result of an ImageLoaderTask.
+	 *
+	 * @param imageContainer the loaded image, its image is null, if the task has
+	 *                       been cancelled
+	 * @param cancelled      true, iff the task has been cancelled
+	 */
+	record Result(ImageContainer imageContainer, boolean cancelled)
+	{
+	}
+
+	/**
+	 * InputStream which aborts reading as soon as the task is cancelled.
+	 */
+	private class CancellableInputStream extends FilterInputStream
+	{
+		private CancellableInputStream(InputStream inputStream)
+		{
+			super(inputStream);
+		}
+
+		private void checkCancelled() throws InterruptedIOException
+		{
+			if (cancelled)
+			{
+				throw new InterruptedIOException("Loading cancelled: »%s«".formatted(path));
+			}
+		}
+
+		@Override
+		public int read() throws IOException
+		{
+			checkCancelled();
+			return super.read();
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException
+		{
+			checkCancelled();
+			return super.read(b, off, len);
+		}
+
+		@Override
+		public long skip(long n) throws IOException
+		{
+			checkCancelled();
+			return super.skip(n);
+		}
+	}
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param path            the path of the image to load
+	 * @param requestType     the request type
+	 * @param previewSize       the preview size, null to skip the preview
+	 * @param reducedResolution true to finish with the preview, if any
+	 * @param offHeap           true to store the resulting image off heap
+	 * @param previewConsumer   consumer of the preview, if any
+	 * @param resultConsumer    consumer of the result
+	 */
+	ImageLoaderTask(Path path, RequestType requestType, @Nullable Dimension2D previewSize,
+		boolean reducedResolution, boolean offHeap,
+		Consumer<Preview> previewConsumer, Consumer<Result> resultConsumer)
 	{
 		this.path = path;
 		this.requestType = requestType;
+		this.previewSize = previewSize;
+		this.reducedResolution = reducedResolution;
+		this.offHeap = offHeap;
+		this.previewConsumer = previewConsumer;
 		this.resultConsumer = resultConsumer;
 	}
 
-	private static @Nullable
-	Image loadImage(Path path)
+	Path getPath()
 	{
-		try (final var inputStream = new BufferedInputStream(Files.newInputStream(path)))
+		return path;
+	}
+
+	/**
+	 * Cancels this task. If the task is running, loading is aborted at the next
+	 * read of the image file.
+	 */
+	void cancel()
+	{
+		if (!cancelled)
+		{
+			cancelled = true;
+			logger.log(TRACE, () -> "Cancelling %s loading of »%s«".formatted(requestType, path));
+		}
+	}
+
+	boolean isCancelled()
+	{
+		return cancelled;
+	}
+
+	/**
+	 * Returns the content of the image file, which is read only once for all
+	 * decoding steps of this task.
+	 */
+	private ByteBuffer getContent() throws IOException
+	{
+		if (content == null)
 		{
-			logger.log(TRACE, "Loading image »%s«".formatted(path.toAbsolutePath()));
-			return new Image(inputStream);
+			content = FileIngestion.read(path);
+		}
+		return content;
+	}
+
+	/**
+	 * Reads the image size from the image file header without decoding the
+	 * image data.
+	 *
+	 * @param path    the path of the image file
+	 * @param content the content of the image file
+	 * @return the image size, or null, if it can not be determined
+	 */
+	static @Nullable
+	Dimension2D readImageSize(Path path, ByteBuffer content)
+	{
+		try (final var imageInputStream = ImageIO.createImageInputStream(
+			new ByteBufferInputStream(content)))
+		{
+			if (imageInputStream != null)
+			{
+				final var imageReaders = ImageIO.getImageReaders(imageInputStream);
+				if (imageReaders.hasNext())
+				{
+					final var imageReader = imageReaders.next();
+					try
+					{
+						imageReader.setInput(imageInputStream, true, true);
+						return new Dimension2D(imageReader.getWidth(0), imageReader.getHeight(0));
+					}
+					finally
+					{
+						imageReader.dispose();
+					}
+				}
+			}
+			return null;
+		}
+		catch (IOException | RuntimeException ex)
+		{
+			logger.log(TRACE, () -> "Can't read image size of »%s«: %s".formatted(path, ex));
+			return null;
+		}
+	}
+
+	private @Nullable
+	Preview loadPreview(Dimension2D previewSize, Dimension2D imageSize)
+	{
+		if (!cancelled &&
+			imageSize.getWidth() >= PREVIEW_MIN_SCALE * previewSize.getWidth() &&
+			imageSize.getHeight() >= PREVIEW_MIN_SCALE * previewSize.getHeight())
+		{
+			final var preview = loadImage(previewSize);
+			if (preview != null && !preview.isError())
+			{
+				return new Preview(path, preview, imageSize.getWidth(), imageSize.getHeight());
+			}
+		}
+		return null;
+	}
+
+	private @Nullable
+	Image loadImage(@Nullable Dimension2D size)
+	{
+		try (final var inputStream = new CancellableInputStream(
+			new ByteBufferInputStream(getContent())))
+		{
+			logger.log(TRACE, "Loading image »%s«%s".formatted(path.toAbsolutePath(),
+				size != null ? " (preview)" : ""));
+			final long timeStart = System.nanoTime();
+			final var image = size != null ?
+				new Image(inputStream, size.getWidth(), size.getHeight(), true, true) :
+				new Image(inputStream);
+			if (cancelled)
+			{
+				return null;
+			}
+			LoadMetrics.recordSince(DECODE, timeStart);
+			return image;
 		}
 		catch (IOException ex)
 		{
-			logger.log(WARNING, ex);
+			if (!cancelled)
+			{
+				logger.log(WARNING, ex);
+			}
 			return null;
 		}
 	}
 
+	/**
+	 * Moves the pixels of a resulting image off heap, if configured.
+	 */
+	private Image toResultImage(Image image)
+	{
+		return offHeap && !image.isError() ? OffHeapImage.copyOf(image) : image;
+	}
+
 	@Override
 	public void run()
 	{
-		resultConsumer.accept(new ImageContainer(path, requestType, loadImage(path), true));
+		LoadMetrics.recordSince(QUEUE_WAIT, timeCreated);
+		final var event = new ImageLoadEvent();
+		event.begin();
+		try
+		{
+			runTask(event);
+		}
+		catch (RuntimeException | Error ex)
+		{
+			logger.log(WARNING, "Failed to load »%s«".formatted(path), ex);
+		}
+		finally
+		{
+			// the loader waits for a result of every task:
+			if (!delivered)
+			{
+				deliverResult(event, new Result(
+					new ImageContainer(path, requestType, null, true), cancelled));
+			}
+			content = null;
+		}
+	}
+
+	private @Nullable
+	Dimension2D readImageSize()
+	{
+		try
+		{
+			return readImageSize(path, getContent());
+		}
+		catch (IOException ex)
+		{
+			logger.log(TRACE, () -> "Can't read »%s«: %s".formatted(path, ex));
+			return null;
+		}
+	}
+
+	/**
+	 * Commits the given event for the given result and passes the result to
+	 * the result consumer.
+	 */
+	private void deliverResult(ImageLoadEvent event, Result result)
+	{
+		delivered = true;
+		event.end();
+		if (event.shouldCommit())
+		{
+			final var imageContainer = result.imageContainer();
+			final var image = imageContainer.image();
+			final var buffer = content;
+			event.path = path.toString();
+			event.requestType = requestType.name();
+			event.bytes = buffer != null ? buffer.limit() : 0;
+			event.width = (int) (imageContainer.width() > 0 ? imageContainer.width() :
+				image != null ? image.getWidth() : 0);
+			event.height = (int) (imageContainer.height() > 0 ? imageContainer.height() :
+				image != null ? image.getHeight() : 0);
+			event.reducedResolution = imageContainer.isReducedResolution();
+			event.cancelled = result.cancelled();
+			event.commit();
+		}
+		resultConsumer.accept(result);
+	}
+
+	/**
+	 * Returns the size to fit the base image of an image rendered in tiles
+	 * into, limited to the size of images decodable as a whole.
+	 */
+	private Dimension2D getTiledBaseSize()
+	{
+		final double maxSize = ImageDescriptor.TILING_MIN_SIZE;
+		return previewSize != null ?
+			new Dimension2D(Math.min(previewSize.getWidth(), maxSize),
+				Math.min(previewSize.getHeight(), maxSize)) :
+			new Dimension2D(TILED_BASE_SIZE, TILED_BASE_SIZE);
+	}
+
+	/**
+	 * Loads the base image of an image too large to be decoded as a whole,
+	 * which is rendered in tiles on top of the base image.
+	 */
+	private void runTaskTiled(ImageLoadEvent event, Dimension2D imageSize)
+	{
+		final @Nullable Image imageLoaded = cancelled ? null : loadImage(getTiledBaseSize());
+		final @Nullable Image image = imageLoaded != null ? toResultImage(imageLoaded) : null;
+		final var imageContainer = image != null && !image.isError() ?
+			new ImageContainer(path, requestType, image, true, imageSize.getWidth(), imageSize.getHeight()) :
+			new ImageContainer(path, requestType, image, true);
+		deliverResult(event, new Result(imageContainer, image == null && cancelled));
+	}
+
+	private void runTask(ImageLoadEvent event)
+	{
+		// the image size is required to decide on tiling independent of previews:
+		final @Nullable Dimension2D imageSize = cancelled ? null : readImageSize();
+		if (imageSize != null &&
+			ImageDescriptor.isTilingRequired(imageSize.getWidth(), imageSize.getHeight()))
+		{
+			runTaskTiled(event, imageSize);
+			return;
+		}
+		final @Nullable Preview preview = previewSize != null && imageSize != null &&
+			(reducedResolution || requestType == IMMEDIATE) ? loadPreview(previewSize, imageSize) : null;
+		if (preview != null && reducedResolution)
+		{
+			deliverResult(event, new Result(new ImageContainer(path, requestType,
+				toResultImage(preview.image()), true, preview.width(), preview.height()), false));
+		}
+		else
+		{
+			if (preview != null)
+			{
+				previewConsumer.accept(preview);
+			}
+			final @Nullable Image imageLoaded = cancelled ? null : loadImage(null);
+			final @Nullable Image image = imageLoaded != null ? toResultImage(imageLoaded) : null;
+			// an image completely loaded before cancellation is kept:
+			final boolean isCancelled = image == null && cancelled;
+			deliverResult(event, new Result(
+				new ImageContainer(path, requestType, image, true), isCancelled));
+		}
 	}
 }
@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2026 Bernd Michaely (info@bernd-michaely.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.bernd_michaely.diascope.app.util.collections;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/// A cache bounded by the total weight of its entries, evicting the least
+/// recently used entries. By default, each entry weighs one, so that the
+/// cache is bounded by the number of entries. The entry added last is never
+/// evicted, even if its weight alone exceeds the capacity. This class is not
+/// thread safe.
+///
+/// @param <K> the key type
+/// @param <V> the value type
+/// @author Bernd Michaely (info@bernd-michaely.de)
+///
+public class LruCache<K, V>
+{
+	private final long capacity;
+	private final ToLongFunction<? super V> weigher;
+	private final Map<K, V> map = new LinkedHashMap<>(16, 0.75f, true);
+	private long weight;
+
+	/// Creates a new instance bounded by the number of entries.
+	///
+	/// @param capacity the maximum number of entries
+	/// @throws IllegalArgumentException if the capacity is not positive
+	///
+	public LruCache(int capacity)
+	{
+		this(capacity, _ -> 1);
+	}
+
+	/// Creates a new instance bounded by the total weight of the entries.
+	///
+	/// @param capacity the maximum total weight of the entries
+	/// @param weigher  the function to determine the weight of a value, which
+	///                 must not change while the value is cached
+	/// @throws IllegalArgumentException if the capacity is not positive
+	///
+	public LruCache(long capacity, ToLongFunction<? super V> weigher)
+	{
+		if (capacity <= 0)
+		{
+			throw new IllegalArgumentException("Invalid capacity: " + capacity);
+		}
+		this.capacity = capacity;
+		this.weigher = weigher;
+	}
+
+	/// Returns the maximum total weight of the entries.
+	///
+	/// @return the maximum total weight of the entries
+	///
+	public long getCapacity()
+	{
+		return capacity;
+	}
+
+	/// Returns the total weight of the entries.
+	///
+	/// @return the total weight of the entries
+	///
+	public long getWeight()
+	{
+		return weight;
+	}
+
+	/// Returns the number of entries.
+	///
+	/// @return the number of entries
+	///
+	public int size()
+	{
+		return map.size();
+	}
+
+	/// Returns the value for the given key and records an access.
+	///
+	/// @param key the given key
+	/// @return the value or null, if not present
+	///
+	public @Nullable
+	V get(K key)
+	{
+		return map.get(key);
+	}
+
+	/// Returns the value for the given key, creating it, if not present. The
+	/// access is recorded. Null values created are not added.
+	///
+	/// @param key    the given key
+	/// @param loader the function to create a missing value
+	/// @return the value or null, if the loader returned null
+	///
+	public @Nullable
+	V get(K key, Function<? super K, ? extends @Nullable V> loader)
+	{
+		final V value = map.get(key);
+		if (value != null)
+		{
+			return value;
+		}
+		final V valueNew = loader.apply(key);
+		if (valueNew != null)
+		{
+			put(key, valueNew);
+		}
+		return valueNew;
+	}
+
+	/// Adds or replaces the value for the given key, evicting the least
+	/// recently used entries, while the capacity is exceeded.
+	///
+	/// @param key   the given key
+	/// @param value the value
+	///
+	public void put(K key, V value)
+	{
+		final V valueOld = map.put(key, value);
+		if (valueOld != null)
+		{
+			weight -= weigher.applyAsLong(valueOld);
+		}
+		weight += weigher.applyAsLong(value);
+		final var iterator = map.entrySet().iterator();
+		while (weight > capacity && iterator.hasNext())
+		{
+			final var entry = iterator.next();
+			if (!entry.getKey().equals(key))
+			{
+				weight -= weigher.applyAsLong(entry.getValue());
+				iterator.remove();
+			}
+		}
+	}
+
+	/// Removes the value for the given key.
+	///
+	/// @param key the given key
+	/// @return the removed value or null, if not present
+	///
+	public @Nullable
+	V remove(K key)
+	{
+		final V value = map.remove(key);
+		if (value != null)
+		{
+			weight -= weigher.applyAsLong(value);
+		}
+		return value;
+	}
+
+	/// Removes all entries.
+	public void clear()
+	{
+		map.clear();
+		weight = 0;
+	}
+}
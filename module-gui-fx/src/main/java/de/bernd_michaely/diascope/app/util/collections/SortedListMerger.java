@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2026 Bernd Michaely (info@bernd-michaely.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.bernd_michaely.diascope.app.util.collections;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/// Utility to merge sorted batches of items into a sorted list.
+///
+/// The target list is modified incrementally: each run of consecutive batch
+/// items belonging to the same position is inserted by a single `addAll`
+/// call. For an observable list, this results in one change event per run
+/// instead of a change event per item or a replacement of the whole content,
+/// so that e.g. the selection of a list view is kept.
+///
+/// @author Bernd Michaely (info@bernd-michaely.de)
+///
+public final class SortedListMerger
+{
+	private SortedListMerger()
+	{
+	}
+
+	/// Merges a sorted batch of items into a sorted target list. Items equal to
+	/// existing items are inserted behind them.
+	///
+	/// @param <T>        the item type
+	/// @param target     the sorted target list
+	/// @param batch      the sorted batch of items to insert
+	/// @param comparator the comparator both lists are sorted by
+	/// @return the number of insert operations performed on the target list
+	///
+	public static <T> int merge(List<T> target, List<? extends T> batch,
+		Comparator<? super T> comparator)
+	{
+		int numInserts = 0;
+		int position = 0;
+		int i = 0;
+		final int n = batch.size();
+		while (i < n)
+		{
+			position = getInsertionPoint(target, position, batch.get(i), comparator);
+			int k = i + 1;
+			if (position < target.size())
+			{
+				final T next = target.get(position);
+				while (k < n && comparator.compare(batch.get(k), next) < 0)
+				{
+					k++;
+				}
+			}
+			else
+			{
+				k = n;
+			}
+			target.addAll(position, batch.subList(i, k));
+			numInserts++;
+			position += k - i;
+			i = k;
+		}
+		return numInserts;
+	}
+
+	/// Returns the index of the first item in `target` greater than `item`,
+	/// starting the search at `fromIndex`.
+	private static <T> int getInsertionPoint(List<T> target, int fromIndex, T item,
+		Comparator<? super T> comparator)
+	{
+		final List<T> tail = target.subList(fromIndex, target.size());
+		int index = Collections.binarySearch(tail, item, comparator);
+		if (index >= 0)
+		{
+			while (index < tail.size() && comparator.compare(tail.get(index), item) == 0)
+			{
+				index++;
+			}
+		}
+		else
+		{
+			index = -index - 1;
+		}
+		return fromIndex + index;
+	}
+}
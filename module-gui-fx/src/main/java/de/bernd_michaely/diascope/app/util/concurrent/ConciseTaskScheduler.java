@@ -16,16 +16,27 @@
  */
 package de.bernd_michaely.diascope.app.util.concurrent;
 
+import de.bernd_michaely.diascope.app.util.jfr.SchedulerFlushEvent;
+import de.bernd_michaely.diascope.app.util.metrics.LoadMetrics;
 import java.lang.System.Logger;
+import java.util.ArrayDeque;
 import java.util.Deque;
-import java.util.LinkedList;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import static de.bernd_michaely.diascope.app.util.metrics.LoadMetrics.Metric.*;
 import static java.lang.System.Logger.Level.*;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.TimeUnit.*;
@@ -33,6 +44,31 @@ import static java.util.concurrent.TimeUnit.*;
 /**
  * Class implementing a platform task scheduler which collects tasks to pass
  * them in a concise way to avoid to exhaust the platform queue.
+ * <p>
+ * The scheduler supports two delivery modes:
+ * </p>
+ * <ul>
+ * <li>Polling: the collected tasks are passed to a task consumer in fixed
+ * intervals, see {@link #ConciseTaskScheduler(int, Consumer)}.</li>
+ * <li>Pulse aligned: the collected tasks are run on the JavaFX application
+ * thread by an {@link AnimationTimer}, that is once per frame, within a
+ * time budget per frame. Tasks exceeding the budget are carried over to the
+ * next frame, so that a large batch of tasks never stalls rendering. The
+ * timer runs only while tasks are pending, see
+ * {@link #createPulseAligned(long)}.</li>
+ * </ul>
+ * <p>
+ * Submitting tasks is lock free: tasks are handed off by a non-blocking
+ * queue, and only the producer finding the consumer side idle activates it.
+ * The consumer side drains the queue in batches and deactivates itself, when
+ * the queue is empty. In the pulse aligned mode, the queue is drained
+ * directly without allocating a batch.
+ * </p>
+ * <p>
+ * Tasks may be submitted with a key, see {@link #submit(Object, Runnable)}.
+ * A keyed task replaces a pending task with the same key, so that e.g. only
+ * the latest of many progress updates reaches the platform thread.
+ * </p>
  *
  * @author Bernd Michaely (info@bernd-michaely.de)
  */
@@ -42,12 +78,24 @@ public final class ConciseTaskScheduler implements AutoCloseable
 	 * Default scheduling time in milliseconds.
 	 */
 	public static final int DEFAULT_SCHEDULING_TIME = 100;
+	/**
+	 * Default time budget per frame in nanoseconds for the pulse aligned mode.
+	 */
+	public static final long DEFAULT_FRAME_BUDGET_NANOS = 4_000_000L;
 	private static final Logger logger = System.getLogger(ConciseTaskScheduler.class.getName());
 	private final int schedulingTime;
-	private final Consumer<Deque<Runnable>> scheduledTasksConsumer;
-	private final ScheduledExecutorService scheduledExecutorService;
-	private @Nullable ScheduledFuture<?> scheduledFuture;
-	private @Nullable Deque<Runnable> scheduledTasks;
+	private final @Nullable Consumer<Deque<Runnable>> scheduledTasksConsumer;
+	private final @Nullable ScheduledExecutorService scheduledExecutorService;
+	private final @Nullable PulseTimer pulseTimer;
+	private final Queue<Runnable> scheduledTasks = new ConcurrentLinkedQueue<>();
+	private final Map<Object, Runnable> keyedTasks = new ConcurrentHashMap<>();
+	/**
+	 * True, while the consumer side is active, that is an exchange is
+	 * scheduled or the pulse timer is running.
+	 */
+	private final AtomicBoolean active = new AtomicBoolean();
+	private volatile @Nullable ScheduledFuture<?> scheduledFuture;
+	private volatile long timeFirstSubmitted;
 	private volatile boolean closed = false;
 	private volatile int counterScheduledTaskCreation;
 
@@ -84,6 +132,33 @@ public final class ConciseTaskScheduler implements AutoCloseable
 			"scheduledTasksConsumer is null");
 		this.scheduledExecutorService = Executors.newScheduledThreadPool(0,
 			WorkerThreadFactory.createInstance(getClass().getName()));
+		this.pulseTimer = null;
+	}
+
+	@SuppressWarnings("method.invocation")
+	private ConciseTaskScheduler(long frameBudgetNanos)
+	{
+		this.schedulingTime = 0;
+		this.scheduledTasksConsumer = null;
+		this.scheduledExecutorService = null;
+		this.pulseTimer = new PulseTimer(frameBudgetNanos > 0 ?
+			frameBudgetNanos : DEFAULT_FRAME_BUDGET_NANOS);
+	}
+
+	/**
+	 * Creates a new instance running the tasks on the JavaFX application
+	 * thread aligned to the pulse. In each frame, pending tasks are run until
+	 * the time budget is exhausted, but at least one task. The remaining tasks
+	 * are carried over to the next frame.
+	 *
+	 * @param frameBudgetNanos the time budget per frame in nanoseconds (a value
+	 *                         less or equal to zero will be treated as
+	 *                         {@link #DEFAULT_FRAME_BUDGET_NANOS})
+	 * @return the new instance
+	 */
+	public static ConciseTaskScheduler createPulseAligned(long frameBudgetNanos)
+	{
+		return new ConciseTaskScheduler(frameBudgetNanos);
 	}
 
 	/**
@@ -96,10 +171,21 @@ public final class ConciseTaskScheduler implements AutoCloseable
 		return closed;
 	}
 
+	/**
+	 * Returns true, if the tasks are run aligned to the JavaFX pulse.
+	 *
+	 * @return true, if the tasks are run aligned to the JavaFX pulse
+	 */
+	public boolean isPulseAligned()
+	{
+		return pulseTimer != null;
+	}
+
 	/**
 	 * Returns the scheduling time in milliseconds.
 	 *
-	 * @return the scheduling time in milliseconds
+	 * @return the scheduling time in milliseconds, or zero in the pulse aligned
+	 *         mode
 	 */
 	public int getSchedulingTime()
 	{
@@ -108,79 +194,281 @@ public final class ConciseTaskScheduler implements AutoCloseable
 
 	/**
 	 * Submits a new task. If this task scheduler is closed, the task is ignored.
+	 * This method does not block.
 	 *
 	 * @param task the task to submit
 	 * @return true, if the task was submitted
 	 */
 	public boolean submit(Runnable task)
 	{
-		synchronized (this)
+		final boolean result = !closed;
+		if (result)
 		{
-			final boolean result = !closed;
-			if (result)
+			scheduledTasks.offer(task);
+			if (!active.get() && active.compareAndSet(false, true))
 			{
-				if (scheduledTasks == null)
-				{
-					scheduledTasks = new LinkedList<>();
-				}
-				scheduledTasks.addLast(task);
-				if (scheduledFuture == null)
-				{
-					logger.log(TRACE, () ->
-						" → creating new scheduled task #" + ++counterScheduledTaskCreation);
-					scheduledFuture = scheduledExecutorService.scheduleWithFixedDelay(
-						this::exchange, 0, schedulingTime, MILLISECONDS);
-				}
+				timeFirstSubmitted = System.nanoTime();
+				activate(0);
 			}
-			else
+		}
+		else
+		{
+			logger.log(WARNING, "Ignoring submitted task for closed " + getClass().getName());
+		}
+		return result;
+	}
+
+	/**
+	 * Submits a new task with a key, replacing a pending task with the same
+	 * key (last write wins). The task runs at the position of the first task
+	 * submitted for the key since the last run, that is keyed tasks are not
+	 * delayed by replacement. If this task scheduler is closed, the task is
+	 * ignored. This method does not block.
+	 *
+	 * @param key  the key, compared by equals
+	 * @param task the task to submit
+	 * @return true, if the task was submitted
+	 */
+	public boolean submit(Object key, Runnable task)
+	{
+		// only the first pending task of a key takes a place in the queue:
+		if (!closed && keyedTasks.put(key, task) != null)
+		{
+			return true;
+		}
+		return submit(() -> runKeyed(key));
+	}
+
+	private void runKeyed(Object key)
+	{
+		final Runnable task = keyedTasks.remove(key);
+		if (task != null)
+		{
+			task.run();
+		}
+	}
+
+	/**
+	 * Activates the consumer side. To be called by the owner of the active
+	 * flag only.
+	 *
+	 * @param delay the delay of the next exchange in milliseconds
+	 */
+	private void activate(long delay)
+	{
+		if (pulseTimer != null)
+		{
+			pulseTimer.activate();
+		}
+		else if (scheduledExecutorService != null && !closed)
+		{
+			if (delay == 0)
+			{
+				logger.log(TRACE, () ->
+					" → creating new scheduled task #" + ++counterScheduledTaskCreation);
+			}
+			try
+			{
+				scheduledFuture = scheduledExecutorService.schedule(this::exchange, delay, MILLISECONDS);
+			}
+			catch (RejectedExecutionException ex)
 			{
-				logger.log(WARNING, "Ignoring submitted task for closed " + getClass().getName());
+				// closed concurrently
+				logger.log(TRACE, () -> "Not scheduling for closed " + getClass().getName());
 			}
-			return result;
 		}
 	}
 
+	/**
+	 * Deactivates the consumer side, if no tasks are pending. A producer
+	 * submitting a task concurrently either sees the consumer side inactive
+	 * and activates it on its own, or the task is seen here.
+	 *
+	 * @return true, if deactivated, false, if tasks are pending and the
+	 *         consumer side is to remain active
+	 */
+	private boolean deactivate()
+	{
+		active.set(false);
+		return scheduledTasks.isEmpty() || !active.compareAndSet(false, true);
+	}
+
+	/**
+	 * Records the time the first task of an activation has been waiting.
+	 *
+	 * @return the wait time in nanoseconds or zero, if already recorded
+	 */
+	private long recordWaitTime()
+	{
+		final long timeFirst = timeFirstSubmitted;
+		if (timeFirst != 0)
+		{
+			timeFirstSubmitted = 0;
+			final long waitTime = System.nanoTime() - timeFirst;
+			LoadMetrics.record(SCHEDULER_WAIT, waitTime);
+			return waitTime;
+		}
+		return 0;
+	}
+
+	/**
+	 * Drains the pending tasks into a new batch.
+	 */
+	private Deque<Runnable> drain()
+	{
+		final Deque<Runnable> tasks = new ArrayDeque<>();
+		for (Runnable task = scheduledTasks.poll(); task != null; task = scheduledTasks.poll())
+		{
+			tasks.addLast(task);
+		}
+		return tasks;
+	}
+
 	private void exchange()
 	{
 		synchronized (this)
 		{
+			boolean isActive = true;
 			try
 			{
-				final var tasks = scheduledTasks;
-				scheduledTasks = null;
-				if (tasks != null && !tasks.isEmpty())
+				final var tasks = drain();
+				if (!tasks.isEmpty())
 				{
+					final long waitTime = recordWaitTime();
+					final int numTasks = tasks.size();
+					LoadMetrics.record(SCHEDULER_BATCH, numTasks);
+					final var event = new SchedulerFlushEvent();
+					event.begin();
 					if (scheduledTasksConsumer != null)
 					{
 						scheduledTasksConsumer.accept(tasks);
 					}
+					event.end();
+					if (event.shouldCommit())
+					{
+						event.tasks = numTasks;
+						event.waitTime = waitTime;
+						event.commit();
+					}
 				}
 				else
 				{
-					if (scheduledFuture != null)
-					{
-						try
-						{
-							scheduledFuture.cancel(false);
-						}
-						finally
-						{
-							scheduledFuture = null;
-						}
-					}
+					isActive = !deactivate();
 				}
 			}
 			catch (RuntimeException ex)
 			{
-				// prevent executor service from being canceled
+				// keep the consumer side active for the remaining tasks
 				logger.log(WARNING, getClass().getName() + "::exchange", ex);
 			}
+			finally
+			{
+				if (isActive)
+				{
+					activate(schedulingTime);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Timer to run the tasks once per frame within a time budget.
+	 */
+	private final class PulseTimer extends AnimationTimer
+	{
+		private final long frameBudgetNanos;
+
+		private PulseTimer(long frameBudgetNanos)
+		{
+			this.frameBudgetNanos = frameBudgetNanos;
+		}
+
+		/**
+		 * Starts the timer. To be called by the owner of the active flag only.
+		 */
+		private void activate()
+		{
+			if (Platform.isFxApplicationThread())
+			{
+				start();
+			}
+			else
+			{
+				Platform.runLater(this::start);
+			}
+		}
+
+		@Override
+		public void handle(long now)
+		{
+			final long timeStart = System.nanoTime();
+			final long waitTime = recordWaitTime();
+			final var event = new SchedulerFlushEvent();
+			event.begin();
+			int numTasks = 0;
+			try
+			{
+				Runnable task = scheduledTasks.poll();
+				while (task != null)
+				{
+					numTasks++;
+					task.run();
+					// remaining tasks are carried over to the next frame:
+					task = System.nanoTime() - timeStart < frameBudgetNanos ? scheduledTasks.poll() : null;
+				}
+			}
+			catch (RuntimeException ex)
+			{
+				// keep the timer running for the remaining tasks
+				logger.log(WARNING, getClass().getName() + "::handle", ex);
+			}
+			event.end();
+			if (numTasks > 0)
+			{
+				LoadMetrics.record(SCHEDULER_BATCH, numTasks);
+			}
+			if (event.shouldCommit())
+			{
+				event.tasks = numTasks;
+				event.waitTime = waitTime;
+				event.carriedOver = scheduledTasks.size();
+				event.commit();
+			}
+			if (scheduledTasks.isEmpty() && deactivate())
+			{
+				stop();
+			}
+		}
+
+		/**
+		 * Stops the timer and runs all remaining tasks without a time budget.
+		 */
+		private void runRemaining()
+		{
+			final Runnable runnable = () ->
+			{
+				stop();
+				for (Runnable task = scheduledTasks.poll(); task != null; task = scheduledTasks.poll())
+				{
+					task.run();
+				}
+			};
+			if (Platform.isFxApplicationThread())
+			{
+				runnable.run();
+			}
+			else
+			{
+				Platform.runLater(runnable);
+			}
 		}
 	}
 
 	/**
 	 * Closes this task scheduler. Remaining tasks are executed, and this method
-	 * waits blocking for the termination.
+	 * waits blocking for the termination. In the pulse aligned mode, the
+	 * remaining tasks are executed on the JavaFX application thread, without
+	 * waiting, if not called on that thread.
 	 *
 	 * @throws TimeoutException if closing is interrupted by timeout
 	 */
@@ -191,19 +479,37 @@ public final class ConciseTaskScheduler implements AutoCloseable
 		{
 			if (!closed)
 			{
+				closed = true;
 				try
 				{
-					if (scheduledFuture != null)
+					final var future = scheduledFuture;
+					if (future != null)
+					{
+						future.cancel(true);
+					}
+					if (scheduledExecutorService != null)
 					{
-						scheduledFuture.cancel(true);
 						scheduledExecutorService.shutdownNow();
 					}
 				}
 				finally
 				{
 					// process remaining tasks:
-					exchange();
-					closed = true;
+					if (pulseTimer != null)
+					{
+						if (!scheduledTasks.isEmpty())
+						{
+							pulseTimer.runRemaining();
+						}
+					}
+					else
+					{
+						final var tasks = drain();
+						if (!tasks.isEmpty() && scheduledTasksConsumer != null)
+						{
+							scheduledTasksConsumer.accept(tasks);
+						}
+					}
 				}
 			}
 		}
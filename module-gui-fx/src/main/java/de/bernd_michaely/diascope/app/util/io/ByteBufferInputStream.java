@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2026 Bernd Michaely (info@bernd-michaely.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.bernd_michaely.diascope.app.util.io;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/// An InputStream reading from a ByteBuffer. The position of the given buffer
+/// is not changed, the stream reads from a duplicate. This class is not thread
+/// safe.
+///
+/// @author Bernd Michaely (info@bernd-michaely.de)
+///
+public class ByteBufferInputStream extends InputStream
+{
+	private final ByteBuffer buffer;
+	private int mark;
+
+	/// Creates a new instance reading the remaining bytes of the given buffer.
+	///
+	/// @param buffer the given buffer
+	///
+	public ByteBufferInputStream(ByteBuffer buffer)
+	{
+		this.buffer = buffer.duplicate();
+		this.mark = this.buffer.position();
+	}
+
+	@Override
+	public int read()
+	{
+		return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len)
+	{
+		Objects.checkFromIndexSize(off, len, b.length);
+		if (len == 0)
+		{
+			return 0;
+		}
+		final int n = Math.min(len, buffer.remaining());
+		if (n == 0)
+		{
+			return -1;
+		}
+		buffer.get(b, off, n);
+		return n;
+	}
+
+	@Override
+	public long skip(long n)
+	{
+		final int k = (int) Math.max(Math.min(n, buffer.remaining()), 0);
+		buffer.position(buffer.position() + k);
+		return k;
+	}
+
+	@Override
+	public int available()
+	{
+		return buffer.remaining();
+	}
+
+	@Override
+	public boolean markSupported()
+	{
+		return true;
+	}
+
+	@Override
+	public void mark(int readlimit)
+	{
+		mark = buffer.position();
+	}
+
+	@Override
+	public void reset()
+	{
+		buffer.position(mark);
+	}
+}
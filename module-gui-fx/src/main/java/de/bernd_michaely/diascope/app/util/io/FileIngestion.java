@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2026 Bernd Michaely (info@bernd-michaely.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.bernd_michaely.diascope.app.util.io;
+
+import de.bernd_michaely.diascope.app.util.metrics.LoadMetrics;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.System.Logger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.LongAdder;
+
+import static de.bernd_michaely.diascope.app.util.metrics.LoadMetrics.Metric.FILE_IO;
+import static java.lang.System.Logger.Level.*;
+import static java.nio.file.StandardOpenOption.READ;
+
+/// Shared ingestion of whole files, e.g. image files to decode.
+///
+/// Instead of many small reads through a buffered stream, a file is read by a
+/// single read of the file size into a heap buffer, or, if it is large, into a
+/// direct buffer outside the heap. The file is read completely, so that the
+/// time of reading is the actual I/O time and decoding works on memory only.
+/// Files are not memory mapped, because a mapped file truncated or replaced
+/// while it is decoded raises an `InternalError` on access. The throughput of
+/// each file is logged and summed up in global statistics.
+///
+/// @author Bernd Michaely (info@bernd-michaely.de)
+///
+public final class FileIngestion
+{
+	private static final Logger logger = System.getLogger(FileIngestion.class.getName());
+	/// Files of at least this size are read into a direct buffer.
+	public static final long DIRECT_MIN_SIZE = 16L << 20;
+	private static final LongAdder totalFiles = new LongAdder();
+	private static final LongAdder totalBytes = new LongAdder();
+	private static final LongAdder totalNanos = new LongAdder();
+
+	/// Summed up ingestion statistics.
+	///
+	/// @param files the number of files read
+	/// @param bytes the number of bytes read
+	/// @param nanos the time spent in nanoseconds
+	///
+	public record Statistics(long files, long bytes, long nanos)
+	{
+		/// Returns the throughput in bytes per second.
+		///
+		/// @return the throughput in bytes per second
+		///
+		public double bytesPerSecond()
+		{
+			return nanos > 0 ? bytes * 1e9 / nanos : 0.0;
+		}
+	}
+
+	private FileIngestion()
+	{
+	}
+
+	/// Reads the whole content of the given file.
+	///
+	/// @param path the given file
+	/// @return a buffer with the file content, positioned at zero
+	/// @throws IOException on read errors
+	///
+	public static ByteBuffer read(Path path) throws IOException
+	{
+		final long timeStart = System.nanoTime();
+		final ByteBuffer buffer;
+		try (final var fileChannel = FileChannel.open(path, READ))
+		{
+			final long size = fileChannel.size();
+			if (size > Integer.MAX_VALUE - 8)
+			{
+				throw new IOException("File too large: »%s«".formatted(path));
+			}
+			buffer = size >= DIRECT_MIN_SIZE ?
+				ByteBuffer.allocateDirect((int) size) : ByteBuffer.allocate((int) size);
+			while (buffer.hasRemaining())
+			{
+				if (fileChannel.read(buffer) < 0)
+				{
+					throw new EOFException("File truncated while reading: »%s«".formatted(path));
+				}
+			}
+			buffer.flip();
+		}
+		final long nanos = System.nanoTime() - timeStart;
+		final int bytes = buffer.limit();
+		totalFiles.increment();
+		totalBytes.add(bytes);
+		totalNanos.add(nanos);
+		LoadMetrics.record(FILE_IO, nanos);
+		logger.log(TRACE, () -> "Ingested %d bytes in %.3f ms (%.1f MB/s) from »%s«".formatted(
+			bytes, nanos / 1e6, new Statistics(1, bytes, nanos).bytesPerSecond() / (1 << 20), path));
+		return buffer;
+	}
+
+	/// Returns a stream of the whole content of the given file.
+	///
+	/// @param path the given file
+	/// @return a stream of the file content
+	/// @throws IOException on read errors
+	/// @see #read(Path)
+	///
+	public static InputStream newInputStream(Path path) throws IOException
+	{
+		return new ByteBufferInputStream(read(path));
+	}
+
+	/// Returns the summed up statistics of all files read so far.
+	///
+	/// @return the summed up statistics
+	///
+	public static Statistics getStatistics()
+	{
+		return new Statistics(totalFiles.sum(), totalBytes.sum(), totalNanos.sum());
+	}
+}
@@ -0,0 +1,648 @@
+/*
+ * Copyright (C) 2026 Bernd Michaely (info@bernd-michaely.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.bernd_michaely.diascope.app.util.io;
+
+import de.bernd_michaely.diascope.app.util.concurrent.WorkerThreadFactory;
+import java.io.IOException;
+import java.lang.System.Logger;
+import java.lang.foreign.Arena;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import static java.lang.System.Logger.Level.*;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.*;
+import static java.nio.file.StandardOpenOption.*;
+import static java.util.Objects.requireNonNullElse;
+
+/// Persistent store of encoded thumbnails of the image files of a directory.
+///
+/// The thumbnails of a directory are kept in a single pack file, to which new
+/// thumbnails are appended incrementally. A thumbnail is identified by the
+/// file name, size and last modification time of its image file, so that
+/// thumbnails of modified files are not used. Existing pack files are read
+/// through a memory mapping, that is, thumbnails are not copied to the heap
+/// before they are decoded.
+///
+/// Pack file layout: a header of magic number and version, followed by
+/// records of `[int length][long size][long lastModified][short nameLength]
+/// [name][int dataLength][data]`. A truncated last record, e.g. caused by a
+/// crash, is ignored and overwritten. Records superseded by newer records or
+/// belonging to deleted files are removed by a background compaction, which
+/// is run after closing a modified store.
+///
+/// Only one store at a time writes to a pack file, also across processes:
+/// the writer holds a lock of a separate lock file, because the pack file
+/// itself is replaced by compaction. The lock is acquired before the pack
+/// file is read and is held until the compaction after closing the store is
+/// finished. Stores not acquiring the lock are read only.
+///
+/// @author Bernd Michaely (info@bernd-michaely.de)
+///
+public final class ThumbnailStore implements AutoCloseable
+{
+	private static final Logger logger = System.getLogger(ThumbnailStore.class.getName());
+	/// The magic number of pack files: "DSTP".
+	static final int MAGIC = 0x44535450;
+	/// The version of the pack file layout.
+	static final int VERSION = 1;
+	private static final int HEADER_SIZE = 2 * Integer.BYTES;
+	private static final int RECORD_FIXED_SIZE =
+		2 * Long.BYTES + Short.BYTES + Integer.BYTES;
+	/// Minimum number of bytes to be reclaimed by a compaction.
+	static final long COMPACTION_MIN_WASTE = 1L << 20;
+	private static final String PACK_FILE_EXTENSION = ".pack";
+	private static final String LOCK_FILE_EXTENSION = ".lock";
+	private static final ExecutorService compactionExecutor = Executors.newSingleThreadExecutor(
+		WorkerThreadFactory.createInstance(ThumbnailStore.class.getName()));
+	private static final Map<Path, Future<?>> compactions = new ConcurrentHashMap<>();
+	private final Path packFile;
+	private final @Nullable Path directory;
+	private final Map<String, Entry> index = new HashMap<>();
+	private final Arena arena = Arena.ofShared();
+	private final @Nullable ByteBuffer mappedBuffer;
+	private final @Nullable FileLock writerLock;
+	private @Nullable FileChannel channel;
+	private long endOfData;
+	private long wastedBytes;
+	private boolean modified, closed;
+
+	/// An index entry.
+	///
+	/// @param size         the size of the image file
+	/// @param lastModified the last modification time of the image file
+	/// @param offset       the offset of the record in the pack file
+	/// @param recordSize   the size of the record including its length field
+	/// @param dataOffset   the offset of the thumbnail data in the pack file
+	/// @param dataLength   the length of the thumbnail data
+	/// @param data         the thumbnail data, if appended after mapping
+	///
+	private record Entry(long size, long lastModified, long offset, int recordSize,
+		long dataOffset, int dataLength, @Nullable ByteBuffer data)
+	{
+	}
+
+	/// Opens the store of the given pack file.
+	///
+	/// @param packFile  the pack file, which is created on the first write,
+	///                  if it does not exist
+	/// @param directory the directory of the image files, used by compaction
+	///                  to drop thumbnails of deleted files, null to keep them
+	/// @throws IOException if an existing pack file can not be read
+	///
+	public ThumbnailStore(Path packFile, @Nullable Path directory) throws IOException
+	{
+		awaitCompaction(packFile);
+		this(packFile, directory, tryLockWriter(packFile));
+	}
+
+	@SuppressWarnings("method.invocation")
+	private ThumbnailStore(Path packFile, @Nullable Path directory, @Nullable FileLock writerLock)
+		throws IOException
+	{
+		this.packFile = packFile;
+		this.directory = directory;
+		this.writerLock = writerLock;
+		try
+		{
+			this.mappedBuffer = readIndex();
+		}
+		catch (IOException | RuntimeException ex)
+		{
+			arena.close();
+			if (writerLock != null)
+			{
+				releaseWriterLock(writerLock);
+			}
+			throw ex;
+		}
+	}
+
+	/// Opens the store of the given image directory in the default store
+	/// directory.
+	///
+	/// @param directory the given image directory
+	/// @return the store of the given image directory
+	/// @throws IOException if an existing pack file can not be read
+	///
+	public static ThumbnailStore forDirectory(Path directory) throws IOException
+	{
+		final Path dir = directory.toAbsolutePath().normalize();
+		return new ThumbnailStore(getDefaultStoreDirectory().resolve(
+			getPackFileName(dir.toString())), dir);
+	}
+
+	/// Returns the platform specific default directory of the pack files.
+	///
+	/// @return the default directory of the pack files
+	///
+	static Path getDefaultStoreDirectory()
+	{
+		final String osName = System.getProperty("os.name", "").toLowerCase();
+		final Path userHome = Path.of(requireNonNullElse(System.getProperty("user.home"), ""));
+		final Path cacheDirectory;
+		if (osName.startsWith("windows"))
+		{
+			final String localAppData = System.getenv("LOCALAPPDATA");
+			cacheDirectory = localAppData != null && !localAppData.isBlank() ?
+				Path.of(localAppData) : userHome.resolve("AppData").resolve("Local");
+		}
+		else if (osName.startsWith("mac"))
+		{
+			cacheDirectory = userHome.resolve("Library").resolve("Caches");
+		}
+		else
+		{
+			final String xdgCacheHome = System.getenv("XDG_CACHE_HOME");
+			cacheDirectory = xdgCacheHome != null && !xdgCacheHome.isBlank() ?
+				Path.of(xdgCacheHome) : userHome.resolve(".cache");
+		}
+		return cacheDirectory.resolve("diascope").resolve("thumbnails");
+	}
+
+	/// Returns the pack file name for the given directory name.
+	///
+	/// @param directoryName the given directory name
+	/// @return the pack file name
+	///
+	static String getPackFileName(String directoryName)
+	{
+		try
+		{
+			final byte[] digest = MessageDigest.getInstance("SHA-256").digest(directoryName.getBytes(UTF_8));
+			return HexFormat.of().formatHex(digest, 0, 16) + PACK_FILE_EXTENSION;
+		}
+		catch (NoSuchAlgorithmException ex)
+		{
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	/// Tries to acquire the writer rights of the given pack file.
+	///
+	/// @param packFile the given pack file
+	/// @return the lock of the lock file of the given pack file, or null, if
+	///         held by another store or process
+	///
+	private static @Nullable
+	FileLock tryLockWriter(Path packFile)
+	{
+		@Nullable FileChannel lockChannel = null;
+		try
+		{
+			final Path parent = packFile.getParent();
+			if (parent != null)
+			{
+				Files.createDirectories(parent);
+			}
+			lockChannel = FileChannel.open(
+				packFile.resolveSibling(packFile.getFileName() + LOCK_FILE_EXTENSION), CREATE, WRITE);
+			final FileLock lock = lockChannel.tryLock();
+			if (lock != null)
+			{
+				return lock;
+			}
+			logger.log(TRACE, () -> "Pack file locked by another process: »%s«".formatted(packFile));
+		}
+		catch (IOException | OverlappingFileLockException ex)
+		{
+			logger.log(TRACE, () -> "Pack file not writable: »%s«: %s".formatted(packFile, ex));
+		}
+		if (lockChannel != null)
+		{
+			try
+			{
+				lockChannel.close();
+			}
+			catch (IOException ex)
+			{
+				logger.log(WARNING, ex);
+			}
+		}
+		return null;
+	}
+
+	/// Releases the given writer lock by closing its channel.
+	///
+	/// @param writerLock the given writer lock
+	///
+	private static void releaseWriterLock(FileLock writerLock)
+	{
+		try
+		{
+			writerLock.channel().close();
+		}
+		catch (IOException ex)
+		{
+			logger.log(WARNING, ex);
+		}
+	}
+
+	/// Waits for a running compaction of the given pack file to finish.
+	///
+	/// @param packFile the given pack file
+	///
+	static void awaitCompaction(Path packFile)
+	{
+		final var compaction = compactions.get(packFile);
+		if (compaction != null)
+		{
+			try
+			{
+				compaction.get();
+			}
+			catch (InterruptedException | ExecutionException ex)
+			{
+				logger.log(TRACE, () -> "Compaction of »%s«: %s".formatted(packFile, ex));
+			}
+		}
+	}
+
+	private @Nullable
+	ByteBuffer readIndex() throws IOException
+	{
+		try (final var fileChannel = FileChannel.open(packFile, READ))
+		{
+			final long size = fileChannel.size();
+			if (size < HEADER_SIZE)
+			{
+				return null;
+			}
+			if (size > Integer.MAX_VALUE)
+			{
+				throw new IOException("Pack file too large: »%s«".formatted(packFile));
+			}
+			// mapped into the arena of this store to be unmapped on closing:
+			final ByteBuffer buffer = fileChannel.map(
+				FileChannel.MapMode.READ_ONLY, 0, size, arena).asByteBuffer();
+			if (buffer.getInt(0) != MAGIC || buffer.getInt(Integer.BYTES) != VERSION)
+			{
+				logger.log(WARNING, () -> "Ignoring invalid pack file »%s«".formatted(packFile));
+				return null;
+			}
+			int position = HEADER_SIZE;
+			while (position + Integer.BYTES <= size)
+			{
+				final int length = buffer.getInt(position);
+				final int recordSize = Integer.BYTES + length;
+				if (length < RECORD_FIXED_SIZE || position + (long) recordSize > size)
+				{
+					break;
+				}
+				final long fileSize = buffer.getLong(position + Integer.BYTES);
+				final long lastModified = buffer.getLong(position + Integer.BYTES + Long.BYTES);
+				final int positionName = position + Integer.BYTES + 2 * Long.BYTES;
+				final int nameLength = Short.toUnsignedInt(buffer.getShort(positionName));
+				final int positionData = positionName + Short.BYTES + nameLength + Integer.BYTES;
+				if (positionData > position + recordSize)
+				{
+					break;
+				}
+				final int dataLength = buffer.getInt(positionData - Integer.BYTES);
+				if (positionData + (long) dataLength != position + (long) recordSize)
+				{
+					break;
+				}
+				final byte[] name = new byte[nameLength];
+				buffer.get(positionName + Short.BYTES, name);
+				addEntry(new String(name, UTF_8), new Entry(fileSize, lastModified,
+					position, recordSize, positionData, dataLength, null));
+				position += recordSize;
+			}
+			endOfData = position;
+			if (position < size)
+			{
+				logger.log(TRACE, () -> "Ignoring truncated record in »%s«".formatted(packFile));
+				wastedBytes += size - position;
+			}
+			return buffer;
+		}
+		catch (NoSuchFileException ex)
+		{
+			return null;
+		}
+	}
+
+	private void addEntry(String name, Entry entry)
+	{
+		final var entryOld = index.put(name, entry);
+		if (entryOld != null)
+		{
+			wastedBytes += entryOld.recordSize();
+		}
+	}
+
+	/// Returns the name of the entry of the given image file, that is its path
+	/// relative to the image directory of this store, e.g. for image files of
+	/// subdirectories, or otherwise its file name.
+	///
+	/// @param imageFile the given image file
+	/// @return the name of the entry
+	///
+	public String getEntryName(Path imageFile)
+	{
+		final Path path = imageFile.toAbsolutePath().normalize();
+		if (directory != null && path.startsWith(directory) && !path.equals(directory))
+		{
+			return directory.relativize(path).toString();
+		}
+		final Path fileName = imageFile.getFileName();
+		return fileName != null ? fileName.toString() : "";
+	}
+
+	/// Returns the number of thumbnails.
+	///
+	/// @return the number of thumbnails
+	///
+	public synchronized int size()
+	{
+		return index.size();
+	}
+
+	/// Returns the number of bytes occupied by superseded records.
+	///
+	/// @return the number of bytes occupied by superseded records
+	///
+	synchronized long getWastedBytes()
+	{
+		return wastedBytes;
+	}
+
+	/// Returns the thumbnail of the given image file, if it is stored and up to
+	/// date.
+	///
+	/// @param name         the entry name of the image file, see
+	///                     [#getEntryName(Path)]
+	/// @param size         the size of the image file
+	/// @param lastModified the last modification time of the image file
+	/// @return a read only buffer with the thumbnail data, or null
+	///
+	public synchronized @Nullable
+	ByteBuffer get(String name, long size, long lastModified)
+	{
+		final var entry = closed ? null : index.get(name);
+		if (entry == null || entry.size() != size || entry.lastModified() != lastModified)
+		{
+			return null;
+		}
+		final var data = entry.data();
+		if (data != null)
+		{
+			return data.asReadOnlyBuffer();
+		}
+		final var buffer = mappedBuffer;
+		return buffer != null ?
+			buffer.slice((int) entry.dataOffset(), entry.dataLength()).asReadOnlyBuffer() : null;
+	}
+
+	/// Appends the thumbnail of the given image file, superseding an older
+	/// thumbnail of the same file name. If the pack file is already opened for
+	/// writing by another store, e.g. of a directory reopened quickly or of
+	/// another process, the thumbnail is not stored.
+	///
+	/// @param name         the entry name of the image file, see
+	///                     [#getEntryName(Path)]
+	/// @param size         the size of the image file
+	/// @param lastModified the last modification time of the image file
+	/// @param data         the thumbnail data, the buffer position is not changed
+	/// @throws IOException on write errors
+	///
+	public synchronized void put(String name, long size, long lastModified, ByteBuffer data)
+		throws IOException
+	{
+		if (closed)
+		{
+			throw new IOException("Thumbnail store is closed: »%s«".formatted(packFile));
+		}
+		if (writerLock == null)
+		{
+			return;
+		}
+		final byte[] nameBytes = name.getBytes(UTF_8);
+		if (nameBytes.length > 0xffff)
+		{
+			throw new IOException("File name too long: »%s«".formatted(name));
+		}
+		final int dataLength = data.remaining();
+		final int length = RECORD_FIXED_SIZE + nameBytes.length + dataLength;
+		final int recordSize = Integer.BYTES + length;
+		final ByteBuffer record = ByteBuffer.allocate(recordSize)
+			.putInt(length).putLong(size).putLong(lastModified)
+			.putShort((short) nameBytes.length).put(nameBytes)
+			.putInt(dataLength).put(data.duplicate())
+			.flip();
+		final FileChannel fileChannel = getChannel();
+		final long offset = endOfData;
+		fileChannel.position(offset);
+		while (record.hasRemaining())
+		{
+			fileChannel.write(record);
+		}
+		endOfData = offset + recordSize;
+		modified = true;
+		final ByteBuffer copy = record.slice(recordSize - dataLength, dataLength);
+		addEntry(name, new Entry(size, lastModified, offset, recordSize,
+			offset + recordSize - dataLength, dataLength, copy));
+	}
+
+	private FileChannel getChannel() throws IOException
+	{
+		final var fileChannelOpen = channel;
+		if (fileChannelOpen != null)
+		{
+			return fileChannelOpen;
+		}
+		final Path parent = packFile.getParent();
+		if (parent != null)
+		{
+			Files.createDirectories(parent);
+		}
+		final var fileChannel = FileChannel.open(packFile, CREATE, READ, WRITE);
+		if (endOfData < HEADER_SIZE)
+		{
+			fileChannel.truncate(0);
+			final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip();
+			while (header.hasRemaining())
+			{
+				fileChannel.write(header, header.position());
+			}
+			endOfData = HEADER_SIZE;
+		}
+		else
+		{
+			// drop a truncated record:
+			fileChannel.truncate(endOfData);
+		}
+		channel = fileChannel;
+		return fileChannel;
+	}
+
+	/// Closes this store. If it has been modified, a compaction is scheduled
+	/// in the background.
+	///
+	@Override
+	public synchronized void close()
+	{
+		if (closed)
+		{
+			return;
+		}
+		closed = true;
+		final var fileChannel = channel;
+		channel = null;
+		if (fileChannel != null)
+		{
+			try
+			{
+				fileChannel.close();
+			}
+			catch (IOException ex)
+			{
+				logger.log(WARNING, ex);
+			}
+		}
+		arena.close();
+		final var lock = writerLock;
+		if (lock != null)
+		{
+			if (modified || wastedBytes >= COMPACTION_MIN_WASTE)
+			{
+				// the writer lock is handed over to the compaction:
+				compactions.put(packFile, compactionExecutor.submit(
+					() -> compact(packFile, directory, lock)));
+			}
+			else
+			{
+				releaseWriterLock(lock);
+			}
+		}
+	}
+
+	/// Rewrites the given pack file without superseded records and without
+	/// records of deleted image files, if enough space is reclaimed and the
+	/// pack file is not opened for writing by another store.
+	///
+	/// @param packFile  the given pack file
+	/// @param directory the directory of the image files, null to keep the
+	///                  records of deleted files
+	/// @return true, iff the pack file has been rewritten
+	///
+	static boolean compact(Path packFile, @Nullable Path directory)
+	{
+		final FileLock lock = tryLockWriter(packFile);
+		return lock != null && compact(packFile, directory, lock);
+	}
+
+	/// Compacts the given pack file holding the given writer lock, which is
+	/// released finally.
+	///
+	private static boolean compact(Path packFile, @Nullable Path directory, FileLock writerLock)
+	{
+		try
+		{
+			final List<Entry> live = new ArrayList<>();
+			long wasted;
+			final long size;
+			try (final var store = new ThumbnailStore(packFile, directory, null))
+			{
+				final var buffer = store.mappedBuffer;
+				if (buffer == null)
+				{
+					return false;
+				}
+				size = buffer.capacity();
+				wasted = store.wastedBytes;
+				for (var item : store.index.entrySet())
+				{
+					if (directory == null || Files.exists(directory.resolve(item.getKey())))
+					{
+						live.add(item.getValue());
+					}
+					else
+					{
+						wasted += item.getValue().recordSize();
+					}
+				}
+			}
+			if (wasted < COMPACTION_MIN_WASTE || wasted < size / 4)
+			{
+				return false;
+			}
+			// copy the records in file order without a mapping, which would
+			// prevent replacing the pack file on some platforms:
+			live.sort(Comparator.comparingLong(Entry::offset));
+			final Path packFileNew = packFile.resolveSibling(packFile.getFileName() + ".tmp");
+			try (final var source = FileChannel.open(packFile, READ);
+				final var target = FileChannel.open(packFileNew, CREATE, WRITE, TRUNCATE_EXISTING))
+			{
+				final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip();
+				while (header.hasRemaining())
+				{
+					target.write(header);
+				}
+				for (var entry : live)
+				{
+					long position = entry.offset();
+					long remaining = entry.recordSize();
+					while (remaining > 0)
+					{
+						final long count = source.transferTo(position, remaining, target);
+						if (count <= 0)
+						{
+							throw new IOException("Unexpected end of pack file »%s«".formatted(packFile));
+						}
+						position += count;
+						remaining -= count;
+					}
+				}
+			}
+			Files.move(packFileNew, packFile, REPLACE_EXISTING, ATOMIC_MOVE);
+			final long wastedBytes = wasted;
+			logger.log(TRACE, () -> "Compacted »%s«, reclaimed %d bytes".formatted(packFile, wastedBytes));
+			return true;
+		}
+		catch (IOException | RuntimeException ex)
+		{
+			logger.log(WARNING, "Compaction of »%s« failed".formatted(packFile), ex);
+			return false;
+		}
+		finally
+		{
+			releaseWriterLock(writerLock);
+			compactions.remove(packFile);
+		}
+	}
+}
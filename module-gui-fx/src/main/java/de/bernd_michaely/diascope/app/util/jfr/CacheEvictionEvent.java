@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2026 Bernd Michaely (info@bernd-michaely.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.bernd_michaely.diascope.app.util.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/// JFR event for evicting an image from the image cache.
+///
+/// @author Bernd Michaely (info@bernd-michaely.de)
+///
+@Name(CacheEvictionEvent.NAME)
+@Label("Image Cache Eviction")
+@Description("Eviction of an image from the image cache")
+@Category({FlightRecording.CATEGORY, FlightRecording.CATEGORY_PIPELINE})
+@StackTrace(false)
+public final class CacheEvictionEvent extends jdk.jfr.Event
+{
+	/// The event name.
+	public static final String NAME = FlightRecording.EVENT_PREFIX + "CacheEviction";
+
+	@Label("Path")
+	public String path = "";
+
+	@Label("Weight")
+	@Description("Decoded size of the evicted image")
+	@DataAmount
+	public long weight;
+
+	@Label("Protected")
+	@Description("True, if the image has been evicted from the protected segment")
+	public boolean protectedSegment;
+
+	@Label("Cache Weight")
+	@Description("Summed up weight of the remaining images")
+	@DataAmount
+	public long cacheWeight;
+}
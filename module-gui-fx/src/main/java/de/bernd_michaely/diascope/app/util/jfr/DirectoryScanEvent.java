@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2026 Bernd Michaely (info@bernd-michaely.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.bernd_michaely.diascope.app.util.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/// JFR event for listing the image files of a directory. The duration spans
+/// from the start to the end of the scan.
+///
+/// @author Bernd Michaely (info@bernd-michaely.de)
+///
+@Name(DirectoryScanEvent.NAME)
+@Label("Directory Scan")
+@Description("Listing of the image files of a directory")
+@Category({FlightRecording.CATEGORY, FlightRecording.CATEGORY_PIPELINE})
+@StackTrace(false)
+public final class DirectoryScanEvent extends jdk.jfr.Event
+{
+	/// The event name.
+	public static final String NAME = FlightRecording.EVENT_PREFIX + "DirectoryScan";
+
+	@Label("Directory")
+	public String directory = "";
+
+	@Label("Image Files")
+	@Description("Number of image files found")
+	public int imageFiles;
+
+	@Label("Cancelled")
+	public boolean cancelled;
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2026 Bernd Michaely (info@bernd-michaely.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.bernd_michaely.diascope.app.util.jfr;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.System.Logger;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Optional;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+import static java.lang.System.Logger.Level.*;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/// A JDK Flight Recorder recording using the bundled settings profile, which
+/// enables the Diascope image pipeline events along with a low overhead
+/// selection of JDK events.
+///
+/// @author Bernd Michaely (info@bernd-michaely.de)
+///
+public final class FlightRecording implements AutoCloseable
+{
+	private static final Logger logger = System.getLogger(FlightRecording.class.getName());
+	/// Prefix of the Diascope event names.
+	static final String EVENT_PREFIX = "de.bernd_michaely.diascope.";
+	/// Top level event category.
+	static final String CATEGORY = "Diascope";
+	/// Event category of the image loading pipeline.
+	static final String CATEGORY_PIPELINE = "Image Pipeline";
+	/// Event category of task scheduling.
+	static final String CATEGORY_SCHEDULER = "Scheduling";
+	/// The name of the bundled settings profile.
+	static final String SETTINGS = "diascope.jfc";
+	private static final DateTimeFormatter FORMATTER_FILENAME =
+		DateTimeFormatter.ofPattern("'diascope-'yyyyMMdd-HHmmss'.jfr'");
+	private final Recording recording;
+	private final Path destination;
+
+	private FlightRecording(Recording recording, Path destination)
+	{
+		this.recording = recording;
+		this.destination = destination;
+	}
+
+	/// Reads the bundled settings profile.
+	///
+	/// @return the bundled settings profile
+	/// @throws IOException    if the profile can not be read
+	/// @throws ParseException if the profile is invalid
+	///
+	static Configuration getConfiguration() throws IOException, ParseException
+	{
+		try (final InputStream inputStream = FlightRecording.class.getResourceAsStream(SETTINGS))
+		{
+			if (inputStream == null)
+			{
+				throw new IOException("Missing JFR settings »%s«".formatted(SETTINGS));
+			}
+			return Configuration.create(new InputStreamReader(inputStream, UTF_8));
+		}
+	}
+
+	/// Starts a new recording.
+	///
+	/// @param destination the file to write the recording to, a blank string
+	///                    for a time stamped file in the working directory
+	/// @return the started recording, or empty, if it could not be started
+	///
+	public static Optional<FlightRecording> start(String destination)
+	{
+		final Path path = Path.of(destination.isBlank() ?
+			LocalDateTime.now().format(FORMATTER_FILENAME) : destination).toAbsolutePath();
+		try
+		{
+			final var recording = new Recording(getConfiguration());
+			recording.setName("Diascope");
+			recording.setToDisk(true);
+			recording.setDestination(path);
+			recording.setDumpOnExit(true);
+			recording.start();
+			logger.log(INFO, () -> "Started flight recording to »%s«".formatted(path));
+			return Optional.of(new FlightRecording(recording, path));
+		}
+		catch (IOException | ParseException | IllegalStateException | SecurityException ex)
+		{
+			logger.log(WARNING, "Can't start flight recording", ex);
+			return Optional.empty();
+		}
+	}
+
+	/// Returns the file the recording is written to.
+	///
+	/// @return the file the recording is written to
+	///
+	public Path getDestination()
+	{
+		return destination;
+	}
+
+	/// Stops the recording and writes it to its destination.
+	///
+	@Override
+	public void close()
+	{
+		try
+		{
+			recording.stop();
+			logger.log(INFO, () -> "Flight recording written to »%s«".formatted(destination));
+		}
+		catch (IllegalStateException ex)
+		{
+			logger.log(WARNING, "Can't stop flight recording", ex);
+		}
+		finally
+		{
+			recording.close();
+		}
+	}
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2026 Bernd Michaely (info@bernd-michaely.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.bernd_michaely.diascope.app.util.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/// JFR event for loading an image to be displayed, including reading the
+/// image file, decoding a preview and decoding the image.
+///
+/// @author Bernd Michaely (info@bernd-michaely.de)
+///
+@Name(ImageLoadEvent.NAME)
+@Label("Image Load")
+@Description("Reading and decoding of an image to be displayed")
+@Category({FlightRecording.CATEGORY, FlightRecording.CATEGORY_PIPELINE})
+@StackTrace(false)
+public final class ImageLoadEvent extends jdk.jfr.Event
+{
+	/// The event name.
+	public static final String NAME = FlightRecording.EVENT_PREFIX + "ImageLoad";
+
+	@Label("Path")
+	public String path = "";
+
+	@Label("Request Type")
+	public String requestType = "";
+
+	@Label("File Size")
+	@DataAmount
+	public long bytes;
+
+	@Label("Width")
+	@Description("Width of the full resolution image in pixels")
+	public int width;
+
+	@Label("Height")
+	@Description("Height of the full resolution image in pixels")
+	public int height;
+
+	@Label("Reduced Resolution")
+	@Description("True, if the image has been decoded in reduced resolution only")
+	public boolean reducedResolution;
+
+	@Label("Cancelled")
+	public boolean cancelled;
+}
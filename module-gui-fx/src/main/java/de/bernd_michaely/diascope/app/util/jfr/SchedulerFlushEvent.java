@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2026 Bernd Michaely (info@bernd-michaely.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.bernd_michaely.diascope.app.util.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/// JFR event for passing a batch of collected tasks from a task scheduler to
+/// its consumer.
+///
+/// @author Bernd Michaely (info@bernd-michaely.de)
+///
+@Name(SchedulerFlushEvent.NAME)
+@Label("Scheduler Flush")
+@Description("Hand-off of a batch of collected tasks to the task consumer")
+@Category({FlightRecording.CATEGORY, FlightRecording.CATEGORY_SCHEDULER})
+@StackTrace(false)
+public final class SchedulerFlushEvent extends jdk.jfr.Event
+{
+	/// The event name.
+	public static final String NAME = FlightRecording.EVENT_PREFIX + "SchedulerFlush";
+
+	@Label("Tasks")
+	@Description("Number of tasks in the batch")
+	public int tasks;
+
+	@Label("Wait Time")
+	@Description("Time the oldest task of the batch has been waiting")
+	@Timespan(Timespan.NANOSECONDS)
+	public long waitTime;
+
+	@Label("Carried Over")
+	@Description("Number of tasks carried over to the next frame in the pulse aligned mode")
+	public int carriedOver;
+}
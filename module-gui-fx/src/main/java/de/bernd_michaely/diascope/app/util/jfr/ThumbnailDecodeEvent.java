@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2026 Bernd Michaely (info@bernd-michaely.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.bernd_michaely.diascope.app.util.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/// JFR event for reading and decoding a thumbnail.
+///
+/// @author Bernd Michaely (info@bernd-michaely.de)
+///
+@Name(ThumbnailDecodeEvent.NAME)
+@Label("Thumbnail Decode")
+@Description("Reading and decoding of a thumbnail image")
+@Category({FlightRecording.CATEGORY, FlightRecording.CATEGORY_PIPELINE})
+@StackTrace(false)
+public final class ThumbnailDecodeEvent extends jdk.jfr.Event
+{
+	/// The event name.
+	public static final String NAME = FlightRecording.EVENT_PREFIX + "ThumbnailDecode";
+
+	@Label("Path")
+	public String path = "";
+
+	@Label("Width")
+	@Description("Width of the decoded thumbnail in pixels, zero if not decoded")
+	public int width;
+
+	@Label("Height")
+	@Description("Height of the decoded thumbnail in pixels, zero if not decoded")
+	public int height;
+
+	@Label("Stored")
+	@Description("True, if the thumbnail has been read from the thumbnail store")
+	public boolean stored;
+}
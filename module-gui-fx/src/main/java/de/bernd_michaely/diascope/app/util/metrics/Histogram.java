@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2026 Bernd Michaely (info@bernd-michaely.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.bernd_michaely.diascope.app.util.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/// A thread safe histogram of non-negative values with logarithmic buckets.
+///
+/// Bucket `0` counts the value zero, bucket `i > 0` counts the values in the
+/// range `[2ⁱ⁻¹, 2ⁱ)`. Recording a value is lock free and needs no
+/// allocation, so it is suitable for hot code paths.
+///
+/// @author Bernd Michaely (info@bernd-michaely.de)
+///
+public final class Histogram
+{
+	/// The number of buckets.
+	static final int NUM_BUCKETS = Long.SIZE;
+	private final AtomicLongArray buckets = new AtomicLongArray(NUM_BUCKETS);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+	private final AtomicLong max = new AtomicLong();
+
+	/// A consistent copy of a histogram.
+	///
+	/// @param count   the number of recorded values
+	/// @param sum     the sum of recorded values
+	/// @param max     the maximum recorded value
+	/// @param buckets the bucket counts
+	///
+	public record Snapshot(long count, long sum, long max, long[] buckets)
+	{
+		/// Returns the mean of the recorded values.
+		///
+		/// @return the mean of the recorded values, or zero, if empty
+		///
+		public double mean()
+		{
+			return count > 0 ? (double) sum / count : 0.0;
+		}
+
+		/// Returns an upper bound of the given quantile, which is the upper
+		/// bound of the bucket containing the quantile, but not more than the
+		/// maximum recorded value.
+		///
+		/// @param quantile the quantile in the range `[0, 1]`
+		/// @return an upper bound of the quantile, or zero, if empty
+		///
+		public long quantile(double quantile)
+		{
+			final long total = sumBuckets();
+			if (total == 0)
+			{
+				return 0;
+			}
+			final long rank = Math.max(1, (long) Math.ceil(Math.clamp(quantile, 0.0, 1.0) * total));
+			long cumulated = 0;
+			for (int i = 0; i < buckets.length; i++)
+			{
+				cumulated += buckets[i];
+				if (cumulated >= rank)
+				{
+					return Math.min(getUpperBound(i), max);
+				}
+			}
+			return max;
+		}
+
+		private long sumBuckets()
+		{
+			long total = 0;
+			for (long bucket : buckets)
+			{
+				total += bucket;
+			}
+			return total;
+		}
+	}
+
+	/// Returns the bucket index of the given value.
+	///
+	/// @param value the given value, negative values are treated as zero
+	/// @return the bucket index
+	///
+	static int getBucketIndex(long value)
+	{
+		return value > 0 ? Long.SIZE - Long.numberOfLeadingZeros(value) : 0;
+	}
+
+	/// Returns the largest value counted by the given bucket.
+	///
+	/// @param index the bucket index
+	/// @return the largest value counted by the bucket
+	///
+	static long getUpperBound(int index)
+	{
+		return index >= Long.SIZE - 1 ? Long.MAX_VALUE : (1L << index) - 1;
+	}
+
+	/// Records the given value.
+	///
+	/// @param value the given value, negative values are treated as zero
+	///
+	public void record(long value)
+	{
+		final long v = Math.max(value, 0);
+		buckets.incrementAndGet(getBucketIndex(v));
+		count.increment();
+		sum.add(v);
+		max.accumulateAndGet(v, Math::max);
+	}
+
+	/// Returns a copy of the current state. Values recorded concurrently may
+	/// be partially included.
+	///
+	/// @return a copy of the current state
+	///
+	public Snapshot getSnapshot()
+	{
+		final long[] counts = new long[NUM_BUCKETS];
+		for (int i = 0; i < NUM_BUCKETS; i++)
+		{
+			counts[i] = buckets.get(i);
+		}
+		return new Snapshot(count.sum(), sum.sum(), max.get(), counts);
+	}
+
+	/// Removes all recorded values.
+	///
+	public void reset()
+	{
+		for (int i = 0; i < NUM_BUCKETS; i++)
+		{
+			buckets.set(i, 0);
+		}
+		count.reset();
+		sum.reset();
+		max.set(0);
+	}
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2026 Bernd Michaely (info@bernd-michaely.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.bernd_michaely.diascope.app.util.metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/// Central registry of the image loading pipeline metrics.
+///
+/// Durations are recorded in nanoseconds, counts as plain numbers. All
+/// methods are thread safe and cheap enough to be called unconditionally.
+///
+/// @author Bernd Michaely (info@bernd-michaely.de)
+///
+public final class LoadMetrics
+{
+	private static final Map<Metric, Histogram> histograms = new EnumMap<>(Metric.class);
+	private static final LongAdder cacheHits = new LongAdder();
+	private static final LongAdder cacheMisses = new LongAdder();
+
+	/// The unit of a metric.
+	public enum Unit
+	{
+		/// Durations in nanoseconds.
+		NANOSECONDS,
+		/// Dimensionless counts.
+		COUNT
+	}
+
+	/// The recorded metrics.
+	public enum Metric
+	{
+		/// Time to read an image file into memory.
+		FILE_IO("File I/O", Unit.NANOSECONDS),
+		/// Time to decode an image.
+		DECODE("Image decoding", Unit.NANOSECONDS),
+		/// Time an image load task waits for an executor thread.
+		QUEUE_WAIT("Image load queue wait", Unit.NANOSECONDS),
+		/// Time from selecting an image to displaying it.
+		REQUEST_TO_DISPLAY("Request to display", Unit.NANOSECONDS),
+		/// Time to read a directory listing.
+		DIRECTORY_SCAN("Directory scan", Unit.NANOSECONDS),
+		/// Time to create a thumbnail.
+		THUMBNAIL("Thumbnail creation", Unit.NANOSECONDS),
+		/// Time a thumbnail task waits for an executor thread.
+		THUMBNAIL_QUEUE_WAIT("Thumbnail queue wait", Unit.NANOSECONDS),
+		/// Time a task waits in a scheduler until it is passed to the FX thread.
+		SCHEDULER_WAIT("Scheduler wait", Unit.NANOSECONDS),
+		/// Number of tasks passed to the FX thread at once.
+		SCHEDULER_BATCH("Scheduler batch size", Unit.COUNT);
+
+		private final String description;
+		private final Unit unit;
+
+		Metric(String description, Unit unit)
+		{
+			this.description = description;
+			this.unit = unit;
+		}
+
+		/// Returns a human readable description.
+		///
+		/// @return a human readable description
+		///
+		public String getDescription()
+		{
+			return description;
+		}
+
+		/// Returns the unit of recorded values.
+		///
+		/// @return the unit of recorded values
+		///
+		public Unit getUnit()
+		{
+			return unit;
+		}
+	}
+
+	static
+	{
+		for (Metric metric : Metric.values())
+		{
+			histograms.put(metric, new Histogram());
+		}
+	}
+
+	private LoadMetrics()
+	{
+	}
+
+	/// Records a value for the given metric.
+	///
+	/// @param metric the given metric
+	/// @param value  the value to record
+	///
+	public static void record(Metric metric, long value)
+	{
+		getHistogram(metric).record(value);
+	}
+
+	/// Records the time elapsed since the given start time.
+	///
+	/// @param metric    the given metric
+	/// @param timeStart the start time as given by `System.nanoTime()`
+	///
+	public static void recordSince(Metric metric, long timeStart)
+	{
+		record(metric, System.nanoTime() - timeStart);
+	}
+
+	/// Returns the histogram of the given metric.
+	///
+	/// @param metric the given metric
+	/// @return the histogram of the given metric
+	///
+	public static Histogram getHistogram(Metric metric)
+	{
+		final var histogram = histograms.get(metric);
+		if (histogram == null)
+		{
+			throw new IllegalStateException("No histogram for metric " + metric);
+		}
+		return histogram;
+	}
+
+	/// Counts an image cache lookup.
+	///
+	/// @param hit true for a cache hit, false for a miss
+	///
+	public static void countCacheLookup(boolean hit)
+	{
+		(hit ? cacheHits : cacheMisses).increment();
+	}
+
+	/// Returns the number of image cache hits.
+	///
+	/// @return the number of image cache hits
+	///
+	public static long getCacheHits()
+	{
+		return cacheHits.sum();
+	}
+
+	/// Returns the number of image cache misses.
+	///
+	/// @return the number of image cache misses
+	///
+	public static long getCacheMisses()
+	{
+		return cacheMisses.sum();
+	}
+
+	/// Returns the image cache hit rate.
+	///
+	/// @return the image cache hit rate in the range `[0, 1]`, or zero, if
+	///         there have been no lookups
+	///
+	public static double getCacheHitRate()
+	{
+		final long hits = getCacheHits();
+		final long total = hits + getCacheMisses();
+		return total > 0 ? (double) hits / total : 0.0;
+	}
+
+	/// Removes all recorded values.
+	///
+	public static void reset()
+	{
+		histograms.values().forEach(Histogram::reset);
+		cacheHits.reset();
+		cacheMisses.reset();
+	}
+}
@@ -26,8 +26,10 @@ module de.bernd_michaely.diascope.gui.fx
 	requires de.bernd_michaely.common.filesystem.view.fx;
 	requires de.bernd_michaely.common.semver;
 	requires de.bernd_michaely.common.selectable.list.fx;
+	requires java.desktop;
 	requires java.prefs;
 	requires javafx.controls;
+	requires jdk.jfr;
 	requires org.checkerframework.checker.qual;
 
 	exports de.bernd_michaely.diascope.app;
@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2026 Bernd Michaely (info@bernd-michaely.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.bernd_michaely.diascope.app.image;
+
+import de.bernd_michaely.diascope.app.image.MultiImageView.Mode;
+import de.bernd_michaely.diascope.app.util.beans.property.EnumProperties;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import javafx.beans.InvalidationListener;
+import javafx.beans.property.ReadOnlyDoubleWrapper;
+import javafx.scene.shape.LineTo;
+import javafx.scene.shape.MoveTo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static java.lang.Math.tan;
+import static java.lang.Math.toRadians;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Test class for ClippingPointsListener.
+ *
+ * @author Bernd Michaely (info@bernd-michaely.de)
+ */
+public class ClippingPointsListenerTest
+{
+	private static final double WIDTH = 300.0;
+	private static final double HEIGHT = 200.0;
+	private static final double DELTA = 1e-9;
+	/**
+	 * Budget of allocated bytes per divider drag step. The budget tolerates
+	 * allocations of the JVM not caused by the code under test, e.g. before
+	 * the JIT compiler is done, but is well below the boxed coordinates of a
+	 * single layer polygon (14 coordinates of 16 bytes each).
+	 */
+	private static final long MAX_BYTES_PER_STEP = 64;
+	private static final int NUM_STEPS = 10_000;
+	private final List<String> layers = List.of("layer 0", "layer 1", "layer 2");
+	private final Map<String, SplitDivider> dividers = new IdentityHashMap<>();
+	private final Map<String, ImageLayerShapeSplit> shapes = new IdentityHashMap<>();
+	private ClippingPointsListener<String> listener;
+
+	@BeforeEach
+	public void setUp()
+	{
+		final var width = new ReadOnlyDoubleWrapper(WIDTH);
+		final var height = new ReadOnlyDoubleWrapper(HEIGHT);
+		final var x = new ReadOnlyDoubleWrapper();
+		final var y = new ReadOnlyDoubleWrapper();
+		// keep split center in the viewport center:
+		x.bind(width.divide(2.0));
+		y.bind(height.divide(2.0));
+		final var dx = new ReadOnlyDoubleWrapper();
+		dx.bind(width.subtract(x));
+		final var dy = new ReadOnlyDoubleWrapper();
+		dy.bind(height.subtract(y));
+		final var cornerAngles = new CornerAngles(
+			x.getReadOnlyProperty(), y.getReadOnlyProperty(),
+			dx.getReadOnlyProperty(), dy.getReadOnlyProperty());
+		final var modeProperties = EnumProperties.createInstance(Mode.SPLIT);
+		for (int i = 0; i < layers.size(); i++)
+		{
+			final var divider = new SplitDivider(cornerAngles, width, height, x, y, dx, dy);
+			divider.setAngle(i * 120.0);
+			dividers.put(layers.get(i), divider);
+			shapes.put(layers.get(i), new ImageLayerShapeSplit(modeProperties));
+		}
+		listener = new ClippingPointsListener<>(width, height, x, y,
+			layers, dividers::get, shapes::get);
+		for (var layer : layers)
+		{
+			final InvalidationListener dividerListener = _ -> listener.dividerChanged(layer);
+			dividers.get(layer).angleProperty().addListener(dividerListener);
+		}
+		listener.run();
+	}
+
+	@AfterEach
+	public void tearDown()
+	{
+		dividers.values().forEach(SplitDivider::close);
+	}
+
+	private List<Double> getPoints(String layer)
+	{
+		final List<Double> points = new ArrayList<>();
+		for (var element : shapes.get(layer).getPolygon().getElements())
+		{
+			switch (element)
+			{
+				case MoveTo moveTo ->
+				{
+					points.add(moveTo.getX());
+					points.add(moveTo.getY());
+				}
+				case LineTo lineTo ->
+				{
+					points.add(lineTo.getX());
+					points.add(lineTo.getY());
+				}
+				default ->
+				{
+				}
+			}
+		}
+		return points;
+	}
+
+	private List<List<Double>> getPointsOfAllLayers()
+	{
+		return layers.stream().map(this::getPoints).toList();
+	}
+
+	private static com.sun.management.ThreadMXBean getThreadMXBean()
+	{
+		final var threadMXBean = ManagementFactory.getThreadMXBean();
+		assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean bean &&
+			bean.isThreadAllocatedMemorySupported(), "Allocation counting not supported");
+		final var bean = (com.sun.management.ThreadMXBean) threadMXBean;
+		bean.setThreadAllocatedMemoryEnabled(true);
+		return bean;
+	}
+
+	@Test
+	public void test_points()
+	{
+		System.out.println("Test split polygon points");
+		// layer 0 between the dividers at 0° and 120°, center (150, 100):
+		final var points = getPoints(layers.get(0));
+		assertEquals(2 * ClippingPointsListener.Points.MAX_NUM_POINTS, points.size());
+		final double x120 = WIDTH / 2 - tan(toRadians(30.0)) * HEIGHT / 2;
+		final double[] expected =
+		{
+			150.0, 100.0, // split center
+			300.0, 100.0, // divider 0 at RIGHT border
+			300.0, 200.0, // corner RIGHT-BOTTOM
+			x120, 200.0, // divider 1 at BOTTOM border
+			150.0, 100.0, 150.0, 100.0, 150.0, 100.0 // unused points
+		};
+		for (int i = 0; i < expected.length; i++)
+		{
+			assertEquals(expected[i], points.get(i), DELTA);
+		}
+	}
+
+	@Test
+	public void test_dividerChanged()
+	{
+		System.out.println("Test incremental split polygon recalculation");
+		final var before = getPointsOfAllLayers();
+		// the divider of layer 1 bounds the layers 0 and 1:
+		dividers.get(layers.get(1)).setAngle(100.0);
+		final var after = getPointsOfAllLayers();
+		assertNotEquals(before.get(0), after.get(0));
+		assertNotEquals(before.get(1), after.get(1));
+		assertEquals(before.get(2), after.get(2));
+		// incremental result must match the full recalculation:
+		listener.run();
+		assertEquals(after, getPointsOfAllLayers());
+	}
+
+	@Test
+	public void test_dragAllocationBudget()
+	{
+		System.out.println("Test split divider drag allocations");
+		final var threadMXBean = getThreadMXBean();
+		final var divider = dividers.get(layers.get(1));
+		// warm up, each step moves the divider and recalculates the polygons of two layers:
+		for (int i = 0; i < NUM_STEPS; i++)
+		{
+			divider.setAngle(i % 2 == 0 ? 100.0 : 110.0);
+		}
+		final long allocatedStart = threadMXBean.getCurrentThreadAllocatedBytes();
+		for (int i = 0; i < NUM_STEPS; i++)
+		{
+			divider.setAngle(i % 2 == 0 ? 100.0 : 110.0);
+		}
+		final long bytesPerStep =
+			(threadMXBean.getCurrentThreadAllocatedBytes() - allocatedStart) / NUM_STEPS;
+		System.out.println("→ allocated bytes per step: " + bytesPerStep);
+		assertTrue(bytesPerStep <= MAX_BYTES_PER_STEP,
+			"allocated bytes per step: " + bytesPerStep);
+	}
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2026 Bernd Michaely (info@bernd-michaely.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.bernd_michaely.diascope.app.image;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/// Test class for ExifThumbnailReader.
+///
+/// @author Bernd Michaely (info@bernd-michaely.de)
+///
+public class ExifThumbnailReaderTest
+{
+	/// Creates the head of a JPEG file with a start of frame segment.
+	private static byte[] createJpeg(int width, int height)
+	{
+		return ByteBuffer.allocate(25)
+			.put((byte) 0xff).put((byte) 0xd8)
+			.put((byte) 0xff).put((byte) 0xc0).putShort((short) 17).put((byte) 8)
+			.putShort((short) height).putShort((short) width)
+			.put((byte) 3).put(new byte[9])
+			.put((byte) 0xff).put((byte) 0xd9)
+			.array();
+	}
+
+	/// Creates the head of a JPEG file with an APP0 segment followed by an
+	/// APP1 segment with the given embedded thumbnail and the start of frame
+	/// segment of the main image.
+	private static byte[] createJpegWithExif(byte[] thumbnail, ByteOrder byteOrder,
+		int width, int height)
+	{
+		// TIFF header, empty IFD0 and IFD1 with two entries:
+		final int offsetIfd1 = 8 + 2 + 4;
+		final int offsetThumbnail = offsetIfd1 + 2 + 2 * 12 + 4;
+		final var tiff = ByteBuffer.allocate(offsetThumbnail + thumbnail.length).order(byteOrder);
+		tiff.put(byteOrder == ByteOrder.LITTLE_ENDIAN ? (byte) 'I' : (byte) 'M');
+		tiff.put(byteOrder == ByteOrder.LITTLE_ENDIAN ? (byte) 'I' : (byte) 'M');
+		tiff.putShort((short) 42).putInt(8);
+		tiff.putShort((short) 0).putInt(offsetIfd1);
+		tiff.putShort((short) 2);
+		tiff.putShort((short) 0x0201).putShort((short) 4).putInt(1).putInt(offsetThumbnail);
+		tiff.putShort((short) 0x0202).putShort((short) 4).putInt(1).putInt(thumbnail.length);
+		tiff.putInt(0);
+		tiff.put(thumbnail);
+		final var out = new ByteArrayOutputStream();
+		out.writeBytes(new byte[]
+		{
+			(byte) 0xff, (byte) 0xd8,
+			(byte) 0xff, (byte) 0xe0, 0, 16, 'J', 'F', 'I', 'F', 0, 1, 1, 0, 0, 1, 0, 1, 0, 0
+		});
+		final int length = 2 + 6 + tiff.capacity();
+		out.writeBytes(new byte[]
+		{
+			(byte) 0xff, (byte) 0xe1, (byte) (length >> 8), (byte) length, 'E', 'x', 'i', 'f', 0, 0
+		});
+		out.writeBytes(tiff.array());
+		// the start of frame segment without the SOI and EOI markers:
+		out.write(createJpeg(width, height), 2, 19);
+		out.writeBytes(new byte[]
+		{
+			(byte) 0xff, (byte) 0xda, 0, 2
+		});
+		return out.toByteArray();
+	}
+
+	@Test
+	public void testParse()
+	{
+		for (var byteOrder : new ByteOrder[]
+		{
+			ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN
+		})
+		{
+			final byte[] jpeg = createJpeg(160, 120);
+			final var thumbnail = ExifThumbnailReader.parse(
+				ByteBuffer.wrap(createJpegWithExif(jpeg, byteOrder, 4000, 3000)));
+			assertNotNull(thumbnail);
+			assertEquals(160, thumbnail.width());
+			assertEquals(120, thumbnail.height());
+			assertEquals(160, thumbnail.getSize());
+			assertEquals(ByteBuffer.wrap(jpeg), thumbnail.data());
+		}
+	}
+
+	@Test
+	public void testNoThumbnail()
+	{
+		assertNull(ExifThumbnailReader.parse(ByteBuffer.allocate(0)));
+		assertNull(ExifThumbnailReader.parse(ByteBuffer.wrap(createJpeg(640, 480))));
+		assertNull(ExifThumbnailReader.parse(ByteBuffer.wrap(new byte[]
+		{
+			'G', 'I', 'F', '8', '9', 'a'
+		})));
+		// embedded data without start of frame:
+		assertNull(ExifThumbnailReader.parse(ByteBuffer.wrap(
+			createJpegWithExif(new byte[]
+			{
+				(byte) 0xff, (byte) 0xd8, (byte) 0xff, (byte) 0xd9
+			}, ByteOrder.BIG_ENDIAN, 4000, 3000))));
+	}
+
+	@Test
+	public void testAspectRatio()
+	{
+		final byte[] jpeg = createJpeg(160, 107);
+		assertNotNull(ExifThumbnailReader.parse(ByteBuffer.wrap(
+			createJpegWithExif(jpeg, ByteOrder.BIG_ENDIAN, 6000, 4000))));
+		// rounded thumbnail size:
+		assertNotNull(ExifThumbnailReader.parse(ByteBuffer.wrap(
+			createJpegWithExif(createJpeg(160, 106), ByteOrder.BIG_ENDIAN, 6000, 4000))));
+		// letterboxed thumbnail of a different aspect ratio:
+		assertNull(ExifThumbnailReader.parse(ByteBuffer.wrap(
+			createJpegWithExif(createJpeg(160, 120), ByteOrder.BIG_ENDIAN, 6000, 4000))));
+		// unknown size of the main image:
+		assertNull(ExifThumbnailReader.parse(ByteBuffer.wrap(
+			createJpegWithExif(jpeg, ByteOrder.BIG_ENDIAN, 0, 0))));
+	}
+
+	@Test
+	public void testJpegFileNameExtension()
+	{
+		assertTrue(ExifThumbnailReader.hasJpegFileNameExtension(Path.of("dir", "image.jpg")));
+		assertTrue(ExifThumbnailReader.hasJpegFileNameExtension(Path.of("image.JPEG")));
+		assertFalse(ExifThumbnailReader.hasJpegFileNameExtension(Path.of("image.png")));
+		assertFalse(ExifThumbnailReader.hasJpegFileNameExtension(Path.of("jpg")));
+		assertFalse(ExifThumbnailReader.hasJpegFileNameExtension(Path.of("/")));
+	}
+
+	@Test
+	public void testTruncated()
+	{
+		final byte[] data = createJpegWithExif(createJpeg(160, 120), ByteOrder.BIG_ENDIAN, 4000, 3000);
+		// usable as soon as the size of the main image is complete, which is
+		// followed by 10 bytes of the start of frame segment and the SOS marker:
+		final int lengthMin = data.length - 10 - 4;
+		for (int length = 0; length <= data.length; length++)
+		{
+			assertEquals(length >= lengthMin,
+				ExifThumbnailReader.parse(ByteBuffer.wrap(data, 0, length)) != null, "length " + length);
+		}
+	}
+
+	@Test
+	public void testRead(@TempDir Path tempDir) throws IOException
+	{
+		final Path path = tempDir.resolve("image.jpg");
+		final byte[] head = createJpegWithExif(createJpeg(320, 240), ByteOrder.LITTLE_ENDIAN, 4000, 3000);
+		// large file with image data beyond the header read size:
+		final byte[] data = new byte[ExifThumbnailReader.HEADER_READ_SIZE * 2];
+		System.arraycopy(head, 0, data, 0, head.length);
+		Files.write(path, data);
+		final var thumbnail = ExifThumbnailReader.read(path);
+		assertNotNull(thumbnail);
+		assertEquals(320, thumbnail.getSize());
+		assertNull(ExifThumbnailReader.read(Files.write(tempDir.resolve("empty.jpg"), new byte[0])));
+	}
+}
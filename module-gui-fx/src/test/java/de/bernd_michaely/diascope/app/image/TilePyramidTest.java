@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2026 Bernd Michaely (info@bernd-michaely.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.bernd_michaely.diascope.app.image;
+
+import de.bernd_michaely.diascope.app.image.TilePyramid.Tile;
+import java.util.List;
+import javafx.geometry.Rectangle2D;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/// Test class for TilePyramid.
+///
+/// @author Bernd Michaely (info@bernd-michaely.de)
+///
+public class TilePyramidTest
+{
+	@Test
+	public void testInvalidSize()
+	{
+		assertThrows(IllegalArgumentException.class, () -> new TilePyramid(0, 100, 10));
+		assertThrows(IllegalArgumentException.class, () -> new TilePyramid(100, 100, 0));
+	}
+
+	@Test
+	public void testMaxLevel()
+	{
+		assertEquals(0, new TilePyramid(512, 300, 512).getMaxLevel());
+		assertEquals(1, new TilePyramid(513, 300, 512).getMaxLevel());
+		assertEquals(1, new TilePyramid(1024, 1024, 512).getMaxLevel());
+		assertEquals(2, new TilePyramid(1025, 10, 512).getMaxLevel());
+		assertEquals(8, new TilePyramid(100_000, 50_000, 512).getMaxLevel());
+	}
+
+	@Test
+	public void testLevel()
+	{
+		final var tilePyramid = new TilePyramid(100_000, 50_000, 512);
+		assertEquals(0, tilePyramid.getLevel(2.0));
+		assertEquals(0, tilePyramid.getLevel(1.0));
+		assertEquals(0, tilePyramid.getLevel(0.75));
+		assertEquals(1, tilePyramid.getLevel(0.5));
+		assertEquals(1, tilePyramid.getLevel(0.3));
+		assertEquals(2, tilePyramid.getLevel(0.25));
+		assertEquals(8, tilePyramid.getLevel(0.0001));
+		assertEquals(8, tilePyramid.getLevel(0.0));
+		assertEquals(8, tilePyramid.getLevel(Double.NaN));
+		assertEquals(4, TilePyramid.getSubsampling(2));
+	}
+
+	@Test
+	public void testRegion()
+	{
+		final var tilePyramid = new TilePyramid(1000, 700, 256);
+		assertEquals(new Rectangle2D(0, 0, 256, 256), tilePyramid.getRegion(new Tile(0, 0, 0)));
+		assertEquals(new Rectangle2D(768, 512, 232, 188), tilePyramid.getRegion(new Tile(0, 3, 2)));
+		assertEquals(new Rectangle2D(512, 512, 488, 188), tilePyramid.getRegion(new Tile(1, 1, 1)));
+	}
+
+	@Test
+	public void testTiles()
+	{
+		final var tilePyramid = new TilePyramid(1000, 700, 256);
+		assertEquals(List.of(new Tile(0, 0, 0)),
+			tilePyramid.getTiles(0, new Rectangle2D(10, 10, 100, 100)));
+		assertEquals(List.of(new Tile(0, 1, 1), new Tile(0, 2, 1), new Tile(0, 1, 2), new Tile(0, 2, 2)),
+			tilePyramid.getTiles(0, new Rectangle2D(300, 300, 300, 300)));
+		// clipped to the image:
+		assertEquals(List.of(new Tile(0, 3, 2)),
+			tilePyramid.getTiles(0, new Rectangle2D(900, 600, 5000, 5000)));
+		assertEquals(List.of(new Tile(2, 0, 0)),
+			tilePyramid.getTiles(2, new Rectangle2D(-100, -100, 2000, 2000)));
+		assertEquals(List.of(), tilePyramid.getTiles(0, new Rectangle2D(1000, 0, 100, 100)));
+		assertEquals(List.of(), tilePyramid.getTiles(5, new Rectangle2D(0, 0, 100, 100)));
+	}
+}
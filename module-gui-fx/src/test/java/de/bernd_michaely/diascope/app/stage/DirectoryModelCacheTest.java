@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2026 Bernd Michaely (info@bernd-michaely.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.bernd_michaely.diascope.app.stage;
+
+import de.bernd_michaely.diascope.app.stage.DirectoryModelCache.DirectoryModel;
+import de.bernd_michaely.diascope.app.stage.DirectoryModelCache.Key;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static de.bernd_michaely.diascope.app.stage.DirectoryModelCache.ENTRY_WEIGHT;
+import static org.junit.jupiter.api.Assertions.*;
+
+/// Test class for DirectoryModelCache.
+///
+/// @author Bernd Michaely (info@bernd-michaely.de)
+///
+public class DirectoryModelCacheTest
+{
+	private static final int THUMBNAIL_SIZE = 1000;
+
+	private static DirectoryModel createModel(Key key, int numEntries)
+	{
+		final List<ImageGroupDescriptor> entries = new ArrayList<>();
+		for (int i = 0; i < numEntries; i++)
+		{
+			final var entry = new ImageGroupDescriptor(
+				key.directory().resolve("img_%d.jpg".formatted(i)));
+			if (i % 2 == 0)
+			{
+				entry.setThumbnailData(ByteBuffer.allocate(THUMBNAIL_SIZE));
+			}
+			entries.add(entry);
+		}
+		return new DirectoryModel(key, List.copyOf(entries), 0, null, true);
+	}
+
+	@Test
+	public void testWeight()
+	{
+		final var model = createModel(new Key(Path.of("a"), false, false), 4);
+		assertEquals(4 * ENTRY_WEIGHT + 2 * THUMBNAIL_SIZE, DirectoryModelCache.getWeight(model));
+		assertEquals(0, DirectoryModelCache.getWeight(
+			new DirectoryModel(model.key(), List.of(), -1, null, false)));
+	}
+
+	@Test
+	public void testPutRemove()
+	{
+		final var cache = new DirectoryModelCache(Long.MAX_VALUE);
+		final var keyA = new Key(Path.of("a"), false, false);
+		final var keyARecursive = new Key(Path.of("a"), true, false);
+		final var model = createModel(keyA, 10);
+		cache.put(model);
+		cache.put(createModel(keyA, 4));
+		assertEquals(1, cache.size());
+		assertEquals(DirectoryModelCache.getWeight(createModel(keyA, 4)), cache.getWeight());
+		cache.put(model);
+		assertNull(cache.remove(keyARecursive));
+		assertSame(model, cache.remove(keyA));
+		assertNull(cache.remove(keyA));
+		assertEquals(0, cache.size());
+		assertEquals(0, cache.getWeight());
+	}
+
+	@Test
+	public void testEviction()
+	{
+		final long weightModel = DirectoryModelCache.getWeight(
+			createModel(new Key(Path.of("x"), false, false), 10));
+		final var cache = new DirectoryModelCache(3 * weightModel);
+		final var keyA = new Key(Path.of("a"), false, false);
+		final var keyB = new Key(Path.of("b"), false, false);
+		final var keyC = new Key(Path.of("c"), false, false);
+		final var keyD = new Key(Path.of("d"), false, false);
+		cache.put(createModel(keyA, 10));
+		cache.put(createModel(keyB, 10));
+		cache.put(createModel(keyC, 10));
+		assertEquals(3, cache.size());
+		assertEquals(3 * weightModel, cache.getWeight());
+		// the least recently used model is evicted:
+		cache.put(createModel(keyD, 10));
+		assertEquals(3, cache.size());
+		assertNull(cache.remove(keyA));
+		assertNotNull(cache.remove(keyB));
+		assertEquals(2 * weightModel, cache.getWeight());
+		// a model exceeding the capacity on its own is not kept:
+		cache.put(createModel(keyA, 40));
+		assertEquals(0, cache.size());
+		assertEquals(0, cache.getWeight());
+		cache.clear();
+		assertEquals(0, cache.size());
+	}
+}
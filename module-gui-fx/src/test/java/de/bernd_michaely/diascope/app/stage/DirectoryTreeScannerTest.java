@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2026 Bernd Michaely (info@bernd-michaely.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.bernd_michaely.diascope.app.stage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.*;
+
+/// Test class for DirectoryTreeScanner.
+///
+/// @author Bernd Michaely (info@bernd-michaely.de)
+///
+public class DirectoryTreeScannerTest
+{
+	private static final long TIMEOUT_SECONDS = 30;
+
+	private static Set<Path> scan(Path directory, boolean recursive, boolean includingHidden)
+		throws InterruptedException
+	{
+		final Set<Path> paths = new HashSet<>();
+		try (final var scanner = new DirectoryTreeScanner(directory, recursive, includingHidden))
+		{
+			while (!scanner.isFinished())
+			{
+				final var chunk = scanner.poll(TIMEOUT_SECONDS, SECONDS);
+				assertNotNull(chunk, "scan timed out");
+				for (var item : chunk)
+				{
+					assertNotNull(item.getFileAttributes());
+					assertTrue(paths.add(item.getPath()), "duplicate " + item.getPath());
+				}
+			}
+			assertTrue(scanner.isFinished());
+			assertEquals(0, scanner.poll(0, SECONDS).size());
+		}
+		return paths;
+	}
+
+	@Test
+	public void testScan(@TempDir Path tempDir) throws IOException, InterruptedException
+	{
+		final Set<Path> top = new HashSet<>();
+		final Set<Path> nested = new HashSet<>();
+		for (int i = 0; i < 2 * DirectoryTreeScanner.CHUNK_SIZE + 1; i++)
+		{
+			top.add(Files.createFile(tempDir.resolve("img_%03d.jpg".formatted(i))));
+		}
+		Files.createFile(tempDir.resolve("notes.txt"));
+		Path dir = tempDir;
+		for (int depth = 0; depth < 5; depth++)
+		{
+			dir = Files.createDirectory(dir.resolve("day_" + depth));
+			nested.add(Files.createFile(dir.resolve("img.png")));
+			// cyclic link, which is not followed:
+			Files.createSymbolicLink(dir.resolve("link"), tempDir);
+		}
+		final Path hiddenDir = Files.createDirectory(tempDir.resolve(".hidden"));
+		final Path hidden = Files.createFile(hiddenDir.resolve("img.jpg"));
+		assertEquals(top, scan(tempDir, false, true));
+		final Set<Path> expected = new HashSet<>(top);
+		expected.addAll(nested);
+		if (Files.isHidden(hiddenDir))
+		{
+			assertEquals(expected, scan(tempDir, true, false));
+		}
+		expected.add(hidden);
+		assertEquals(expected, scan(tempDir, true, true));
+	}
+
+	@Test
+	public void testMissingDirectory(@TempDir Path tempDir) throws InterruptedException
+	{
+		assertEquals(Set.of(), scan(tempDir.resolve("missing"), true, false));
+	}
+}
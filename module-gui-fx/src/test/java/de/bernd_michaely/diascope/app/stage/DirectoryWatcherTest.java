@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2026 Bernd Michaely (info@bernd-michaely.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.bernd_michaely.diascope.app.stage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static java.util.concurrent.TimeUnit.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/// Test class for DirectoryWatcher.
+///
+/// @author Bernd Michaely (info@bernd-michaely.de)
+///
+public class DirectoryWatcherTest
+{
+	private static final long TIMEOUT_SECONDS = 30;
+
+	private record Change(Path directory, Set<Path> paths)
+	{
+	}
+
+	@Test
+	public void testChanges(@TempDir Path tempDir) throws IOException, InterruptedException
+	{
+		final Path dir1 = Files.createDirectory(tempDir.resolve("dir1"));
+		final Path dir2 = Files.createDirectory(tempDir.resolve("dir2"));
+		final Path fileDeleted = Files.createFile(dir1.resolve("deleted.jpg"));
+		// notifications are recorded on the watcher thread and checked here:
+		final BlockingQueue<Change> changes = new LinkedBlockingQueue<>();
+		final BlockingQueue<Path> overflows = new LinkedBlockingQueue<>();
+		try (final var directoryWatcher = new DirectoryWatcher(
+			(directory, paths) -> changes.add(new Change(directory, paths)), overflows::add))
+		{
+			directoryWatcher.watch(dir2);
+			directoryWatcher.watch(dir1);
+			// changes of a directory not watched anymore are ignored:
+			Files.createFile(dir2.resolve("ignored.jpg"));
+			final Path fileCreated = Files.createFile(dir1.resolve("created.jpg"));
+			Files.writeString(fileCreated, "modified");
+			Files.delete(fileDeleted);
+			final Set<Path> expected = Set.of(fileCreated, fileDeleted);
+			final Set<Path> paths = new HashSet<>();
+			while (!paths.containsAll(expected))
+			{
+				final Change change = changes.poll(TIMEOUT_SECONDS, SECONDS);
+				assertNotNull(change, "missing change events");
+				assertEquals(dir1, change.directory());
+				paths.addAll(change.paths());
+			}
+			assertEquals(expected, paths);
+			directoryWatcher.watch(null);
+			Files.createFile(dir1.resolve("unwatched.jpg"));
+			assertNull(changes.poll(4 * DirectoryWatcher.QUIET_PERIOD_MILLIS, MILLISECONDS));
+			assertEquals(List.of(), List.copyOf(overflows));
+		}
+	}
+
+	@Test
+	public void testFailingReceiver(@TempDir Path tempDir) throws IOException, InterruptedException
+	{
+		final BlockingQueue<Change> changes = new LinkedBlockingQueue<>();
+		try (final var directoryWatcher = new DirectoryWatcher((directory, paths) ->
+		{
+			changes.add(new Change(directory, paths));
+			throw new IllegalStateException("receiver failed");
+		}, _ ->
+		{
+		}))
+		{
+			directoryWatcher.watch(tempDir);
+			final Path file1 = Files.createFile(tempDir.resolve("file1.jpg"));
+			final Change change1 = changes.poll(TIMEOUT_SECONDS, SECONDS);
+			assertNotNull(change1, "missing change events");
+			assertTrue(change1.paths().contains(file1));
+			// the watcher keeps running after a failing notification:
+			final Path file2 = Files.createFile(tempDir.resolve("file2.jpg"));
+			Change change2;
+			do
+			{
+				change2 = changes.poll(TIMEOUT_SECONDS, SECONDS);
+				assertNotNull(change2, "missing change events");
+			}
+			while (!change2.paths().contains(file2));
+		}
+	}
+
+	@Test
+	public void testMaxLatency(@TempDir Path tempDir) throws IOException, InterruptedException
+	{
+		final BlockingQueue<Change> changes = new LinkedBlockingQueue<>();
+		final BlockingQueue<Path> overflows = new LinkedBlockingQueue<>();
+		try (final var directoryWatcher = new DirectoryWatcher(
+			(directory, paths) -> changes.add(new Change(directory, paths)), overflows::add))
+		{
+			directoryWatcher.watch(tempDir);
+			// events arriving faster than the quiet period are passed on while arriving:
+			final long timeEnd = System.nanoTime() + SECONDS.toNanos(TIMEOUT_SECONDS);
+			final long sleepMillis = DirectoryWatcher.QUIET_PERIOD_MILLIS / 5;
+			for (int i = 0; changes.isEmpty() && overflows.isEmpty(); i++)
+			{
+				assertTrue(System.nanoTime() < timeEnd, "missing change events");
+				Files.createFile(tempDir.resolve("file_%d.jpg".formatted(i)));
+				Thread.sleep(sleepMillis);
+			}
+			assertEquals(List.of(), List.copyOf(overflows));
+		}
+	}
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2026 Bernd Michaely (info@bernd-michaely.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.bernd_michaely.diascope.app.stage;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/// Test class for ImageGroupDescriptor.
+///
+/// @author Bernd Michaely (info@bernd-michaely.de)
+///
+public class ImageGroupDescriptorTest
+{
+	@Test
+	public void testThumbnailDataProperty()
+	{
+		final var descriptor = new ImageGroupDescriptor(Path.of("img.jpg"));
+		final var data1 = ByteBuffer.allocate(1);
+		final var data2 = ByteBuffer.allocate(2);
+		// set before the property is created:
+		descriptor.setThumbnailData(data1);
+		final var property = descriptor.thumbnailDataProperty();
+		assertSame(data1, property.get());
+		assertSame(property, descriptor.thumbnailDataProperty());
+		final List<ByteBuffer> values = new ArrayList<>();
+		property.addListener((_, _, newValue) -> values.add(newValue));
+		descriptor.setThumbnailData(data2);
+		assertSame(data2, descriptor.getThumbnailData());
+		descriptor.setThumbnailData(null);
+		assertNull(descriptor.getThumbnailData());
+		assertEquals(2, values.size());
+		assertSame(data2, values.get(0));
+		assertNull(values.get(1));
+	}
+}
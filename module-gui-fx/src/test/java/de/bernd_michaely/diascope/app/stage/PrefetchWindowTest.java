@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2026 Bernd Michaely (info@bernd-michaely.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.bernd_michaely.diascope.app.stage;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static de.bernd_michaely.diascope.app.stage.PrefetchWindow.FAST_NAVIGATION_NANOS;
+import static org.junit.jupiter.api.Assertions.*;
+
+/// Test class for PrefetchWindow.
+///
+/// @author Bernd Michaely (info@bernd-michaely.de)
+///
+public class PrefetchWindowTest
+{
+	private static final long SLOW = 10 * FAST_NAVIGATION_NANOS;
+	private static final long FAST = FAST_NAVIGATION_NANOS / 10;
+
+	@Test
+	public void testInvalidIndex()
+	{
+		final var window = new PrefetchWindow(4, 1);
+		assertEquals(List.of(), window.update(-1, 10, 0));
+		assertEquals(List.of(), window.update(10, 10, 0));
+		assertEquals(List.of(), window.update(0, 0, 0));
+	}
+
+	@Test
+	public void testInitialAndBorders()
+	{
+		final var window = new PrefetchWindow(4, 1);
+		assertEquals(List.of(1), window.update(0, 10, 0));
+		assertEquals(List.of(), window.update(0, 1, SLOW));
+		window.reset();
+		assertEquals(List.of(8), window.update(9, 10, 0));
+	}
+
+	@Test
+	public void testAdaptiveDepth()
+	{
+		final var window = new PrefetchWindow(3, 1);
+		long time = 0;
+		assertEquals(List.of(6, 4), window.update(5, 100, time));
+		assertEquals(List.of(7, 5, 8), window.update(6, 100, time += FAST));
+		assertEquals(List.of(8, 6, 9, 10), window.update(7, 100, time += FAST));
+		// maximum depth reached:
+		assertEquals(List.of(9, 7, 10, 11), window.update(8, 100, time += FAST));
+		// slowing down shrinks the depth:
+		assertEquals(List.of(10, 8, 11), window.update(9, 100, time += SLOW));
+		// direction change resets the depth:
+		assertEquals(List.of(7, 9), window.update(8, 100, time += FAST));
+		assertFalse(window.isForward());
+		assertEquals(1, window.getDepthAhead());
+	}
+
+	@Test
+	public void testBehind()
+	{
+		final var window = new PrefetchWindow(1, 2);
+		assertEquals(List.of(6, 4, 3), window.update(5, 10, 0));
+		final var windowNone = new PrefetchWindow(0, 0);
+		assertEquals(List.of(), windowNone.update(5, 10, 0));
+	}
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2026 Bernd Michaely (info@bernd-michaely.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.bernd_michaely.diascope.app.stage;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/// Test class for ThumbnailQueue.
+///
+/// @author Bernd Michaely (info@bernd-michaely.de)
+///
+public class ThumbnailQueueTest
+{
+	private static final Comparator<ImageGroupDescriptor> comparator =
+		Comparator.comparing(ImageGroupDescriptor::getPath);
+
+	private static ImageGroupDescriptor item(int index)
+	{
+		return new ImageGroupDescriptor(Path.of("img_%03d.jpg".formatted(index)));
+	}
+
+	private static ThumbnailQueue createQueue(int size)
+	{
+		final var thumbnailQueue = new ThumbnailQueue(comparator);
+		for (int i = 0; i < size; i++)
+		{
+			thumbnailQueue.add(item(i));
+		}
+		return thumbnailQueue;
+	}
+
+	private static String take(ThumbnailQueue thumbnailQueue)
+	{
+		final var entry = thumbnailQueue.poll();
+		assertNotNull(entry);
+		return entry.imageGroupDescriptor().toString();
+	}
+
+	private static List<String> drain(ThumbnailQueue thumbnailQueue)
+	{
+		final List<String> result = new ArrayList<>();
+		for (var entry = thumbnailQueue.poll(); entry != null; entry = thumbnailQueue.poll())
+		{
+			result.add(entry.imageGroupDescriptor().toString());
+		}
+		return result;
+	}
+
+	@Test
+	public void testListOrderWithoutFocus()
+	{
+		final var thumbnailQueue = createQueue(3);
+		assertEquals(3, thumbnailQueue.size());
+		assertEquals(List.of("img_000.jpg", "img_001.jpg", "img_002.jpg"), drain(thumbnailQueue));
+		assertNull(thumbnailQueue.poll());
+	}
+
+	@Test
+	public void testFocusFirstThenOutwards()
+	{
+		final var thumbnailQueue = createQueue(10);
+		thumbnailQueue.setFocus(List.of(item(5), item(4), item(6)), item(5));
+		assertEquals(List.of(
+			"img_005.jpg", "img_004.jpg", "img_006.jpg",
+			"img_003.jpg", "img_007.jpg", "img_002.jpg", "img_008.jpg",
+			"img_001.jpg", "img_009.jpg", "img_000.jpg"), drain(thumbnailQueue));
+	}
+
+	@Test
+	public void testReprioritise()
+	{
+		final var thumbnailQueue = createQueue(10);
+		assertEquals("img_000.jpg", take(thumbnailQueue));
+		// scrolling to the end:
+		thumbnailQueue.setFocus(List.of(item(9), item(8)), item(9));
+		assertEquals("img_009.jpg", take(thumbnailQueue));
+		assertEquals("img_008.jpg", take(thumbnailQueue));
+		assertEquals("img_007.jpg", take(thumbnailQueue));
+		// focus on items already taken is ignored:
+		thumbnailQueue.setFocus(List.of(item(0)), null);
+		assertEquals("img_001.jpg", take(thumbnailQueue));
+		assertEquals(5, thumbnailQueue.size());
+	}
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2026 Bernd Michaely (info@bernd-michaely.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.bernd_michaely.diascope.app.stage.concurrent;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+import static de.bernd_michaely.diascope.app.stage.concurrent.ImageLoader.RequestType.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/// Test class for ImageCache.
+///
+/// @author Bernd Michaely (info@bernd-michaely.de)
+///
+public class ImageCacheTest
+{
+	private final Map<Path, Long> weights = new HashMap<>();
+
+	private ImageCache createImageCache(long capacity)
+	{
+		return new ImageCache(capacity, item -> weights.getOrDefault(item.path(), 1L));
+	}
+
+	private ImageContainer item(String name, long weight)
+	{
+		final Path path = Path.of(name);
+		weights.put(path, weight);
+		return new ImageContainer(path, IMMEDIATE, null, true);
+	}
+
+	@Test
+	public void testFindAndWeight()
+	{
+		final var imageCache = createImageCache(100);
+		assertTrue(imageCache.find(null).isEmpty());
+		assertTrue(imageCache.get(null).isEmpty());
+		imageCache.put(item("a", 10));
+		imageCache.put(item("b", 20));
+		assertEquals(2, imageCache.size());
+		assertEquals(30, imageCache.getWeight());
+		assertTrue(imageCache.find(Path.of("a")).isPresent());
+		assertTrue(imageCache.find(Path.of("c")).isEmpty());
+		// replace with different weight:
+		imageCache.put(item("a", 15));
+		assertEquals(2, imageCache.size());
+		assertEquals(35, imageCache.getWeight());
+		imageCache.clear();
+		assertEquals(0, imageCache.size());
+		assertEquals(0, imageCache.getWeight());
+	}
+
+	@Test
+	public void testEvictionByWeight()
+	{
+		final var imageCache = createImageCache(100);
+		imageCache.put(item("a", 40));
+		imageCache.put(item("b", 40));
+		imageCache.put(item("c", 40));
+		assertTrue(imageCache.getWeight() <= imageCache.getCapacity());
+		assertTrue(imageCache.find(Path.of("a")).isEmpty());
+		assertTrue(imageCache.find(Path.of("b")).isPresent());
+		assertTrue(imageCache.find(Path.of("c")).isPresent());
+		// many small items fit:
+		imageCache.clear();
+		for (int i = 0; i < 50; i++)
+		{
+			imageCache.put(item("small_" + i, 2));
+		}
+		assertEquals(50, imageCache.size());
+	}
+
+	@Test
+	public void testOversizedItemRetained()
+	{
+		final var imageCache = createImageCache(100);
+		imageCache.put(item("a", 10));
+		imageCache.put(item("huge", 500));
+		assertEquals(1, imageCache.size());
+		assertTrue(imageCache.find(Path.of("huge")).isPresent());
+	}
+
+	@Test
+	public void testProtectedSegmentSurvivesScan()
+	{
+		final var imageCache = createImageCache(100);
+		imageCache.put(item("favorite", 20));
+		// repeated access promotes to protected segment:
+		assertTrue(imageCache.get(Path.of("favorite")).isPresent());
+		for (int i = 0; i < 20; i++)
+		{
+			imageCache.put(item("scan_" + i, 20));
+		}
+		assertTrue(imageCache.find(Path.of("favorite")).isPresent());
+		assertTrue(imageCache.find(Path.of("scan_0")).isEmpty());
+		assertTrue(imageCache.find(Path.of("scan_19")).isPresent());
+		assertTrue(imageCache.getWeight() <= imageCache.getCapacity());
+	}
+
+	@Test
+	public void testRemovalHandler()
+	{
+		final List<Path> removed = new ArrayList<>();
+		final var imageCache = new ImageCache(100,
+			item -> weights.getOrDefault(item.path(), 1L), item -> removed.add(item.path()));
+		imageCache.put(item("a", 40));
+		imageCache.put(item("b", 40));
+		// replacing an item by an item with the same image is not a removal:
+		imageCache.put(item("b", 40));
+		assertEquals(List.of(), removed);
+		imageCache.put(item("c", 40));
+		assertEquals(List.of(Path.of("a")), removed);
+		assertTrue(imageCache.remove(Path.of("b")));
+		assertFalse(imageCache.remove(Path.of("b")));
+		assertEquals(List.of(Path.of("a"), Path.of("b")), removed);
+		imageCache.clear();
+		assertEquals(List.of(Path.of("a"), Path.of("b"), Path.of("c")), removed);
+	}
+
+	@Test
+	public void testUnloadedItemNotPromoted()
+	{
+		final var imageCache = createImageCache(100);
+		final Path path = Path.of("loading");
+		weights.put(path, 20L);
+		imageCache.put(new ImageContainer(path, READ_AHEAD));
+		assertTrue(imageCache.get(path).isPresent());
+		for (int i = 0; i < 5; i++)
+		{
+			imageCache.put(item("scan_" + i, 20));
+		}
+		assertTrue(imageCache.find(path).isEmpty());
+	}
+}
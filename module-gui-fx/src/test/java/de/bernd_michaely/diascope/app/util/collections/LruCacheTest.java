@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2026 Bernd Michaely (info@bernd-michaely.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.bernd_michaely.diascope.app.util.collections;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/// Test class for LruCache.
+///
+/// @author Bernd Michaely (info@bernd-michaely.de)
+///
+public class LruCacheTest
+{
+	@Test
+	public void testEviction()
+	{
+		final var cache = new LruCache<String, Integer>(3);
+		assertEquals(3, cache.getCapacity());
+		cache.put("a", 1);
+		cache.put("b", 2);
+		cache.put("c", 3);
+		// access makes "a" the most recently used entry:
+		assertEquals(1, cache.get("a"));
+		cache.put("d", 4);
+		assertEquals(3, cache.size());
+		assertNull(cache.get("b"));
+		assertEquals(1, cache.get("a"));
+		assertEquals(3, cache.get("c"));
+		assertEquals(4, cache.get("d"));
+		assertEquals(4, cache.remove("d"));
+		assertNull(cache.remove("d"));
+		assertEquals(2, cache.size());
+		cache.clear();
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void testLoader()
+	{
+		final var cache = new LruCache<String, Integer>(2);
+		final List<String> loaded = new ArrayList<>();
+		final Function<String, Integer> loader = key ->
+		{
+			loaded.add(key);
+			return key.length();
+		};
+		assertEquals(1, cache.get("a", loader));
+		assertEquals(1, cache.get("a", loader));
+		assertEquals(2, cache.get("bb", loader));
+		assertEquals(3, cache.get("ccc", loader));
+		assertEquals(1, cache.get("a", loader));
+		assertEquals(List.of("a", "bb", "ccc", "a"), loaded);
+		// null values are not added:
+		assertNull(cache.get("x", _ -> null));
+		assertEquals(2, cache.size());
+	}
+
+	@Test
+	public void testWeightedEviction()
+	{
+		final var cache = new LruCache<String, Long>(100, value -> value);
+		cache.put("a", 40L);
+		cache.put("b", 40L);
+		assertEquals(80, cache.getWeight());
+		// access makes "a" the most recently used entry:
+		assertEquals(40L, cache.get("a"));
+		cache.put("c", 40L);
+		assertEquals(2, cache.size());
+		assertNull(cache.get("b"));
+		assertEquals(40L, cache.get("a"));
+		assertEquals(40L, cache.get("c"));
+		assertEquals(80, cache.getWeight());
+		assertEquals(40L, cache.remove("a"));
+		assertEquals(40, cache.getWeight());
+	}
+
+	@Test
+	public void testWeightedReplaceAndOversized()
+	{
+		final var cache = new LruCache<String, Long>(100, value -> value);
+		cache.put("a", 40L);
+		cache.put("a", 60L);
+		assertEquals(1, cache.size());
+		assertEquals(60, cache.getWeight());
+		// the entry added last is kept, even if it exceeds the capacity:
+		cache.put("huge", 500L);
+		assertEquals(1, cache.size());
+		assertEquals(500L, cache.get("huge"));
+		cache.clear();
+		assertEquals(0, cache.size());
+		assertEquals(0, cache.getWeight());
+	}
+
+	@Test
+	public void testInvalidCapacity()
+	{
+		assertThrows(IllegalArgumentException.class, () -> new LruCache<String, String>(0));
+		assertThrows(IllegalArgumentException.class,
+			() -> new LruCache<String, String>(0L, String::length));
+	}
+}
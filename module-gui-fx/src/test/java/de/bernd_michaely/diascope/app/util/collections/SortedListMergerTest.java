@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2026 Bernd Michaely (info@bernd-michaely.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.bernd_michaely.diascope.app.util.collections;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/// Test class for SortedListMerger.
+///
+/// @author Bernd Michaely (info@bernd-michaely.de)
+///
+public class SortedListMergerTest
+{
+	private static final Comparator<Integer> comparator = Comparator.naturalOrder();
+
+	@Test
+	public void testEmpty()
+	{
+		final List<Integer> target = new ArrayList<>();
+		assertEquals(0, SortedListMerger.merge(target, List.of(), comparator));
+		assertEquals(List.of(), target);
+		assertEquals(1, SortedListMerger.merge(target, List.of(1, 2, 3), comparator));
+		assertEquals(List.of(1, 2, 3), target);
+	}
+
+	@Test
+	public void testRuns()
+	{
+		final List<Integer> target = new ArrayList<>(List.of(10, 20, 30));
+		// append in a single run:
+		assertEquals(1, SortedListMerger.merge(target, List.of(40, 50), comparator));
+		assertEquals(List.of(10, 20, 30, 40, 50), target);
+		// prepend and interleave:
+		assertEquals(3, SortedListMerger.merge(target, List.of(1, 2, 25, 26, 60), comparator));
+		assertEquals(List.of(1, 2, 10, 20, 25, 26, 30, 40, 50, 60), target);
+		// equal items are inserted behind existing ones:
+		assertEquals(1, SortedListMerger.merge(target, List.of(20, 21), comparator));
+		assertEquals(List.of(1, 2, 10, 20, 20, 21, 25, 26, 30, 40, 50, 60), target);
+	}
+
+	@Test
+	public void testRandomBatches()
+	{
+		final var random = new Random(42);
+		final List<Integer> target = new ArrayList<>();
+		final List<Integer> expected = new ArrayList<>();
+		for (int b = 0; b < 20; b++)
+		{
+			final List<Integer> batch = new ArrayList<>();
+			for (int i = random.nextInt(50); i > 0; i--)
+			{
+				batch.add(random.nextInt(1000));
+			}
+			batch.sort(comparator);
+			expected.addAll(batch);
+			SortedListMerger.merge(target, batch, comparator);
+			expected.sort(comparator);
+			assertEquals(expected, target);
+		}
+	}
+}
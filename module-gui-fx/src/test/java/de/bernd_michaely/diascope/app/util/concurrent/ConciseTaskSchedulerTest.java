@@ -16,7 +16,9 @@
  */
 package de.bernd_michaely.diascope.app.util.concurrent;
 
+import java.util.ArrayList;
 import java.util.Deque;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledFuture;
@@ -66,11 +68,29 @@ public class ConciseTaskSchedulerTest
 		try (taskScheduler)
 		{
 			assertFalse(taskScheduler.isClosed());
+			assertFalse(taskScheduler.isPulseAligned());
 			assertEquals(DEFAULT_SCHEDULING_TIME, taskScheduler.getSchedulingTime());
 		}
 		assertTrue(taskScheduler.isClosed());
 	}
 
+	@Test
+	public void testConstructorPulseAligned()
+	{
+		// no tasks are submitted, which would require the JavaFX toolkit:
+		final var taskScheduler = createPulseAligned(0);
+		try (taskScheduler)
+		{
+			assertFalse(taskScheduler.isClosed());
+			assertTrue(taskScheduler.isPulseAligned());
+			assertEquals(0, taskScheduler.getSchedulingTime());
+		}
+		assertTrue(taskScheduler.isClosed());
+		assertFalse(taskScheduler.submit(() ->
+		{
+		}));
+	}
+
 	@Test
 	public void testConstructor() throws TimeoutException
 	{
@@ -82,6 +102,79 @@ public class ConciseTaskSchedulerTest
 		_test_constructor(new ConciseTaskScheduler(0, consumer));
 	}
 
+	@Test
+	public void testKeyedSubmission()
+	{
+		final int numLoops = 10_000;
+		final List<Integer> valuesA = new ArrayList<>();
+		final List<Integer> valuesB = new ArrayList<>();
+		final List<Integer> valuesUnkeyed = new ArrayList<>();
+		final Consumer<Deque<Runnable>> consumer = tasks -> tasks.forEach(Runnable::run);
+		final var taskScheduler = new ConciseTaskScheduler(1, consumer);
+		try (taskScheduler)
+		{
+			for (int i = 0; i < numLoops; i++)
+			{
+				final int value = i;
+				assertTrue(taskScheduler.submit("A", () -> valuesA.add(value)));
+				assertTrue(taskScheduler.submit("B", () -> valuesB.add(value)));
+				assertTrue(taskScheduler.submit(() -> valuesUnkeyed.add(value)));
+			}
+		}
+		assertFalse(taskScheduler.submit("A", () -> valuesA.add(-1)));
+		System.out.println("Keyed tasks run: %d of %d".formatted(valuesA.size(), numLoops));
+		// unkeyed tasks are never dropped:
+		assertEquals(numLoops, valuesUnkeyed.size());
+		// keyed tasks run in submission order, the last one wins:
+		for (var values : List.of(valuesA, valuesB))
+		{
+			assertEquals(numLoops - 1, values.getLast());
+			for (int i = 1; i < values.size(); i++)
+			{
+				assertTrue(values.get(i - 1) < values.get(i));
+			}
+		}
+	}
+
+	@Test
+	public void testKeyedSubmissionOrder() throws InterruptedException
+	{
+		final List<String> runs = new ArrayList<>();
+		final var started = new CountDownLatch(1);
+		final var released = new CountDownLatch(1);
+		final Consumer<Deque<Runnable>> consumer = tasks -> tasks.forEach(Runnable::run);
+		final var taskScheduler = new ConciseTaskScheduler(1, consumer);
+		try (taskScheduler)
+		{
+			// hold the consumer, so that all following tasks are pending together:
+			assertTrue(taskScheduler.submit(() ->
+			{
+				started.countDown();
+				try
+				{
+					released.await();
+				}
+				catch (InterruptedException ex)
+				{
+					Thread.currentThread().interrupt();
+				}
+			}));
+			assertTrue(started.await(5, SECONDS));
+			assertTrue(taskScheduler.submit("A", () -> runs.add("A1")));
+			assertTrue(taskScheduler.submit(() -> runs.add("u1")));
+			assertTrue(taskScheduler.submit("B", () -> runs.add("B1")));
+			assertTrue(taskScheduler.submit("A", () -> runs.add("A2")));
+			assertTrue(taskScheduler.submit(() -> runs.add("u2")));
+			assertTrue(taskScheduler.submit("B", () -> runs.add("B2")));
+			assertTrue(taskScheduler.submit("A", () -> runs.add("A3")));
+			assertTrue(taskScheduler.submit(() -> runs.add("u3")));
+			released.countDown();
+		}
+		// one run per key with the last task, at the position of the first
+		// pending submit, ahead of unkeyed tasks submitted later:
+		assertEquals(List.of("A3", "u1", "B2", "u2", "u3"), runs);
+	}
+
 	@Test
 	public void testTransferFast() throws TimeoutException
 	{
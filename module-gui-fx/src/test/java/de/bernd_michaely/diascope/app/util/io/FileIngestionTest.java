@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2026 Bernd Michaely (info@bernd-michaely.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.bernd_michaely.diascope.app.util.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/// Test class for FileIngestion and ByteBufferInputStream.
+///
+/// @author Bernd Michaely (info@bernd-michaely.de)
+///
+public class FileIngestionTest
+{
+	@TempDir
+	private Path tempDir;
+
+	private byte[] createContent(int size)
+	{
+		final byte[] content = new byte[size];
+		new Random(size).nextBytes(content);
+		return content;
+	}
+
+	private void testRead(int size) throws IOException
+	{
+		final byte[] content = createContent(size);
+		final Path path = Files.write(tempDir.resolve("file_" + size), content);
+		final var statisticsBefore = FileIngestion.getStatistics();
+		final ByteBuffer buffer = FileIngestion.read(path);
+		assertEquals(0, buffer.position());
+		assertEquals(size, buffer.remaining());
+		assertEquals(size >= FileIngestion.DIRECT_MIN_SIZE, buffer.isDirect());
+		try (final var inputStream = FileIngestion.newInputStream(path))
+		{
+			assertArrayEquals(content, inputStream.readAllBytes());
+		}
+		final var statistics = FileIngestion.getStatistics();
+		assertEquals(statisticsBefore.files() + 2, statistics.files());
+		assertEquals(statisticsBefore.bytes() + 2L * size, statistics.bytes());
+	}
+
+	@Test
+	public void testRead() throws IOException
+	{
+		testRead(0);
+		testRead(1000);
+		testRead((int) FileIngestion.DIRECT_MIN_SIZE);
+	}
+
+	@Test
+	public void testByteBufferInputStream() throws IOException
+	{
+		final byte[] content = createContent(100);
+		final var buffer = ByteBuffer.wrap(content);
+		try (final var inputStream = new ByteBufferInputStream(buffer))
+		{
+			assertEquals(100, inputStream.available());
+			assertEquals(content[0] & 0xff, inputStream.read());
+			assertEquals(9, inputStream.skip(9));
+			inputStream.mark(0);
+			final byte[] b = new byte[20];
+			assertEquals(20, inputStream.read(b, 0, 20));
+			assertEquals(content[10], b[0]);
+			inputStream.reset();
+			assertEquals(content[10] & 0xff, inputStream.read());
+			assertEquals(89, inputStream.skip(1000));
+			assertEquals(-1, inputStream.read());
+			assertEquals(-1, inputStream.read(b, 0, 20));
+			assertEquals(0, inputStream.read(b, 0, 0));
+		}
+		// the position of the given buffer is not changed:
+		assertEquals(0, buffer.position());
+	}
+}
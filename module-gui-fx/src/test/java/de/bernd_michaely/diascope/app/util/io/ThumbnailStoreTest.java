@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2026 Bernd Michaely (info@bernd-michaely.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.bernd_michaely.diascope.app.util.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.junit.jupiter.api.Assertions.*;
+
+/// Test class for ThumbnailStore.
+///
+/// @author Bernd Michaely (info@bernd-michaely.de)
+///
+public class ThumbnailStoreTest
+{
+	@TempDir
+	private Path tempDir;
+
+	private static ByteBuffer data(String content)
+	{
+		return ByteBuffer.wrap(content.getBytes(UTF_8));
+	}
+
+	private static String content(ByteBuffer buffer)
+	{
+		final byte[] bytes = new byte[buffer.remaining()];
+		buffer.duplicate().get(bytes);
+		return new String(bytes, UTF_8);
+	}
+
+	@Test
+	public void testPutAndGet() throws IOException
+	{
+		final Path packFile = tempDir.resolve("store").resolve("test.pack");
+		try (final var store = new ThumbnailStore(packFile, null))
+		{
+			assertEquals(0, store.size());
+			assertNull(store.get("a.jpg", 10, 100));
+			store.put("a.jpg", 10, 100, data("thumbnail a"));
+			store.put("b.jpg", 20, 200, data("thumbnail b"));
+			assertEquals("thumbnail a", content(store.get("a.jpg", 10, 100)));
+			// modified image files don't match:
+			assertNull(store.get("a.jpg", 11, 100));
+			assertNull(store.get("a.jpg", 10, 101));
+		}
+		// reopen and read through the memory mapping:
+		try (final var store = new ThumbnailStore(packFile, null))
+		{
+			assertEquals(2, store.size());
+			assertEquals("thumbnail a", content(store.get("a.jpg", 10, 100)));
+			assertEquals("thumbnail b", content(store.get("b.jpg", 20, 200)));
+			// update incrementally:
+			store.put("a.jpg", 12, 102, data("thumbnail a'"));
+			assertTrue(store.getWastedBytes() > 0);
+		}
+		try (final var store = new ThumbnailStore(packFile, null))
+		{
+			assertEquals(2, store.size());
+			assertNull(store.get("a.jpg", 10, 100));
+			assertEquals("thumbnail a'", content(store.get("a.jpg", 12, 102)));
+		}
+	}
+
+	@Test
+	public void testTruncatedRecord() throws IOException
+	{
+		final Path packFile = tempDir.resolve("truncated.pack");
+		try (final var store = new ThumbnailStore(packFile, null))
+		{
+			store.put("a.jpg", 1, 1, data("aaaa"));
+			store.put("b.jpg", 2, 2, data("bbbb"));
+		}
+		try (final var fileChannel = FileChannel.open(packFile, WRITE))
+		{
+			fileChannel.truncate(fileChannel.size() - 2);
+		}
+		try (final var store = new ThumbnailStore(packFile, null))
+		{
+			assertEquals(1, store.size());
+			assertNull(store.get("b.jpg", 2, 2));
+			store.put("c.jpg", 3, 3, data("cccc"));
+		}
+		try (final var store = new ThumbnailStore(packFile, null))
+		{
+			assertEquals(2, store.size());
+			assertEquals("aaaa", content(store.get("a.jpg", 1, 1)));
+			assertEquals("cccc", content(store.get("c.jpg", 3, 3)));
+		}
+	}
+
+	@Test
+	public void testCompaction() throws IOException
+	{
+		final Path directory = Files.createDirectory(tempDir.resolve("images"));
+		Files.createFile(directory.resolve("kept.jpg"));
+		final Path packFile = tempDir.resolve("compaction.pack");
+		final ByteBuffer large = ByteBuffer.allocate((int) ThumbnailStore.COMPACTION_MIN_WASTE);
+		final long sizeBefore;
+		try (final var store = new ThumbnailStore(packFile, directory))
+		{
+			store.put("kept.jpg", 1, 1, data("kept"));
+			store.put("deleted.jpg", 2, 2, large);
+			sizeBefore = Files.size(packFile);
+		}
+		// closing the modified store compacts it in the background:
+		ThumbnailStore.awaitCompaction(packFile);
+		assertTrue(Files.size(packFile) < sizeBefore);
+		assertFalse(ThumbnailStore.compact(packFile, directory));
+		try (final var store = new ThumbnailStore(packFile, directory))
+		{
+			assertEquals(1, store.size());
+			assertEquals("kept", content(store.get("kept.jpg", 1, 1)));
+		}
+	}
+
+	@Test
+	public void testSingleWriter() throws IOException
+	{
+		final Path packFile = tempDir.resolve("writer.pack");
+		try (final var writer = new ThumbnailStore(packFile, null))
+		{
+			writer.put("a.jpg", 1, 1, data("aaaa"));
+			try (final var reader = new ThumbnailStore(packFile, null))
+			{
+				// the writer holds the lock of the pack file:
+				reader.put("b.jpg", 2, 2, data("bbbb"));
+				assertNull(reader.get("b.jpg", 2, 2));
+				assertFalse(ThumbnailStore.compact(packFile, null));
+			}
+			writer.put("c.jpg", 3, 3, data("cccc"));
+		}
+		try (final var store = new ThumbnailStore(packFile, null))
+		{
+			assertEquals(2, store.size());
+			assertNull(store.get("b.jpg", 2, 2));
+			assertEquals("cccc", content(store.get("c.jpg", 3, 3)));
+			// the lock is released after closing the writer:
+			store.put("d.jpg", 4, 4, data("dddd"));
+			assertEquals("dddd", content(store.get("d.jpg", 4, 4)));
+		}
+	}
+
+	@Test
+	public void testEntryName() throws IOException
+	{
+		try (final var store = new ThumbnailStore(tempDir.resolve("names.pack"), tempDir))
+		{
+			assertEquals("a.jpg", store.getEntryName(tempDir.resolve("a.jpg")));
+			assertEquals(Path.of("sub", "b.jpg").toString(),
+				store.getEntryName(tempDir.resolve("sub").resolve("b.jpg")));
+			assertEquals("c.jpg", store.getEntryName(Path.of("elsewhere", "c.jpg")));
+		}
+	}
+
+	@Test
+	public void testPackFileName()
+	{
+		final String name = ThumbnailStore.getPackFileName("/some/directory");
+		assertEquals(name, ThumbnailStore.getPackFileName("/some/directory"));
+		assertNotEquals(name, ThumbnailStore.getPackFileName("/some/other/directory"));
+		assertTrue(name.matches("[0-9a-f]{32}\\.pack"));
+	}
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2026 Bernd Michaely (info@bernd-michaely.de)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.bernd_michaely.diascope.app.util.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/// Test class for Histogram.
+///
+/// @author Bernd Michaely (info@bernd-michaely.de)
+///
+public class HistogramTest
+{
+	@Test
+	public void testBuckets()
+	{
+		assertEquals(0, Histogram.getBucketIndex(-5));
+		assertEquals(0, Histogram.getBucketIndex(0));
+		assertEquals(1, Histogram.getBucketIndex(1));
+		assertEquals(2, Histogram.getBucketIndex(2));
+		assertEquals(2, Histogram.getBucketIndex(3));
+		assertEquals(3, Histogram.getBucketIndex(4));
+		assertEquals(Long.SIZE - 1, Histogram.getBucketIndex(Long.MAX_VALUE));
+		assertEquals(0, Histogram.getUpperBound(0));
+		assertEquals(3, Histogram.getUpperBound(2));
+		assertEquals(Long.MAX_VALUE, Histogram.getUpperBound(Long.SIZE - 1));
+	}
+
+	@Test
+	public void testEmpty()
+	{
+		final var snapshot = new Histogram().getSnapshot();
+		assertEquals(0, snapshot.count());
+		assertEquals(0.0, snapshot.mean());
+		assertEquals(0, snapshot.quantile(0.5));
+		assertEquals(0, snapshot.max());
+	}
+
+	@Test
+	public void testRecordAndQuantiles()
+	{
+		final var histogram = new Histogram();
+		for (int i = 1; i <= 100; i++)
+		{
+			histogram.record(i);
+		}
+		final var snapshot = histogram.getSnapshot();
+		assertEquals(100, snapshot.count());
+		assertEquals(5050, snapshot.sum());
+		assertEquals(100, snapshot.max());
+		assertEquals(50.5, snapshot.mean(), 1e-9);
+		// the 50th value is in bucket [32, 63]:
+		assertEquals(63, snapshot.quantile(0.5));
+		// the upper bound is limited by the maximum:
+		assertEquals(100, snapshot.quantile(0.99));
+		assertEquals(1, snapshot.quantile(0.0));
+		histogram.reset();
+		assertEquals(0, histogram.getSnapshot().count());
+		assertEquals(0, histogram.getSnapshot().max());
+	}
+}
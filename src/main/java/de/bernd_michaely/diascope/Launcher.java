@@ -21,12 +21,14 @@ import de.bernd_michaely.common.cli.parser.InvalidCommandLineParametersException
 import de.bernd_michaely.common.cli.parser.OptionDefinitionException;
 import de.bernd_michaely.diascope.app.ApplicationConfiguration;
 import de.bernd_michaely.diascope.app.ApplicationConfiguration.Geometry;
+import de.bernd_michaely.diascope.app.ApplicationConfiguration.Prefetch;
 import de.bernd_michaely.diascope.app.DiascopeLauncher;
 import de.bernd_michaely.diascope.app.PreferencesUtil;
 import java.io.PrintStream;
 import java.lang.System.Logger;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalInt;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 import static java.lang.System.Logger.Level.*;
@@ -47,10 +49,20 @@ public class Launcher
 	private static final String OPT_CLEAR_PREFERENCES = "clear-preferences";
 	private static final String OPT_INITIAL_PATH = "open";
 	private static final String OPT_GEOMETRY = "geometry";
+	private static final String OPT_IMAGE_CACHE_SIZE = "image-cache-size";
+	private static final String OPT_PREFETCH = "prefetch";
+	private static final String REGEX_PREFETCH = "(\\d{1,2})(:(\\d{1,2}))?";
+	private static final String OPT_OFF_HEAP_IMAGES = "off-heap-images";
+	private static final String OPT_FLIGHT_RECORDING = "jfr";
 	private static boolean helpMode, developmentMode, experimentalMode, exportPrefsMode, clearPrefsMode;
+	private static boolean offHeapImages;
 	private static @Nullable String initialPath;
 	private static @Nullable String strGeometry;
 	private static @Nullable Geometry geometry;
+	private static @Nullable String strImageCacheSize;
+	private static @Nullable String strPrefetch;
+	private static @Nullable Prefetch prefetch;
+	private static @Nullable String flightRecording;
 
 	public static void main(String... args)
 	{
@@ -65,6 +77,10 @@ public class Launcher
 				case OPT_CLEAR_PREFERENCES -> clearPrefsMode = true;
 				case OPT_INITIAL_PATH -> initialPath = requireNonNullElse(param, "");
 				case OPT_GEOMETRY -> strGeometry = param;
+				case OPT_IMAGE_CACHE_SIZE -> strImageCacheSize = param;
+				case OPT_PREFETCH -> strPrefetch = param;
+				case OPT_OFF_HEAP_IMAGES -> offHeapImages = true;
+				case OPT_FLIGHT_RECORDING -> flightRecording = requireNonNullElse(param, "");
 				default -> throw new AssertionError(
 						"Invalid CommandLineArguments long option »%s«".formatted(longOption));
 			}
@@ -80,7 +96,16 @@ public class Launcher
 					"path to open initially (no path parameter to open nothing)")
 				.addFlagOption(OPT_EXPERIMENTAL, 'E', "enable experimental options")
 				.addParameterOption(OPT_GEOMETRY, 'g', REGEX_GEOMETRY, true,
-					"main window geometry, e.g. 800x600-200+100");
+					"main window geometry, e.g. 800x600-200+100")
+				.addParameterOption(OPT_IMAGE_CACHE_SIZE, "\\d{1,6}", true,
+					"size of the image and tile caches in MB (default: a quarter of the maximum heap size)")
+				.addParameterOption(OPT_PREFETCH, REGEX_PREFETCH, true,
+					"maximum number of images to prefetch ahead and behind, e.g. 4:1")
+				.addFlagOption(OPT_OFF_HEAP_IMAGES,
+					"store decoded images off heap to reduce garbage collection load")
+				.addParameterOption(OPT_FLIGHT_RECORDING, false,
+					"record JDK Flight Recorder events to the given file",
+					"(default: diascope-<timestamp>.jfr in the working directory)");
 		}
 		catch (OptionDefinitionException ex)
 		{
@@ -124,8 +149,23 @@ public class Launcher
 				}
 			}
 		}
+		if (strPrefetch != null)
+		{
+			final var matcher = commandLineArguments.getMatcher(OPT_PREFETCH);
+			if (matcher != null)
+			{
+				final String group1 = matcher.group(1);
+				if (group1 != null)
+				{
+					prefetch = new Prefetch(group1, matcher.group(3));
+				}
+			}
+		}
+		final OptionalInt imageCacheSize = strImageCacheSize != null ?
+			OptionalInt.of(Integer.parseInt(strImageCacheSize)) : OptionalInt.empty();
 		ApplicationConfiguration.initInstance(Optional.ofNullable(initialPath), commandLineArgs,
-			developmentMode, experimentalMode, Optional.ofNullable(geometry));
+			developmentMode, experimentalMode, Optional.ofNullable(geometry), imageCacheSize,
+			Optional.ofNullable(prefetch), offHeapImages, Optional.ofNullable(flightRecording));
 		if (helpMode)
 		{
 			final PrintStream ps = System.out;